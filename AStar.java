@@ -1,97 +1,206 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
+// Thread safety: aStar and search may be called from many threads at once on the
+// same Grid as long as nobody modifies the grid meanwhile. Each thread searches
+// with its own engine. The start Node passed in is updated (g, h, f, parent),
+// so concurrent callers must not share Node objects.
 public class AStar {
 
-  public static List<Node> aStar(Grid grid, Node start, Node goal) {
-    // Check if goal is reachable
-    if (grid.isObstacle(goal.x, goal.y)) {
-        return null; // Goal is unreachable
-    }
-
-    // Fringe (Priority Queue) for unexpanded nodes, sorted by f-cost
-    PriorityQueue<Node> fringe = new PriorityQueue<>(Comparator.comparingDouble(node -> node.f));
-    // Hash set for closed set (visited nodes)
-    Set<Node> closedSet = new HashSet<>();
-
-    // Add the start node to the fringe
-    start.g = 0; 
-    start.h = calculateHeuristic(start, goal);
-    start.f = start.g + start.h;
-    fringe.add(start);
+  // One reusable search engine per thread and mode; after warm-up a query
+  // allocates nothing beyond the returned path
+  private static final ThreadLocal<AStarEngine> ENGINE = ThreadLocal.withInitial(AStarEngine::new);
+  private static final ThreadLocal<JumpPointSearch> JPS = ThreadLocal.withInitial(() -> new JumpPointSearch(false));
+  private static final ThreadLocal<JumpPointSearch> JPS_PLUS = ThreadLocal.withInitial(() -> new JumpPointSearch(true));
+  private static final ThreadLocal<BidirectionalSearch> BIDIRECTIONAL = ThreadLocal.withInitial(BidirectionalSearch::new);
+  private static final ThreadLocal<AnytimeSearch> ANYTIME = ThreadLocal.withInitial(() -> new AnytimeSearch(1, Long.MAX_VALUE));
 
-    // Main A* search loop
-    while (!fringe.isEmpty()) {
-        // Get the node with the lowest f-cost from the fringe
-        Node current = fringe.poll();
+  public static List<Node> aStar(Grid grid, Node start, Node goal) {
+    return search(grid, start, goal).getPath();
+}
 
-        // Goal reached, reconstruct the path
-        if (current.equals(goal)) {
-            return reconstructPath(current);
-        }
+  // Same search as aStar, but also reports how much work the query took
+  public static SearchResult search(Grid grid, Node start, Node goal) {
+    return search(grid, start, goal, SearchMode.ASTAR);
+}
 
-        // Move current node to closed set
-        closedSet.add(current);
+  // Search with the given algorithm; every mode returns a path of the same cost
+  public static SearchResult search(Grid grid, Node start, Node goal, SearchMode mode) {
+    return search(grid, start, goal, engineFor(mode));
+}
 
-        // Explore neighbors
-        for (Node neighbor : getNeighbors(grid, current)) {
-            // Skip if already visited or an obstacle
-            if (closedSet.contains(neighbor) || grid.isObstacle(neighbor.x, neighbor.y)) {
-                continue;
-            }
+  // Search with a caller-owned engine, e.g. a HierarchicalPathfinder built for this grid.
+  // Every query is counted in SearchStats (unless disabled) and, while a flight
+  // recording asks for it, reported as a SearchEvent.
+  public static SearchResult search(Grid grid, Node start, Node goal, PathSearch engine) {
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    SearchStats stats = SearchStats.recording();
+    long startTime = stats == null ? 0 : System.nanoTime();
+    boolean rejected = rejects(grid, start.x, start.y, goal.x, goal.y);
+    SearchResult result;
+    if (rejected) {
+        result = new SearchResult(null, 0, 0, 0, 0, 0, 0);
+    } else {
+        boolean found = engine.search(grid, start.x, start.y, goal.x, goal.y);
+        double bound = engine instanceof AnytimeSearch ? ((AnytimeSearch) engine).getSuboptimalityBound() : 1;
+        result = toResult(grid, start, goal, engine, found, engine.getElapsedNanos(), bound);
+    }
+    report(event, stats, grid, start.x, start.y, goal.x, goal.y, engine, rejected, result.isFound(), startTime);
+    return result;
+}
 
-            // Calculate tentative g-cost through the current node
-            double tentativeG = current.g + calculateDistance(current, neighbor);
+  // Same search as search(grid, start, goal, mode), but the path comes back as packed
+  // cell indices (null if there is none) and no Node is created: 4 bytes per path
+  // cell instead of a Node each, for callers that store or send many long paths
+  public static CompactPath findPath(Grid grid, int startX, int startY, int goalX, int goalY, SearchMode mode) {
+    PathSearch engine = engineFor(mode);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    SearchStats stats = SearchStats.recording();
+    long startTime = stats == null ? 0 : System.nanoTime();
+    boolean rejected = rejects(grid, startX, startY, goalX, goalY);
+    boolean found = !rejected && engine.search(grid, startX, startY, goalX, goalY);
+    CompactPath path = found ? CompactPath.of(engine, grid.getWidth()) : null;
+    report(event, stats, grid, startX, startY, goalX, goalY, engine, rejected, found, startTime);
+    return path;
+}
 
-            // Check if the neighbor is in the fringe or has a lower g-cost than before
-            if (!fringe.contains(neighbor) || tentativeG < neighbor.g) {
-                neighbor.parent = current;
-                neighbor.g = tentativeG;
-                neighbor.h = calculateHeuristic(neighbor, goal);
-                neighbor.f = neighbor.g + neighbor.h;
+  // Goal blocked or walled off from the start; without the component check the
+  // search would exhaust the start's whole region to find out
+  private static boolean rejects(Grid grid, int startX, int startY, int goalX, int goalY) {
+    return grid.isObstacle(goalX, goalY) || !grid.canReach(startX, startY, goalX, goalY);
+}
 
-                // Add the neighbor to the fringe if it's not already there
-                if (!fringe.contains(neighbor)) {
-                    fringe.add(neighbor);
-                }
-            }
+  // Count a finished query in stats (null while SearchStats are disabled) and commit
+  // its event if it is recorded. The engine's counters describe the query unless it
+  // was rejected.
+  private static void report(SearchEvent event, SearchStats stats, Grid grid, int startX, int startY,
+                             int goalX, int goalY, PathSearch engine, boolean rejected, boolean found,
+                             long startTime) {
+    long elapsedNanos = stats == null ? 0 : System.nanoTime() - startTime;
+    event.end();
+    if (event.shouldCommit()) {
+        event.engine = engine.getClass().getSimpleName();
+        event.gridWidth = grid.getWidth();
+        event.gridHeight = grid.getHeight();
+        event.startX = startX;
+        event.startY = startY;
+        event.goalX = goalX;
+        event.goalY = goalY;
+        if (!rejected) {
+            event.nodesExpanded = engine.getNodesExpanded();
+            event.nodesPushed = engine.getNodesPushed();
+            event.peakOpenSize = engine.getPeakOpenSize();
+            event.reopens = engine.getReopens();
+        }
+        if (found) {
+            event.pathLength = engine.getPathLength();
+            event.pathCost = engine.getPathCost();
         }
+        event.outcome = rejected ? SearchEvent.REJECTED : found ? SearchEvent.FOUND : SearchEvent.NOT_FOUND;
+        event.commit();
     }
+    if (stats == null) {
+        return;
+    }
+    if (rejected) {
+        stats.record(true, false, 0, 0, elapsedNanos);
+    } else {
+        stats.record(false, found, engine.getNodesExpanded(), engine.getNodesPushed(), elapsedNanos);
+    }
+}
 
-    // No path found
-    return null; 
+  // Anytime search for callers with a latency budget: a weighted A* path (heuristic
+  // times epsilon) comes first and is improved towards the optimum until budgetNanos
+  // have passed. getSuboptimalityBound of the result says how far from optimal it
+  // may still be; the path is missing if time ran out before the first one.
+  public static SearchResult searchAnytime(Grid grid, Node start, Node goal, double epsilon, long budgetNanos) {
+    AnytimeSearch engine = ANYTIME.get();
+    engine.setInitialEpsilon(epsilon);
+    engine.setBudgetNanos(budgetNanos);
+    return search(grid, start, goal, engine);
 }
 
+  // Package the finished search of an engine, e.g. one driven step by step
+  static SearchResult toResult(Grid grid, Node start, Node goal, PathSearch engine, boolean found, long elapsedNanos) {
+    return toResult(grid, start, goal, engine, found, elapsedNanos, 1);
+}
 
-    // Get valid neighbors of a node
-    private static List<Node> getNeighbors(Grid grid, Node current) {
-        List<Node> neighbors = new ArrayList<>();
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                // Skip the current node itself
-                if (dx == 0 && dy == 0) {
-                    continue;
-                }
+  private static SearchResult toResult(Grid grid, Node start, Node goal, PathSearch engine, boolean found,
+                                       long elapsedNanos, double suboptimalityBound) {
+    start.parent = null;
+    start.g = 0;
+    start.h = grid.getMinCost() * heuristicOf(engine).distance(start.x, start.y, goal.x, goal.y);
+    start.f = start.g + start.h;
+    return new SearchResult(found ? toNodePath(engine, grid, start, goal) : null, engine.getPathCost(),
+            engine.getNodesExpanded(), engine.getNodesPushed(), engine.getPeakOpenSize(),
+            engine.getReopens(), elapsedNanos, suboptimalityBound);
+}
 
-                int newX = current.x + dx;
-                int newY = current.y + dy;
+  // Run many queries against one read-only grid on the common fork-join pool.
+  // Each query gets its own future, completed as soon as that search finishes.
+  public static List<CompletableFuture<SearchResult>> findPaths(Grid grid, List<Query> queries) {
+    return findPaths(grid, queries, ForkJoinPool.commonPool());
+}
 
-                if (isValid(grid, newX, newY)) {
-                    neighbors.add(new Node(newX, newY, current, 0, 0)); 
-                }
-            }
+  public static List<CompletableFuture<SearchResult>> findPaths(Grid grid, List<Query> queries, ForkJoinPool pool) {
+    List<CompletableFuture<SearchResult>> results = new ArrayList<>(queries.size());
+    for (int i = 0; i < queries.size(); i++) {
+        results.add(new CompletableFuture<>());
+    }
+    pool.execute(new BatchSearch(grid, queries, results, 0, queries.size()));
+    return results;
+}
+
+    private static PathSearch engineFor(SearchMode mode) {
+        switch (mode) {
+            case JPS:
+                return JPS.get();
+            case JPS_PLUS:
+                return JPS_PLUS.get();
+            case BIDIRECTIONAL:
+                return BIDIRECTIONAL.get();
+            default:
+                return ENGINE.get();
         }
-        return neighbors;
     }
 
-    // Check if a node is valid (within grid bounds and not an obstacle)
-    private static boolean isValid(Grid grid, int x, int y) {
-        return x >= 0 && x < grid.getWidth() && y >= 0 && y < grid.getHeight() && !grid.isObstacle(x, y);
+    // Estimate the engine searched with; engines other than AStarEngine use octile distance
+    private static Heuristic heuristicOf(PathSearch engine) {
+        return engine instanceof AStarEngine ? ((AStarEngine) engine).getHeuristic() : Heuristic.OCTILE;
+    }
+
+    // Convert the engine's cell path into linked Nodes with g, h and f filled in
+    private static List<Node> toNodePath(PathSearch engine, Grid grid, Node start, Node goal) {
+        int width = grid.getWidth();
+        double heuristicScale = grid.getMinCost();
+        Heuristic heuristic = heuristicOf(engine);
+        int length = engine.getPathLength();
+        List<Node> path = new ArrayList<>(length);
+        path.add(start);
+        Node previous = start;
+        for (int i = 1; i < length; i++) {
+            int cell = engine.getPathCell(i);
+            int x = cell % width;
+            int y = cell / width;
+            double g = previous.g + calculateDistance(previous.x, previous.y, x, y) * grid.getCost(x, y);
+            Node node = new Node(x, y, previous, g, heuristicScale * heuristic.distance(x, y, goal.x, goal.y));
+            path.add(node);
+            previous = node;
+        }
+        return path;
     }
 
     // Calculate distance between two nodes (1 for horizontal/vertical, √2 for diagonal)
     public static double calculateDistance(Node node1, Node node2) {
-        int dx = Math.abs(node1.x - node2.x);
-        int dy = Math.abs(node1.y - node2.y);
+        return calculateDistance(node1.x, node1.y, node2.x, node2.y);
+    }
+
+    private static double calculateDistance(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
         return (dx == 1 && dy == 1) ? Math.sqrt(2) : 1;
     }
     
@@ -129,9 +238,10 @@ public class AStar {
     public static List<Node> reconstructPath(Node current) {
         List<Node> path = new ArrayList<>();
         while (current != null) {
-            path.add(0, current); // Add nodes in reverse order to get path from start to goal
+            path.add(current); // Collect goal to start, then reverse once
             current = current.parent;
         }
+        Collections.reverse(path);
         return path;
     }
     
@@ -139,7 +249,7 @@ public class AStar {
     public static void main(String[] args) {
       // Create Grid with Obstacles
       Grid grid = new Grid(10, 10);
-      grid.generateRandomObstacles(25); // % obstacle density
+      MapGenerator.random(grid, 0.25, System.nanoTime()); // 25% obstacle density
 
       //  Define Start and Goal
       Node start = new Node(0, 0,null,0,0);
@@ -148,10 +258,12 @@ public class AStar {
       grid.setObstacle(goal.x, goal.y, false);   // Ensure goal isn't blocked
 
       //  Perform A* Search
-      List<Node> path = AStar.aStar(grid, start, goal);
+      SearchResult result = AStar.search(grid, start, goal);
+      List<Node> path = result.getPath();
 
       //  Visualize Results
       printGridWithPath(grid, path, start, goal);
+      System.out.println(result);
 
       //  Print F(n) Values & Unexpanded Nodes
       if (path != null) {
@@ -0,0 +1,332 @@
+import java.util.Arrays;
+
+// Reusable A* search over a Grid that keeps all per-cell state in flat arrays
+// indexed by y * width + x. Arrays are only reallocated when a bigger grid is
+// searched, and a generation counter marks which entries belong to the current
+// query, so after warm-up a search allocates nothing.
+// On a TerrainGrid a step costs its length times the cost of the cell entered.
+// The neighborhood and heuristic are fixed per engine, so the JIT sees a single
+// configuration in the inner loop and the default one (eight neighbors, octile
+// heuristic) runs as fast as a hard-coded loop.
+// An engine is not thread-safe; use one engine per thread.
+public class AStarEngine implements PathSearch {
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final double OCTILE_DIAGONAL = SQRT2 - 2;
+    // Routes whose g differs by less than this are the same route summed in another order
+    static final double COST_EPSILON = 1e-9;
+
+    // Neighbor offsets, in the same order as Grid.getNeighbors visits them
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DX4 = {-1, 0, 0, 1};
+    private static final int[] DY4 = {0, -1, 1, 0};
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+
+    // Results of step
+    public static final int RUNNING = 0;
+    public static final int FOUND = 1;
+    public static final int NOT_FOUND = 2;
+
+    private final Neighborhood neighborhood;
+    private final Heuristic heuristic;
+    private final int[] dx;              // Offsets of the allowed moves
+    private final int[] dy;
+    private final boolean cutsCorners;   // Diagonal moves may pass blocked corners
+
+    private Grid grid;
+    private int width;
+    private int height;
+    private float[] costs;           // Cell costs of a TerrainGrid, null when every step costs its length
+    private double heuristicScale;   // Smallest cell cost; keeps the heuristic admissible
+
+    private double[] g = new double[0];     // Cost from the start node to each cell
+    private int[] parent = new int[0];       // Parent cell on the best known route, -1 for the start
+    private int[] stamp = new int[0];        // Generation in which the cell was last touched
+    private byte[] state = new byte[0];      // OPEN or CLOSED, valid while stamp matches
+    private int generation;
+    private final IndexedMinHeap open = new IndexedMinHeap(0);
+
+    private int[] path = new int[16];        // Cells of the last path, start first
+    private int pathLength;
+    private int goalCell = -1;
+    private int queryGoalX;                  // Goal of the last query, found or not
+    private int queryGoalY;
+    private int status = NOT_FOUND;          // Progress of the current search
+
+    // Counters of the last search
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private int reopens;
+    private long elapsedNanos;
+
+    public AStarEngine() {
+        this(Neighborhood.EIGHT, Heuristic.OCTILE);
+    }
+
+    public AStarEngine(Neighborhood neighborhood, Heuristic heuristic) {
+        this.neighborhood = neighborhood;
+        this.heuristic = heuristic;
+        this.dx = neighborhood == Neighborhood.FOUR ? DX4 : DX;
+        this.dy = neighborhood == Neighborhood.FOUR ? DY4 : DY;
+        this.cutsCorners = neighborhood != Neighborhood.EIGHT_NO_CORNER_CUTTING;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        long startTime = System.nanoTime();
+        begin(grid, startX, startY, goalX, goalY);
+        boolean found = step(Integer.MAX_VALUE, null) == FOUND;
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    // Set up a search that step then advances a few expansions at a time, e.g. to
+    // animate it. search is begin followed by one unbounded step.
+    public void begin(Grid grid, int startX, int startY, int goalX, int goalY) {
+        bind(grid);
+        pathLength = 0;
+        goalCell = -1;
+        queryGoalX = goalX;
+        queryGoalY = goalY;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = 0;
+        reopens = 0;
+        elapsedNanos = 0;
+        if (!inBounds(goalX, goalY) || !inBounds(startX, startY) || grid.isObstacle(goalX, goalY)) {
+            status = NOT_FOUND;
+            return;
+        }
+
+        int start = startY * width + startX;
+        touch(start);
+        g[start] = 0;
+        parent[start] = -1;
+        state[start] = OPEN;
+        double startH = heuristicScale * heuristic.distance(startX, startY, goalX, goalY);
+        open.push(start, startH, startH);
+        nodesPushed = 1;
+        peakOpenSize = 1;
+        status = RUNNING;
+    }
+
+    // Expand at most maxExpansions cells of the search set up by begin and return
+    // RUNNING, FOUND or NOT_FOUND. The observer, if not null, hears about every
+    // cell pushed into the fringe, given a cheaper g in it, or expanded from it.
+    public int step(int maxExpansions, SearchObserver observer) {
+        if (status != RUNNING) {
+            return status;
+        }
+        int goalX = queryGoalX;
+        int goalY = queryGoalY;
+        int goal = goalY * width + goalX;
+        int[] dx = this.dx;
+        int[] dy = this.dy;
+        boolean cutsCorners = this.cutsCorners;
+        int budget = maxExpansions;
+        while (!open.isEmpty()) {
+            if (budget-- == 0) {
+                return RUNNING;
+            }
+            int current = open.poll();
+            if (current == goal) {
+                goalCell = goal;
+                storePath(goal);
+                status = FOUND;
+                return status;
+            }
+            state[current] = CLOSED;
+            nodesExpanded++;
+            if (observer != null) {
+                observer.cellClosed(current);
+            }
+
+            int cx = current % width;
+            int cy = current / width;
+            double currentG = g[current];
+            if (cutsCorners && dx == DX) {
+                // Default moves: a loop over the constant offsets, as fast as a hard-coded one
+                for (int i = 0; i < 8; i++) {
+                    int nx = cx + DX[i];
+                    int ny = cy + DY[i];
+                    if (nx >= 0 && nx < width && ny >= 0 && ny < height && !grid.isObstacle(nx, ny)) {
+                        relax(current, currentG, nx, ny, (DX[i] != 0 && DY[i] != 0) ? SQRT2 : 1, observer);
+                    }
+                }
+                continue;
+            }
+            for (int i = 0; i < dx.length; i++) {
+                int nx = cx + dx[i];
+                int ny = cy + dy[i];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || grid.isObstacle(nx, ny)) {
+                    continue;
+                }
+                boolean diagonal = dx[i] != 0 && dy[i] != 0;
+                if (diagonal && !cutsCorners && (grid.isObstacle(nx, cy) || grid.isObstacle(cx, ny))) {
+                    continue;
+                }
+                relax(current, currentG, nx, ny, diagonal ? SQRT2 : 1, observer);
+            }
+        }
+        status = NOT_FOUND;
+        return status;
+    }
+
+    // Offer the free cell (nx, ny) a route through current, a step of the given length away
+    private void relax(int current, double currentG, int nx, int ny, double stepLength, SearchObserver observer) {
+        int neighbor = ny * width + nx;
+        double stepCost = costs != null ? stepLength * costs[neighbor] : stepLength;
+        double tentativeG = currentG + stepCost;
+        boolean fresh = stamp[neighbor] != generation;
+        if (!fresh && tentativeG >= g[neighbor] - COST_EPSILON) {
+            return;
+        }
+        double h = heuristicScale * heuristic.distance(nx, ny, queryGoalX, queryGoalY);
+        g[neighbor] = tentativeG;
+        parent[neighbor] = current;
+        if (!fresh && state[neighbor] == OPEN) {
+            // Cheaper route to a node already in the fringe
+            open.decreaseKey(neighbor, tentativeG + h, h);
+            if (observer != null) {
+                observer.cellOpened(neighbor);
+            }
+            return;
+        }
+        if (fresh) {
+            touch(neighbor);
+        } else {
+            // Cheaper route to an expanded node; only possible with an inconsistent heuristic
+            reopens++;
+        }
+        state[neighbor] = OPEN;
+        open.push(neighbor, tentativeG + h, h);
+        nodesPushed++;
+        if (open.size() > peakOpenSize) {
+            peakOpenSize = open.size();
+        }
+        if (observer != null) {
+            observer.cellOpened(neighbor);
+        }
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return goalCell < 0 ? 0 : g[goalCell];
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return reopens;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Cost from the start to a cell of the last path
+    public double getG(int cell) {
+        return g[cell];
+    }
+
+    // g, h and f of every cell for the last search; g is infinite where it never got
+    public CostField getCostField() {
+        int cells = Math.multiplyExact(width, height); // bind has checked that it fits
+        double[] gField = new double[cells];
+        double[] hField = new double[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            gField[cell] = stamp[cell] == generation ? g[cell] : Double.POSITIVE_INFINITY;
+            hField[cell] = heuristicScale * heuristic.distance(cell % width, cell / width, queryGoalX, queryGoalY);
+        }
+        return new CostField(width, height, gField, hField);
+    }
+
+    // Octile distance heuristic, same formula as AStar.calculateHeuristic; the
+    // estimate of the default engine and of the engines that assume eight neighbors
+    public static double heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(goalX - x);
+        int dy = Math.abs(goalY - y);
+        return (dx + dy) + OCTILE_DIAGONAL * Math.min(dx, dy);
+    }
+
+    private void bind(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        costs = grid instanceof TerrainGrid && !grid.hasUniformCosts() ? ((TerrainGrid) grid).costArray() : null;
+        heuristicScale = grid.getMinCost();
+        int cells = grid.cellCount("AStarEngine");
+        if (g.length < cells) {
+            g = new double[cells];
+            parent = new int[cells];
+            stamp = new int[cells];
+            state = new byte[cells];
+            generation = 0;
+        }
+        open.ensureCapacity(cells);
+        if (++generation == 0) {
+            // Counter wrapped; forget every stamp so no stale cell looks current
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    private void touch(int cell) {
+        stamp[cell] = generation;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private void storePath(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length << 1)];
+        }
+        int i = length;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            path[--i] = cell;
+        }
+        pathLength = length;
+    }
+}
@@ -2,24 +2,68 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.List;
 
-public class AStarGUI extends JFrame {
+// Cells are kept in an off-screen image with one pixel per cell, recolored only
+// where something changed (a search frame, or a cell clicked). A repaint just scales
+// the visible part of that image onto the panel, so large grids scroll and zoom
+// smoothly. The search runs on a worker thread (SearchAnimation) and its frontier
+// is drawn as it grows; costs shown per cell come from the CostField of the search.
+//
+//   java AStarGUI [columns rows]
+//
+// Click a cell to toggle an obstacle; Ctrl + mouse wheel or +/- zooms.
+public class AStarGUI extends JFrame implements GridListener {
 
-    private static final int GRID_SIZE = 10; // Size of the grid
-    private static final int CELL_SIZE = 50; // Size of each cell in pixels
-    private static final int PADDING = 10; // Padding around the grid
+    private static final int DEFAULT_GRID_SIZE = 10; // Size of the grid when none is given
+    private static final int MAX_CELL_SIZE = 50; // Largest size of each cell in pixels
+    private static final int VIEW_SIZE = 800; // Initial zoom fits the grid in about this many pixels
+    private static final int GRID_LINE_ZOOM = 6; // Cell borders are drawn from this cell size on
+    private static final int TEXT_ZOOM = 30; // f(n) values are drawn from this cell size on
+    private static final int MAX_LISTED_NODES = 50; // Path nodes listed in the info panel
     private static final Color COLOR_EMPTY = Color.WHITE;
     private static final Color COLOR_START = Color.GREEN; // Start node color
     private static final Color COLOR_GOAL = Color.RED; // Goal node color
     private static final Color COLOR_PATH = Color.GREEN;
     private static final Color COLOR_OBSTACLE = Color.BLACK;
+    // Cells the search reached, shaded from low f (light) to high f (dark)
+    private static final Color COLOR_HEAT_LOW = new Color(255, 245, 200);
+    private static final Color COLOR_HEAT_HIGH = new Color(245, 150, 60);
+    private static final int[] HEAT = heatPalette(256);
+    private static final Color COLOR_OPENED = new Color(180, 220, 255); // Frontier of a running search
+    private static final Color COLOR_CLOSED = new Color(220, 220, 220); // Cells it has expanded
+    private static final int FRAME_MILLIS = 16; // Search frames are drawn at about 60 fps
+    private static final int FRAME_PAUSE_MILLIS = 15; // Worker pause after each batch of expansions
+    private static final byte OPENED = 1;
+    private static final byte CLOSED = 2;
+
+    private final int columns;
+    private final int rows;
+    private int cellSize;
 
     private Grid grid;
     private List<Node> path;
+    private boolean[] onPath; // Indexed by y * columns + x
+    private CostField costs;
+    private double maxF;
     private double totalPathCost;
     private Node start;
     private Node goal;
+    private SearchAnimation animation; // Search running on a worker thread, null when none is
+    private final Timer frameTimer = new Timer(FRAME_MILLIS, e -> consumeFrames());
+    private byte[] searchState;        // OPENED or CLOSED per cell while a search is animated
+    private int[] touched = new int[64]; // Cells the animated search has opened
+    private int touchedCount;
+
+    private BufferedImage image; // One pixel per cell
+    private int[] pixels;        // Backing array of image
 
     private JPanel gridPanel;
     private JPanel infoPanel;
@@ -28,8 +72,13 @@ public class AStarGUI extends JFrame {
     private JLabel totalFnLabel;
 
     private JButton startButton;
+    private JButton restartButton;
+    private JButton cancelButton;
 
-    public AStarGUI() {
+    public AStarGUI(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.cellSize = Math.max(1, Math.min(MAX_CELL_SIZE, VIEW_SIZE / Math.max(columns, rows)));
         setTitle("A* Pathfinding Visualization");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
@@ -41,8 +90,47 @@ public class AStarGUI extends JFrame {
                 drawGrid(g);
             }
         };
-        gridPanel.setPreferredSize(new Dimension(GRID_SIZE * CELL_SIZE, GRID_SIZE * CELL_SIZE));
-        add(gridPanel, BorderLayout.CENTER);
+        gridPanel.setPreferredSize(new Dimension(columns * cellSize, rows * cellSize));
+        gridPanel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int x = e.getX() / cellSize;
+                int y = e.getY() / cellSize;
+                if (grid != null && x < columns && y < rows) {
+                    cancelSearch(); // The grid must not change under a running search
+                    grid.toggleObstacle(x, y);
+                }
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(gridPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        gridPanel.addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                zoom(e.getWheelRotation() < 0 ? 1 : -1, e);
+            } else {
+                // Plain wheel events still scroll
+                scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(gridPanel, e, scrollPane));
+            }
+        });
+        add(scrollPane, BorderLayout.CENTER);
+
+        InputMap keys = gridPanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_PLUS, 0), "zoomIn");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, 0), "zoomIn");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, 0), "zoomOut");
+        gridPanel.getActionMap().put("zoomIn", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(1, null);
+            }
+        });
+        gridPanel.getActionMap().put("zoomOut", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(-1, null);
+            }
+        });
 
         infoPanel = new JPanel(new GridLayout(3, 1));
         pathLengthLabel = new JLabel("Path Length: ");
@@ -59,11 +147,32 @@ public class AStarGUI extends JFrame {
             public void actionPerformed(ActionEvent e) {
                 resetGrid();
                 startAStar();
-                updateInfoPanel();
-                repaint();
             }
         });
-        add(startButton, BorderLayout.NORTH);
+        restartButton = new JButton("Restart");
+        restartButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (grid != null) {
+                    startAStar(); // Same grid, search again from scratch
+                }
+            }
+        });
+        cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancelSearch();
+            }
+        });
+        JPanel buttonPanel = new JPanel(new GridLayout(1, 3));
+        buttonPanel.add(startButton);
+        buttonPanel.add(restartButton);
+        buttonPanel.add(cancelButton);
+        add(buttonPanel, BorderLayout.NORTH);
+
+        image = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
         pack();
         setLocationRelativeTo(null);
@@ -71,68 +180,231 @@ public class AStarGUI extends JFrame {
     }
 
     private void resetGrid() {
-        grid = new Grid(GRID_SIZE, GRID_SIZE);
-        grid.generateRandomObstacles(25); // % obstacle density
+        cancelSearch();
+        if (grid != null) {
+            grid.removeListener(this);
+        }
+        grid = new Grid(columns, rows);
+        MapGenerator.random(grid, 0.25, System.nanoTime()); // 25% obstacle density
 
         start = new Node(0, 0, null, 0, 0);
-        goal = new Node(GRID_SIZE - 1, GRID_SIZE - 1, null, 0, 0);
+        goal = new Node(columns - 1, rows - 1, null, 0, 0);
         grid.setObstacle(start.x, start.y, false);
         grid.setObstacle(goal.x, goal.y, false);
+        grid.addListener(this);
     }
 
+    // Start an animated search on the worker thread; frames arrive through consumeFrames
     private void startAStar() {
-        path = AStar.aStar(grid, start, goal);
-        totalPathCost = path != null ? AStar.calculateDistance(path.get(path.size() -1)) : 0;
+        cancelSearch();
+        path = null;
+        onPath = null;
+        costs = null;
+        totalPathCost = 0;
+        searchState = new byte[columns * rows];
+        touchedCount = 0;
+        renderAll();
+        gridPanel.repaint();
+        int expansionsPerFrame = Math.max(1, columns * rows / 1000); // A full search takes a few seconds
+        animation = new SearchAnimation(grid, start, goal, expansionsPerFrame, FRAME_PAUSE_MILLIS);
+        animation.start();
+        frameTimer.start();
     }
 
-    private void drawGrid(Graphics g) {
-        // Draw the grid
-        for (int y = 0; y < GRID_SIZE; y++) {
-            for (int x = 0; x < GRID_SIZE; x++) {
-                int xPos = x * CELL_SIZE;
-                int yPos = y * CELL_SIZE;
-
-                // Determine color for each cell
-                if (grid.isObstacle(x, y)) {
-                    g.setColor(COLOR_OBSTACLE);
-                } else if (path != null && pathContainsNode(x, y)) {
-                    g.setColor(COLOR_PATH);
-                } else if (x == start.x && y == start.y) {
-                    g.setColor(COLOR_START); // Start node color
-                } else if (x == goal.x && y == goal.y) {
-                    g.setColor(COLOR_GOAL); // Goal node color
-                } else {
-                    g.setColor(COLOR_EMPTY); // Default empty cell color
+    private void cancelSearch() {
+        if (animation != null) {
+            animation.cancel();
+            animation = null;
+        }
+        frameTimer.stop();
+    }
+
+    // Draw the frames published since the last tick; only their cells are recolored
+    private void consumeFrames() {
+        if (animation == null) {
+            return;
+        }
+        Rectangle dirty = null;
+        SearchAnimation.Frame frame;
+        while ((frame = animation.poll()) != null) {
+            for (int cell : frame.opened) {
+                if (searchState[cell] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount << 1);
+                    }
+                    touched[touchedCount++] = cell;
                 }
+                searchState[cell] = OPENED;
+                dirty = renderChanged(cell, dirty);
+            }
+            for (int cell : frame.closed) {
+                searchState[cell] = CLOSED;
+                dirty = renderChanged(cell, dirty);
+            }
+            if (frame.finished) {
+                finishSearch(frame);
+                return;
+            }
+        }
+        if (dirty != null) {
+            gridPanel.repaint(dirty.x * cellSize, dirty.y * cellSize, dirty.width * cellSize, dirty.height * cellSize);
+        }
+    }
+
+    // The search is done: shade what it reached by f and draw the path
+    private void finishSearch(SearchAnimation.Frame frame) {
+        animation = null;
+        frameTimer.stop();
+        path = frame.result.getPath();
+        costs = frame.costs;
+        maxF = costs.getMaxF();
+        onPath = new boolean[columns * rows];
+        if (path != null) {
+            for (Node node : path) {
+                onPath[node.y * columns + node.x] = true;
+            }
+        }
+        totalPathCost = path != null ? path.get(path.size() - 1).g : 0;
+        for (int i = 0; i < touchedCount; i++) {
+            renderCell(touched[i] % columns, touched[i] / columns);
+        }
+        renderCell(start.x, start.y);
+        updateInfoPanel();
+        gridPanel.repaint();
+    }
+
+    private Rectangle renderChanged(int cell, Rectangle dirty) {
+        int x = cell % columns;
+        int y = cell / columns;
+        renderCell(x, y);
+        if (dirty == null) {
+            return new Rectangle(x, y, 1, 1);
+        }
+        dirty.add(new Rectangle(x, y, 1, 1));
+        return dirty;
+    }
+
+    // A toggled cell only needs its own pixel recolored
+    @Override
+    public void cellChanged(int x, int y) {
+        renderCell(x, y);
+        gridPanel.repaint(x * cellSize, y * cellSize, cellSize, cellSize);
+    }
+
+    @Override
+    public void gridReset() {
+        renderAll();
+        gridPanel.repaint();
+    }
+
+    private void renderAll() {
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                renderCell(x, y);
+            }
+        }
+    }
+
+    private void renderCell(int x, int y) {
+        int cell = y * columns + x;
+        Color color;
+        if (grid.isObstacle(x, y)) {
+            color = COLOR_OBSTACLE;
+        } else if (onPath != null && onPath[cell]) {
+            color = COLOR_PATH;
+        } else if (x == start.x && y == start.y) {
+            color = COLOR_START; // Start node color
+        } else if (x == goal.x && y == goal.y) {
+            color = COLOR_GOAL; // Goal node color
+        } else if (costs != null && costs.isReached(x, y)) {
+            int shade = maxF > 0 ? (int) (costs.getF(x, y) / maxF * (HEAT.length - 1)) : 0;
+            pixels[cell] = HEAT[Math.min(HEAT.length - 1, shade)];
+            return;
+        } else if (searchState != null && searchState[cell] == CLOSED) {
+            color = COLOR_CLOSED;
+        } else if (searchState != null && searchState[cell] == OPENED) {
+            color = COLOR_OPENED;
+        } else {
+            color = COLOR_EMPTY; // Default empty cell color
+        }
+        pixels[cell] = color.getRGB();
+    }
+
+    private void drawGrid(Graphics g) {
+        if (grid == null) {
+            return;
+        }
+        // Only the cells inside the clip need drawing
+        Rectangle clip = g.getClipBounds();
+        int x0 = Math.max(0, clip.x / cellSize);
+        int y0 = Math.max(0, clip.y / cellSize);
+        int x1 = Math.min(columns, (clip.x + clip.width) / cellSize + 1);
+        int y1 = Math.min(rows, (clip.y + clip.height) / cellSize + 1);
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        g.drawImage(image, x0 * cellSize, y0 * cellSize, x1 * cellSize, y1 * cellSize, x0, y0, x1, y1, null);
 
-                // Fill cell with color
-                g.fillRect(xPos, yPos, CELL_SIZE, CELL_SIZE);
-                g.setColor(Color.BLACK);
-                g.drawRect(xPos, yPos, CELL_SIZE, CELL_SIZE);
+        if (cellSize >= GRID_LINE_ZOOM) {
+            g.setColor(Color.BLACK);
+            for (int x = x0; x <= x1; x++) {
+                g.drawLine(x * cellSize, y0 * cellSize, x * cellSize, y1 * cellSize);
+            }
+            for (int y = y0; y <= y1; y++) {
+                g.drawLine(x0 * cellSize, y * cellSize, x1 * cellSize, y * cellSize);
+            }
+        }
 
-                // Draw f(n) value for each cell
-                Node current = new Node(x, y, null, 0, 0);
-                double fn = AStar.calculateFCost(current, goal);
-                String fnValue = String.format("%.1f", fn);
-                g.setColor(Color.BLACK);
-                g.drawString(fnValue, xPos + 5, yPos + 15);
+        // Draw f(n) value for each cell the search reached
+        if (cellSize >= TEXT_ZOOM && costs != null) {
+            g.setColor(Color.BLACK);
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    if (costs.isReached(x, y) && !grid.isObstacle(x, y)) {
+                        g.drawString(String.format("%.1f", costs.getF(x, y)), x * cellSize + 5, y * cellSize + 15);
+                    }
+                }
             }
         }
     }
 
+    // Change the cell size by one step, keeping the cell under the mouse in place
+    private void zoom(int direction, MouseWheelEvent event) {
+        int newSize = direction > 0 ? cellSize + Math.max(1, cellSize / 4) : cellSize - Math.max(1, cellSize / 5);
+        newSize = Math.max(1, Math.min(MAX_CELL_SIZE * 4, newSize));
+        if (newSize == cellSize) {
+            return;
+        }
+        JViewport viewport = (JViewport) gridPanel.getParent();
+        Point view = viewport.getViewPosition();
+        Point anchor = event != null
+                ? SwingUtilities.convertPoint(event.getComponent(), event.getPoint(), viewport)
+                : new Point(viewport.getWidth() / 2, viewport.getHeight() / 2);
+        double scale = (double) newSize / cellSize;
+        cellSize = newSize;
+        gridPanel.setPreferredSize(new Dimension(columns * cellSize, rows * cellSize));
+        gridPanel.revalidate();
+        viewport.setViewPosition(new Point(
+                Math.max(0, (int) ((view.x + anchor.x) * scale) - anchor.x),
+                Math.max(0, (int) ((view.y + anchor.y) * scale) - anchor.y)));
+        gridPanel.repaint();
+    }
+
     private void updateInfoPanel() {
         // Update path length label
         pathLengthLabel.setText("Path Length: " + (path != null ? path.size() - 1 : 0)); // Exclude start node
 
-        // Update f(n) values label
+        // Update f(n) values label; path nodes already carry g and h from the search
         StringBuilder sb = new StringBuilder("f(n) values: ");
         if (path != null) {
+            int listed = 0;
             for (Node node : path) {
                 if (!(node.x == start.x && node.y == start.y) ) {
-                  double a = AStar.calculateDistance(node);
-                  double b = AStar.calculateHeuristic(node, goal);
-                    double fn = AStar.calculateFCost(node, goal);
-                                    sb.append("(").append(node.x).append(",").append(node.y).append("): ").append("=(").append(String.format("%.1f",a)).append("+").append(String.format("%.1f",b)).append(")= ").append(String.format("%.1f ", fn)).append(", ");
+                    if (listed++ == MAX_LISTED_NODES) {
+                        sb.append("...");
+                        break;
+                    }
+                    sb.append("(").append(node.x).append(",").append(node.y).append("): ").append("=(").append(String.format("%.1f", node.g)).append("+").append(String.format("%.1f", node.h)).append(")= ").append(String.format("%.1f ", node.f)).append(", ");
                 }
             }
         }
@@ -142,21 +414,25 @@ public class AStarGUI extends JFrame {
         totalFnLabel.setText("Path cost : " + String.format("%.1f", totalPathCost));
     }
 
-    private boolean pathContainsNode(int x, int y) {
-        if (path == null) return false;
-        for (Node node : path) {
-            if (node.x == x && node.y == y) {
-                return true;
-            }
+    private static int[] heatPalette(int size) {
+        int[] palette = new int[size];
+        for (int i = 0; i < size; i++) {
+            double t = (double) i / (size - 1);
+            int r = (int) (COLOR_HEAT_LOW.getRed() + t * (COLOR_HEAT_HIGH.getRed() - COLOR_HEAT_LOW.getRed()));
+            int g = (int) (COLOR_HEAT_LOW.getGreen() + t * (COLOR_HEAT_HIGH.getGreen() - COLOR_HEAT_LOW.getGreen()));
+            int b = (int) (COLOR_HEAT_LOW.getBlue() + t * (COLOR_HEAT_HIGH.getBlue() - COLOR_HEAT_LOW.getBlue()));
+            palette[i] = (r << 16) | (g << 8) | b;
         }
-        return false;
+        return palette;
     }
 
     public static void main(String[] args) {
+        int columns = args.length >= 2 ? Integer.parseInt(args[0]) : DEFAULT_GRID_SIZE;
+        int rows = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_GRID_SIZE;
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                new AStarGUI();
+                new AStarGUI(columns, rows);
             }
         });
     }
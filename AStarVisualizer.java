@@ -4,9 +4,17 @@ import java.util.*;
 public class AStarVisualizer extends PApplet {
 
     private static final int CELL_SIZE = 30; // Size of each grid cell
+    private static final int EXPANSIONS_PER_FRAME = 2; // Search speed of the animation
+    private static final long FRAME_PAUSE_MILLIS = 16;
     private Grid grid;
     private Node startNode, goalNode;
     private List<Node> path;
+    private IncrementalPlanner planner; // Keeps its search between edits, so replans only repair the changed part
+    private SearchAnimation animation;   // Search running in the background, null when none is
+    private byte[] searchState;          // OPENED or CLOSED per cell, as far as the animation got
+    private boolean fullRedraw = true;   // Set when more than the animated cells changed
+    private static final byte OPENED = 1;
+    private static final byte CLOSED = 2;
     private boolean showPathFinding = false; // Flag to control when to run A*
     private enum Mode { START, GOAL, OBSTACLE }
     private Mode currentMode = Mode.START;
@@ -19,13 +27,25 @@ public class AStarVisualizer extends PApplet {
         int rows = height / CELL_SIZE;
         int cols = width / CELL_SIZE;
         grid = new Grid(cols, rows);
-        grid.generateRandomObstacles(40); // Add some random obstacles
+        MapGenerator.random(grid, 0.40, System.nanoTime()); // Add some random obstacles
+        if (planner != null) {
+            planner.detach();
+        }
+        planner = new IncrementalPlanner(grid);
+        cancelSearch();
         // Set the start and goal nodes to null initially
         startNode = null;
         goalNode = null;
     }
 
     public void draw() {
+        if (animation != null) {
+            consumeFrames();
+        }
+        if (!fullRedraw) {
+            return; // Only the cells a search frame touched changed, and those are drawn
+        }
+        fullRedraw = false;
         background(255); // White background
 
         // Draw grid
@@ -37,16 +57,58 @@ public class AStarVisualizer extends PApplet {
             line(0, y * CELL_SIZE, width, y * CELL_SIZE);
         }
 
-        // Draw obstacles
-        fill(0); // Black for obstacles
+        // Draw obstacles and the cells the search has touched
         for (int x = 0; x < grid.getWidth(); x++) {
             for (int y = 0; y < grid.getHeight(); y++) {
-                if (grid.isObstacle(x, y)) {
-                    rect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                if (grid.isObstacle(x, y) || searchState[y * grid.getWidth() + x] != 0) {
+                    drawCell(x, y);
                 }
             }
         }
+        drawEndpoints();
+        drawPath();
+    }
+
+    // Apply the search frames published since the last draw, touching only their cells
+    private void consumeFrames() {
+        SearchAnimation.Frame frame;
+        while ((frame = animation.poll()) != null) {
+            for (int cell : frame.opened) {
+                searchState[cell] = OPENED;
+                drawCell(cell % grid.getWidth(), cell / grid.getWidth());
+            }
+            for (int cell : frame.closed) {
+                searchState[cell] = CLOSED;
+                drawCell(cell % grid.getWidth(), cell / grid.getWidth());
+            }
+            if (frame.finished) {
+                path = frame.result.getPath();
+                animation = null;
+                drawEndpoints();
+                drawPath();
+                return;
+            }
+        }
+        drawEndpoints();
+    }
 
+    private void drawCell(int x, int y) {
+        stroke(150);
+        strokeWeight(1);
+        byte state = searchState[y * grid.getWidth() + x];
+        if (grid.isObstacle(x, y)) {
+            fill(0); // Black for obstacles
+        } else if (state == CLOSED) {
+            fill(220, 220, 220); // Light gray for expanded cells
+        } else if (state == OPENED) {
+            fill(180, 220, 255); // Light blue for the frontier
+        } else {
+            fill(255);
+        }
+        rect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+    }
+
+    private void drawEndpoints() {
         // Draw start and goal
         if (startNode != null) {
             fill(0, 0, 255); // Blue for start
@@ -56,7 +118,9 @@ public class AStarVisualizer extends PApplet {
             fill(255, 0, 0); // Red for goal
             ellipse(goalNode.x * CELL_SIZE + CELL_SIZE / 2, goalNode.y * CELL_SIZE + CELL_SIZE / 2, CELL_SIZE, CELL_SIZE);
         }
+    }
 
+    private void drawPath() {
         // Draw path
         if (showPathFinding && path != null) {
             stroke(0, 255, 0); // Green for path
@@ -67,12 +131,21 @@ public class AStarVisualizer extends PApplet {
                 line(n.x * CELL_SIZE + CELL_SIZE / 2, n.y * CELL_SIZE + CELL_SIZE / 2,
                      next.x * CELL_SIZE + CELL_SIZE / 2, next.y * CELL_SIZE + CELL_SIZE / 2);
             }
+            strokeWeight(1);
         }
     }
 
     public void mousePressed() {
         int x = mouseX / CELL_SIZE;
         int y = mouseY / CELL_SIZE;
+        if (x >= grid.getWidth() || y >= grid.getHeight()) {
+            return; // The strip of the window past the last whole cell
+        }
+        if (animation != null) {
+            // The grid must not change under a running search
+            showPathFinding = false;
+        }
+        cancelSearch(); // An edit makes the explored cells out of date
 
         if (currentMode == Mode.START && startNode == null) {
             startNode = new Node(x, y);
@@ -84,6 +157,11 @@ public class AStarVisualizer extends PApplet {
             currentMode = Mode.OBSTACLE;
         } else if (currentMode == Mode.OBSTACLE) {
             grid.toggleObstacle(x, y);
+            if (showPathFinding) {
+                path = findPath(); // Repair the shown path around the edit
+                redraw();
+                return;
+            }
         }
 
         showPathFinding = false; // Clear the path if the grid changes
@@ -93,8 +171,15 @@ public class AStarVisualizer extends PApplet {
 
     public void keyPressed() {
         if (key == ' ' && startNode != null && goalNode != null) {
+            // Animate a fresh search; pressing space again restarts it
+            cancelSearch();
             showPathFinding = true;
-            path = AStar.aStar(grid, startNode, goalNode); 
+            animation = new SearchAnimation(grid, startNode, goalNode, EXPANSIONS_PER_FRAME, FRAME_PAUSE_MILLIS);
+            animation.start();
+            redraw();
+        } else if (key == 'x' || key == 'X') {
+            cancelSearch();
+            showPathFinding = false;
             redraw();
         } else if (key == 'c' || key == 'C') {
             setup();
@@ -103,6 +188,22 @@ public class AStarVisualizer extends PApplet {
             redraw();
         }
     }
+
+    // Stop any running search and forget what it had explored
+    private void cancelSearch() {
+        if (animation != null) {
+            animation.cancel();
+            animation = null;
+        }
+        searchState = new byte[grid.getWidth() * grid.getHeight()];
+        path = null;
+        fullRedraw = true;
+    }
+
+    private List<Node> findPath() {
+        return AStar.search(grid, startNode, goalNode, planner).getPath();
+    }
+
     public static void main(String[] args) {
         PApplet.main("AStarVisualizer");
     }
@@ -0,0 +1,363 @@
+import java.util.Arrays;
+
+// Anytime Repairing A* (ARA*) with a time budget. The first pass is weighted A*
+// (f = g + epsilon * h), which finds a path after far fewer expansions than plain
+// A*; its cost is at most epsilon times the optimum. Each further pass lowers
+// epsilon and repairs the previous search instead of starting over: cells whose g
+// improved after they were expanded are collected and re-queued for the next pass.
+// The search stops when a pass with epsilon 1 proves the path optimal or when the
+// budget runs out, and keeps the best path of the passes that completed.
+//
+// getSuboptimalityBound tells how far from optimal that path can be: the path
+// costs at most bound * optimum. The bound is infinite when time ran out before
+// the first path was found. Moves and costs match AStarEngine, including the cell
+// costs of a TerrainGrid.
+// An engine is not thread-safe; use one engine per thread.
+public class AnytimeSearch implements PathSearch {
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final double EPSILON_STEP = 0.5; // Epsilon decrease between passes
+    private static final int CLOCK_INTERVAL = 64;   // Expansions between deadline checks
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;   // Expanded in the current pass
+    private static final byte INCONS = 3;   // Expanded in the current pass, g improved since
+
+    private double initialEpsilon;
+    private long budgetNanos;
+
+    private Grid grid;
+    private int width;
+    private int height;
+    private float[] costs;           // Cell costs of a TerrainGrid, null when every step costs its length
+    private double heuristicScale;   // Smallest cell cost; keeps the heuristic admissible
+    private int goalX;
+    private int goalY;
+
+    private double[] g = new double[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] state = new byte[0];
+    private int generation;
+    private final IndexedMinHeap open = new IndexedMinHeap(0);
+    private int[] closedCells = new int[0];  // Cells expanded in the current pass
+    private int closedCount;
+    private int[] inconsistent = new int[0]; // Cells marked INCONS in the current pass
+    private int inconsistentCount;
+
+    private int[] path = new int[16];
+    private int pathLength;
+    private double pathCost;
+    private double bound;
+    private int passes;
+
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private int reopens;
+    private long elapsedNanos;
+
+    // initialEpsilon >= 1 weights the heuristic of the first pass; the search
+    // returns once budgetNanos have passed (Long.MAX_VALUE: run to the optimum)
+    public AnytimeSearch(double initialEpsilon, long budgetNanos) {
+        setInitialEpsilon(initialEpsilon);
+        setBudgetNanos(budgetNanos);
+    }
+
+    public void setInitialEpsilon(double initialEpsilon) {
+        if (!(initialEpsilon >= 1)) {
+            throw new IllegalArgumentException("Epsilon must be at least 1: " + initialEpsilon);
+        }
+        this.initialEpsilon = initialEpsilon;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        if (budgetNanos < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budgetNanos);
+        }
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        long startTime = System.nanoTime();
+        boolean found = run(grid, startX, startY, goalX, goalY, startTime);
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    private boolean run(Grid grid, int startX, int startY, int goalX, int goalY, long startTime) {
+        bind(grid);
+        this.goalX = goalX;
+        this.goalY = goalY;
+        pathLength = 0;
+        pathCost = 0;
+        bound = 1;
+        passes = 0;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = 0;
+        reopens = 0;
+        if (!inBounds(goalX, goalY) || !inBounds(startX, startY) || grid.isObstacle(goalX, goalY)) {
+            return false;
+        }
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        double epsilon = initialEpsilon;
+        stamp[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        if (start == goal) {
+            storePath(goal);
+            passes = 1;
+            return true;
+        }
+        state[start] = OPEN;
+        double startH = heuristicScale * AStarEngine.heuristic(startX, startY, goalX, goalY);
+        open.push(start, epsilon * startH, startH);
+        nodesPushed = 1;
+        peakOpenSize = 1;
+
+        while (true) {
+            if (!improvePath(goal, epsilon, startTime)) {
+                // Out of time; keep the last completed pass
+                if (passes == 0) {
+                    bound = Double.POSITIVE_INFINITY;
+                }
+                return passes > 0;
+            }
+            passes++;
+            if (stamp[goal] != generation) {
+                return false; // The whole reachable area was searched
+            }
+            storePath(goal);
+            // A bound of 0 or less leaves nothing cheaper to find (and 0 / 0 would be NaN)
+            double lowerBound = lowerBound();
+            bound = lowerBound <= 0 ? 1 : Math.min(epsilon, pathCost / lowerBound);
+            if (bound <= 1 + AStarEngine.COST_EPSILON) {
+                bound = 1;
+                return true;
+            }
+            epsilon = Math.max(1, Math.min(epsilon - EPSILON_STEP, bound));
+            startPass(epsilon);
+        }
+    }
+
+    // One weighted A* pass; false if the budget ran out before it finished
+    private boolean improvePath(int goal, double epsilon, long startTime) {
+        float[] costs = this.costs;
+        double heuristicScale = this.heuristicScale;
+        int clock = 0;
+        while (!open.isEmpty()) {
+            if (stamp[goal] == generation && g[goal] <= open.peekKey()) {
+                return true;
+            }
+            if (++clock == CLOCK_INTERVAL) {
+                clock = 0;
+                if (System.nanoTime() - startTime >= budgetNanos) {
+                    return false;
+                }
+            }
+            int current = open.poll();
+            state[current] = CLOSED;
+            closedCells[closedCount++] = current;
+            nodesExpanded++;
+
+            int cx = current % width;
+            int cy = current / width;
+            double currentG = g[current];
+            for (int i = 0; i < 8; i++) {
+                int nx = cx + DX[i];
+                int ny = cy + DY[i];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || grid.isObstacle(nx, ny)) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                double stepCost = (DX[i] != 0 && DY[i] != 0) ? SQRT2 : 1;
+                if (costs != null) {
+                    stepCost *= costs[neighbor];
+                }
+                double tentativeG = currentG + stepCost;
+                boolean fresh = stamp[neighbor] != generation;
+                if (!fresh && tentativeG >= g[neighbor] - AStarEngine.COST_EPSILON) {
+                    continue;
+                }
+                if (fresh) {
+                    stamp[neighbor] = generation;
+                    state[neighbor] = 0;
+                }
+                g[neighbor] = tentativeG;
+                parent[neighbor] = current;
+                byte cellState = state[neighbor];
+                if (cellState == CLOSED) {
+                    // Not expanded twice in one pass; the next pass picks it up
+                    state[neighbor] = INCONS;
+                    inconsistent[inconsistentCount++] = neighbor;
+                    reopens++;
+                } else if (cellState != INCONS) {
+                    double h = heuristicScale * AStarEngine.heuristic(nx, ny, goalX, goalY);
+                    if (cellState == OPEN) {
+                        open.decreaseKey(neighbor, tentativeG + epsilon * h, h);
+                    } else {
+                        state[neighbor] = OPEN;
+                        open.push(neighbor, tentativeG + epsilon * h, h);
+                        nodesPushed++;
+                        peakOpenSize = Math.max(peakOpenSize, open.size());
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // Queue the cells that became inconsistent, re-key the fringe for the new
+    // epsilon and forget which cells the last pass expanded
+    private void startPass(double epsilon) {
+        for (int i = 0; i < closedCount; i++) {
+            int cell = closedCells[i];
+            if (state[cell] == CLOSED) {
+                state[cell] = 0;
+            }
+        }
+        closedCount = 0;
+        int queued = open.size();
+        int[] cells = closedCells; // Free again, and large enough for every cell
+        for (int i = 0; i < queued; i++) {
+            cells[i] = open.get(i);
+        }
+        for (int i = 0; i < inconsistentCount; i++) {
+            cells[queued++] = inconsistent[i];
+            state[inconsistent[i]] = OPEN;
+        }
+        inconsistentCount = 0;
+        open.clear();
+        for (int i = 0; i < queued; i++) {
+            int cell = cells[i];
+            double h = heuristicScale * AStarEngine.heuristic(cell % width, cell / width, goalX, goalY);
+            open.push(cell, g[cell] + epsilon * h, h);
+        }
+        peakOpenSize = Math.max(peakOpenSize, open.size());
+    }
+
+    // Smallest g + h over the fringe and the inconsistent cells; no path is cheaper
+    private double lowerBound() {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < open.size(); i++) {
+            best = Math.min(best, unweightedF(open.get(i)));
+        }
+        for (int i = 0; i < inconsistentCount; i++) {
+            best = Math.min(best, unweightedF(inconsistent[i]));
+        }
+        return best;
+    }
+
+    private double unweightedF(int cell) {
+        return g[cell] + heuristicScale * AStarEngine.heuristic(cell % width, cell / width, goalX, goalY);
+    }
+
+    private void storePath(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length << 1)];
+        }
+        int i = length;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            path[--i] = cell;
+        }
+        pathLength = length;
+        // Sum the steps: g of a cell may have dropped after its successor was reached
+        pathCost = 0;
+        for (i = 1; i < length; i++) {
+            int from = path[i - 1];
+            int to = path[i];
+            double stepCost = (from % width != to % width && from / width != to / width) ? SQRT2 : 1;
+            pathCost += costs != null ? stepCost * costs[to] : stepCost;
+        }
+    }
+
+    private void bind(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        costs = grid instanceof TerrainGrid && !grid.hasUniformCosts() ? ((TerrainGrid) grid).costArray() : null;
+        heuristicScale = grid.getMinCost();
+        int cells = grid.cellCount("AnytimeSearch");
+        if (g.length < cells) {
+            g = new double[cells];
+            parent = new int[cells];
+            stamp = new int[cells];
+            state = new byte[cells];
+            closedCells = new int[cells];
+            inconsistent = new int[cells];
+            generation = 0;
+        }
+        open.ensureCapacity(cells);
+        closedCount = 0;
+        inconsistentCount = 0;
+        if (++generation == 0) {
+            // Counter wrapped; forget every stamp so no stale cell looks current
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    // Worst-case ratio of the path cost to the optimum: 1 once the path is proven
+    // optimal, infinite if no pass finished within the budget
+    public double getSuboptimalityBound() {
+        return bound;
+    }
+
+    // Passes that finished within the budget
+    public int getPasses() {
+        return passes;
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return reopens;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RecursiveAction;
+
+// Fork-join task that runs a slice of a query batch. Slices are split in half
+// until they are small enough, so idle workers can steal the other halves.
+// Every worker thread searches with its own engine from AStar's thread-local
+// scratch space, so the grid is only read and must not change during the batch.
+class BatchSearch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int LEAF_SIZE = 16;
+
+    private final Grid grid;
+    private final List<Query> queries;
+    private final List<CompletableFuture<SearchResult>> results;
+    private final int from;
+    private final int to;
+
+    BatchSearch(Grid grid, List<Query> queries, List<CompletableFuture<SearchResult>> results, int from, int to) {
+        this.grid = grid;
+        this.queries = queries;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > LEAF_SIZE) {
+            int middle = (from + to) >>> 1;
+            try {
+                invokeAll(new BatchSearch(grid, queries, results, from, middle),
+                          new BatchSearch(grid, queries, results, middle, to));
+            } catch (Throwable e) {
+                // Leaves catch everything, so only forking itself can fail here; don't
+                // leave the slice's callers waiting (complete is a no-op on finished ones)
+                for (int i = from; i < to; i++) {
+                    results.get(i).completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            Query query = queries.get(i);
+            CompletableFuture<SearchResult> result = results.get(i);
+            try {
+                result.complete(AStar.search(grid, new Node(query.startX, query.startY),
+                        new Node(query.goalX, query.goalY), query.mode));
+            } catch (Throwable e) {
+                // Errors too (e.g. OutOfMemoryError): an uncompleted future would block its caller forever
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
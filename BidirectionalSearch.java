@@ -0,0 +1,309 @@
+import java.util.Arrays;
+
+// Bidirectional A*: one frontier grows from the start towards the goal and one
+// from the goal back towards the start; the side with the smaller fringe expands
+// next. Instead of the plain octile distance each side is guided by half the
+// octile distance to where it is heading minus half the distance to where it came
+// from. These balanced potentials are consistent and cancel out between the two
+// sides, which lets the frontiers meet in the middle.
+// Every edge linking the two searches gives a candidate route; the best one is
+// optimal as soon as the two smallest fringe keys add up to at least its cost,
+// since any cheaper route would still need an unexpanded cell on one side below
+// its key.
+//
+// Moves and costs match AStarEngine (8 neighbors, 1 and sqrt(2), a move only
+// needs the cell moved into to be free), so paths cost the same as plain A*.
+// How much work this saves depends on the map; ExpansionCounts in benchmarks/
+// prints the cells both searches expand on the benchmark maps.
+// An engine is not thread-safe; use one engine per thread.
+public class BidirectionalSearch implements PathSearch {
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+
+    // Search state of one direction, indexed by y * width + x
+    private static final class Frontier {
+        double[] g = new double[0];
+        int[] parent = new int[0]; // Next cell towards this side's origin, -1 at the origin
+        int[] stamp = new int[0];
+        byte[] state = new byte[0];
+        final IndexedMinHeap open = new IndexedMinHeap(0);
+        int targetX; // Cell the search aims at: the other side's origin
+        int targetY;
+        int originX;
+        int originY;
+
+        void resize(int cells) {
+            if (g.length < cells) {
+                g = new double[cells];
+                parent = new int[cells];
+                stamp = new int[cells];
+                state = new byte[cells];
+            }
+            open.ensureCapacity(cells);
+        }
+    }
+
+    private final Frontier forward = new Frontier();
+    private final Frontier backward = new Frontier();
+    private int generation;
+
+    private Grid grid;
+    private int width;
+    private int height;
+    private int start;
+
+    private double bestCost; // Cheapest start-to-goal route seen so far
+    private int meetForward;  // Last cell of that route reached by the forward side, -1 if none
+    private int meetBackward; // First cell of it reached by the backward side; equal at start == goal
+
+    private int[] path = new int[16];
+    private int pathLength;
+    private double pathCost;
+
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private int reopens;
+    private long elapsedNanos;
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (!grid.hasUniformCosts()) {
+            throw new IllegalArgumentException("BidirectionalSearch needs a grid where every cell costs 1");
+        }
+        long startTime = System.nanoTime();
+        boolean found = run(grid, startX, startY, goalX, goalY);
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    private boolean run(Grid grid, int startX, int startY, int goalX, int goalY) {
+        bind(grid);
+        pathLength = 0;
+        pathCost = 0;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = 0;
+        reopens = 0;
+        if (!inBounds(goalX, goalY) || !inBounds(startX, startY) || grid.isObstacle(goalX, goalY)) {
+            return false;
+        }
+
+        start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        aim(forward, startX, startY, goalX, goalY);
+        aim(backward, goalX, goalY, startX, startY);
+        bestCost = Double.POSITIVE_INFINITY;
+        meetForward = -1;
+        if (start == goal) {
+            bestCost = 0;
+            meetForward = start;
+            meetBackward = -1;
+            forward.parent[start] = -1;
+            storePath();
+            return true;
+        }
+        seed(forward, start);
+        seed(backward, goal);
+
+        while (!forward.open.isEmpty() && !backward.open.isEmpty()) {
+            if (bestCost <= forward.open.peekKey() + backward.open.peekKey()) {
+                break;
+            }
+            if (forward.open.size() <= backward.open.size()) {
+                expand(forward, backward);
+            } else {
+                expand(backward, forward);
+            }
+        }
+        if (meetForward < 0) {
+            return false;
+        }
+        storePath();
+        return true;
+    }
+
+    private static void aim(Frontier side, int originX, int originY, int targetX, int targetY) {
+        side.originX = originX;
+        side.originY = originY;
+        side.targetX = targetX;
+        side.targetY = targetY;
+    }
+
+    private void seed(Frontier side, int origin) {
+        side.stamp[origin] = generation;
+        side.g[origin] = 0;
+        side.parent[origin] = -1;
+        side.state[origin] = OPEN;
+        int x = origin % width;
+        int y = origin / width;
+        side.open.push(origin, potential(side, x, y), AStarEngine.heuristic(x, y, side.targetX, side.targetY));
+        nodesPushed++;
+        peakOpenSize++;
+    }
+
+    private void expand(Frontier side, Frontier other) {
+        int current = side.open.poll();
+        side.state[current] = CLOSED;
+        int cx = current % width;
+        int cy = current / width;
+        double currentG = side.g[current];
+        // No need to expand a cell the other side already has, its route is a
+        // candidate already, nor one that cannot lead to a cheaper route
+        if ((other.stamp[current] == generation && other.state[current] == CLOSED)
+                || currentG + AStarEngine.heuristic(cx, cy, side.targetX, side.targetY) >= bestCost) {
+            return;
+        }
+        nodesExpanded++;
+
+        boolean reverse = side == backward;
+        for (int i = 0; i < 8; i++) {
+            int nx = cx + DX[i];
+            int ny = cy + DY[i];
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                continue;
+            }
+            int neighbor = ny * width + nx;
+            // Forward moves need a free target; backward steps walk those moves in
+            // reverse, so they may also step onto a blocked start
+            if (grid.isObstacle(nx, ny) && !(reverse && neighbor == start)) {
+                continue;
+            }
+            double tentativeG = currentG + ((DX[i] != 0 && DY[i] != 0) ? SQRT2 : 1);
+            // Check the link even when it does not improve this side: the other side
+            // may have reached the neighbor after this side last did
+            if (other.stamp[neighbor] == generation && tentativeG + other.g[neighbor] < bestCost) {
+                bestCost = tentativeG + other.g[neighbor];
+                meetForward = reverse ? neighbor : current;
+                meetBackward = reverse ? current : neighbor;
+            }
+            boolean fresh = side.stamp[neighbor] != generation;
+            if (!fresh && tentativeG >= side.g[neighbor] - AStarEngine.COST_EPSILON) {
+                continue;
+            }
+            side.g[neighbor] = tentativeG;
+            side.parent[neighbor] = current;
+            double key = tentativeG + potential(side, nx, ny);
+            // Ties go to the cell nearer the other end, as in AStarEngine
+            double h = AStarEngine.heuristic(nx, ny, side.targetX, side.targetY);
+            if (!fresh && side.state[neighbor] == OPEN) {
+                side.open.decreaseKey(neighbor, key, h);
+                continue;
+            }
+            if (fresh) {
+                side.stamp[neighbor] = generation;
+            } else {
+                reopens++;
+            }
+            side.state[neighbor] = OPEN;
+            side.open.push(neighbor, key, h);
+            nodesPushed++;
+            peakOpenSize = Math.max(peakOpenSize, forward.open.size() + backward.open.size());
+        }
+    }
+
+    // Half the octile distance to the side's target minus half the distance to its
+    // origin; the forward and backward potentials of a cell add up to zero
+    private static double potential(Frontier side, int x, int y) {
+        return 0.5 * (AStarEngine.heuristic(x, y, side.targetX, side.targetY)
+                - AStarEngine.heuristic(x, y, side.originX, side.originY));
+    }
+
+    // Join the forward half (start .. meetForward) and the backward half (meetBackward .. goal)
+    private void storePath() {
+        int length = 0;
+        for (int cell = meetForward; cell != -1; cell = forward.parent[cell]) {
+            length++;
+        }
+        for (int cell = meetBackward; cell != -1; cell = backward.parent[cell]) {
+            length++;
+        }
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length << 1)];
+        }
+        int i = 0;
+        for (int cell = meetForward; cell != -1; cell = forward.parent[cell]) {
+            path[i++] = cell;
+        }
+        reverse(path, i);
+        for (int cell = meetBackward; cell != -1; cell = backward.parent[cell]) {
+            path[i++] = cell;
+        }
+        pathLength = length;
+        pathCost = bestCost;
+    }
+
+    private static void reverse(int[] cells, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+    }
+
+    private void bind(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        int cells = grid.cellCount("BidirectionalSearch");
+        if (forward.g.length < cells) {
+            generation = 0;
+        }
+        forward.resize(cells);
+        backward.resize(cells);
+        if (++generation == 0) {
+            // Counter wrapped; forget every stamp so no stale cell looks current
+            Arrays.fill(forward.stamp, 0);
+            Arrays.fill(backward.stamp, 0);
+            generation = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return reopens;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,14 @@
+// Backing store for a Grid's obstacle bits. Cells are packed 64 to a long word,
+// row by row, so bit (x & 63) of word y * wordsPerRow + (x >>> 6) is cell (x, y).
+public interface CellStorage {
+
+    // Number of 64-bit words held by this store
+    long wordCount();
+
+    long getWord(long wordIndex);
+
+    void setWord(long wordIndex, long word);
+
+    // Set every word to zero (no obstacles)
+    void clear();
+}
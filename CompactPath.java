@@ -0,0 +1,327 @@
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// A path as packed cell indices (y * width + x) in one int[], start first: 4 bytes
+// per cell instead of a Node object (about 50 bytes with its list slot) per cell.
+// AStar.findPath returns one without creating any Nodes.
+//
+// encode() shrinks it further for storage or the wire: the start cell, then runs
+// of equal steps, one byte for up to 7 straight steps. smooth() pulls the string
+// tight: it drops every cell that a straight segment with line of sight can skip,
+// leaving the turning points, so consecutive cells of a smoothed path need not be
+// neighbors. Instances never change and may be shared between threads.
+public final class CompactPath {
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int GENERIC_STEP = 8; // Run code for steps that are not unit moves
+    private static final double SQRT2 = Math.sqrt(2);
+
+    private final int width;
+    private final int[] cells;
+    private final double cost;
+
+    // Takes ownership of cells
+    private CompactPath(int width, int[] cells, double cost) {
+        this.width = width;
+        this.cells = cells;
+        this.cost = cost;
+    }
+
+    // The last path an engine found on a grid of the given width
+    public static CompactPath of(PathSearch engine, int width) {
+        int[] cells = new int[engine.getPathLength()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = engine.getPathCell(i);
+        }
+        return new CompactPath(width, cells, engine.getPathCost());
+    }
+
+    // Width of the grid the cell indices refer to
+    public int getWidth() {
+        return width;
+    }
+
+    // Number of cells, start and goal included
+    public int getLength() {
+        return cells.length;
+    }
+
+    public int getCell(int i) {
+        return cells[i];
+    }
+
+    public int getX(int i) {
+        return cells[i] % width;
+    }
+
+    public int getY(int i) {
+        return cells[i] / width;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    // A copy of the cell indices
+    public int[] toArray() {
+        return cells.clone();
+    }
+
+    // Waypoints of the same route with every cell dropped that a straight segment
+    // can skip. A segment is taken only if every cell it crosses is free (touching a
+    // corner is fine, as for a diagonal move) and it costs no more than the cells it
+    // replaces, costing each crossed cell at the highest cost among them. On a grid
+    // with uniform costs the result is the path's Euclidean length.
+    public CompactPath smooth(Grid grid) {
+        if (grid.getWidth() != width) {
+            throw new IllegalArgumentException("Path is for a grid " + width + " wide, not " + grid.getWidth());
+        }
+        int n = cells.length;
+        if (n <= 2) {
+            return this;
+        }
+        // costTo[i]: cost of following the path from its start to cell i
+        double[] costTo = new double[n];
+        for (int i = 1; i < n; i++) {
+            costTo[i] = costTo[i - 1] + segmentCost(grid, cells[i - 1], cells[i]);
+        }
+
+        int[] waypoints = new int[n];
+        waypoints[0] = cells[0];
+        int count = 1;
+        double smoothedCost = 0;
+        int anchor = 0;
+        while (anchor < n - 1) {
+            // Gallop ahead for a cell that cannot be reached straight, then bisect
+            // back to the last one that can. Visibility along a path is not
+            // monotonic, so this finds a far visible cell, not always the farthest.
+            int reachable = anchor + 1;
+            int blocked = -1;
+            for (int stride = 1; reachable < n - 1; stride <<= 1) {
+                int probe = Math.min(n - 1, reachable + stride);
+                if (shortcut(grid, costTo, anchor, probe)) {
+                    reachable = probe;
+                } else {
+                    blocked = probe;
+                    break;
+                }
+            }
+            while (blocked - reachable > 1) {
+                int middle = (reachable + blocked) >>> 1;
+                if (shortcut(grid, costTo, anchor, middle)) {
+                    reachable = middle;
+                } else {
+                    blocked = middle;
+                }
+            }
+            smoothedCost += reachable == anchor + 1
+                    ? costTo[reachable] - costTo[anchor]
+                    : segmentCost(grid, cells[anchor], cells[reachable]);
+            waypoints[count++] = cells[reachable];
+            anchor = reachable;
+        }
+        return new CompactPath(width, Arrays.copyOf(waypoints, count), smoothedCost);
+    }
+
+    // Every cell the path enters, in order and starting with its first cell: the
+    // cells themselves for a path of single steps, plus the cells crossed between
+    // waypoints (the same traversal as segmentCost) for a smoothed one
+    int[] routeCells() {
+        if (cells.length == 0) {
+            return cells;
+        }
+        int[] route = new int[cells.length];
+        route[0] = cells[0];
+        int count = 1;
+        for (int i = 1; i < cells.length; i++) {
+            int x = getX(i - 1);
+            int y = getY(i - 1);
+            int nx = Math.abs(getX(i) - x);
+            int ny = Math.abs(getY(i) - y);
+            int sx = Integer.signum(getX(i) - x);
+            int sy = Integer.signum(getY(i) - y);
+            for (int ix = 0, iy = 0; ix < nx || iy < ny; ) {
+                long decision = (long) (2 * ix + 1) * ny - (long) (2 * iy + 1) * nx;
+                if (decision <= 0) {
+                    x += sx;
+                    ix++;
+                }
+                if (decision >= 0) {
+                    y += sy;
+                    iy++;
+                }
+                if (count == route.length) {
+                    route = Arrays.copyOf(route, count << 1);
+                }
+                route[count++] = y * width + x;
+            }
+        }
+        return count == route.length ? route : Arrays.copyOf(route, count);
+    }
+
+    private boolean shortcut(Grid grid, double[] costTo, int from, int to) {
+        return segmentCost(grid, cells[from], cells[to]) <= costTo[to] - costTo[from] + AStarEngine.COST_EPSILON;
+    }
+
+    // Cost of the straight segment between two cell centers: its length times the
+    // highest cost of the cells it enters; infinite if one of them is blocked. Where
+    // the segment passes exactly through a corner it steps diagonally, touching
+    // neither side cell. The cell it starts from is not entered.
+    private static double segmentCost(Grid grid, int from, int to) {
+        int width = grid.getWidth();
+        int x = from % width;
+        int y = from / width;
+        int x1 = to % width;
+        int y1 = to / width;
+        int nx = Math.abs(x1 - x);
+        int ny = Math.abs(y1 - y);
+        int sx = Integer.signum(x1 - x);
+        int sy = Integer.signum(y1 - y);
+        boolean uniform = grid.hasUniformCosts();
+        float maxCost = 0;
+        for (int ix = 0, iy = 0; ix < nx || iy < ny; ) {
+            // Which cell border the segment crosses next: compare (ix + 0.5) / nx with (iy + 0.5) / ny
+            long decision = (long) (2 * ix + 1) * ny - (long) (2 * iy + 1) * nx;
+            if (decision == 0) {
+                x += sx;
+                y += sy;
+                ix++;
+                iy++;
+            } else if (decision < 0) {
+                x += sx;
+                ix++;
+            } else {
+                y += sy;
+                iy++;
+            }
+            if (grid.isObstacle(x, y)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            maxCost = uniform ? 1 : Math.max(maxCost, grid.getCost(x, y));
+        }
+        double length = nx == 1 && ny == 1 ? SQRT2 : Math.sqrt((double) nx * nx + (double) ny * ny);
+        return length * maxCost;
+    }
+
+    // Serialized form: varints for the width, the cell count and the start cell,
+    // then the cost as 8 little-endian bytes, then runs of equal steps. A run is a
+    // varint count << 4 | code, where code 0..7 is a unit move (DX/DY) and
+    // GENERIC_STEP means zigzag varints for the x and y offsets follow.
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + cells.length / 4);
+        putVarint(out, width);
+        putVarint(out, cells.length);
+        if (cells.length == 0) {
+            return out.toByteArray();
+        }
+        putVarint(out, cells[0]);
+        long bits = Double.doubleToLongBits(cost);
+        for (int shift = 0; shift < 64; shift += 8) {
+            out.write((int) (bits >>> shift));
+        }
+        int i = 1;
+        while (i < cells.length) {
+            int dx = getX(i) - getX(i - 1);
+            int dy = getY(i) - getY(i - 1);
+            int run = 1;
+            while (i + run < cells.length
+                    && getX(i + run) - getX(i + run - 1) == dx && getY(i + run) - getY(i + run - 1) == dy) {
+                run++;
+            }
+            int code = unitMove(dx, dy);
+            putVarint(out, run << 4 | (code < 0 ? GENERIC_STEP : code));
+            if (code < 0) {
+                putVarint(out, (dx << 1) ^ (dx >> 31));
+                putVarint(out, (dy << 1) ^ (dy >> 31));
+            }
+            i += run;
+        }
+        return out.toByteArray();
+    }
+
+    public static CompactPath decode(byte[] data) {
+        int[] position = {0};
+        int width = getVarint(data, position);
+        int length = getVarint(data, position);
+        if (width <= 0 || length < 0) {
+            throw new IllegalArgumentException("Malformed path: width " + width + ", length " + length);
+        }
+        int[] cells = new int[length];
+        if (length == 0) {
+            return new CompactPath(width, cells, 0);
+        }
+        cells[0] = getVarint(data, position);
+        if (position[0] + 8 > data.length) {
+            throw new IllegalArgumentException("Malformed path: truncated");
+        }
+        long bits = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            bits |= (data[position[0]++] & 0xFFL) << shift;
+        }
+        int x = cells[0] % width;
+        int y = cells[0] / width;
+        int i = 1;
+        while (i < length) {
+            int head = getVarint(data, position);
+            int run = head >>> 4;
+            int code = head & 15;
+            int dx;
+            int dy;
+            if (code == GENERIC_STEP) {
+                int zx = getVarint(data, position);
+                int zy = getVarint(data, position);
+                dx = (zx >>> 1) ^ -(zx & 1);
+                dy = (zy >>> 1) ^ -(zy & 1);
+            } else if (code < 8) {
+                dx = DX[code];
+                dy = DY[code];
+            } else {
+                throw new IllegalArgumentException("Malformed path: step code " + code);
+            }
+            if (run <= 0 || run > length - i) {
+                throw new IllegalArgumentException("Malformed path: run of " + run + " steps");
+            }
+            for (int end = i + run; i < end; i++) {
+                x += dx;
+                y += dy;
+                if (x < 0 || x >= width || y < 0) {
+                    throw new IllegalArgumentException("Malformed path: leaves the grid at step " + i);
+                }
+                cells[i] = y * width + x;
+            }
+        }
+        return new CompactPath(width, cells, Double.longBitsToDouble(bits));
+    }
+
+    // Index into DX/DY of a unit move, -1 for any other offset
+    private static int unitMove(int dx, int dy) {
+        if (dx < -1 || dx > 1 || dy < -1 || dy > 1 || (dx == 0 && dy == 0)) {
+            return -1;
+        }
+        int index = (dx + 1) * 3 + (dy + 1);
+        return index > 4 ? index - 1 : index;
+    }
+
+    private static void putVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int getVarint(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Malformed path: truncated");
+            }
+            int b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed path: bad varint");
+    }
+}
@@ -0,0 +1,544 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Connected-component labels of a Grid's free cells, under the moves AStarEngine
+// makes (8 neighbors, a move only needs the cell moved into to be free). Two free
+// cells with different labels have no path between them, so a search between them
+// can be rejected without expanding anything. Grid.canReach builds these on first use.
+//
+// Labels are built with a union-find over cell indices: strips of rows are labeled
+// in parallel, then the strip seams are joined and the roots numbered 0..n-1.
+// Afterwards the labels follow the grid as a listener. Freeing a cell joins the
+// components around it (a small union-find over the labels). Blocking a cell whose
+// free neighbors stay linked around it cannot split anything. Otherwise the groups
+// of neighbors are flooded from in turn until all but one have met another group or
+// run out; a group that ran out was cut off and its cells get a new label, so the
+// work follows the smaller sides of the split. A flood that passes SPLIT_BUDGET
+// cells, and any bulk change, leave the labels to be rebuilt on the next query.
+//
+// Queries may run on many threads while the grid does not change.
+//
+// freeze() hands a VersionedGrid's snapshot a read-only copy of the labels as they
+// are at publish. The copy is kept in tiles of LABEL_TILE cells and only tiles whose
+// labels changed since the previous freeze are copied again; the rest are shared.
+class ComponentLabels implements GridListener {
+    static final int NONE = -1; // Label of a blocked cell
+
+    private static final int MIN_STRIP_ROWS = 64;
+    private static final int TILE_SHIFT = 12;
+    private static final int LABEL_TILE = 1 << TILE_SHIFT;
+    // Cells a split flood may visit before a rebuild is cheaper: at least this many,
+    // or an eighth of the grid
+    private static final int SPLIT_BUDGET = 1 << 12;
+    private static final int[] RING_DX = {-1, 0, 1, 1, 1, 0, -1, -1};
+    private static final int[] RING_DY = {-1, -1, -1, 0, 1, 1, 1, 0};
+    // For each subset of free cells around a cell (bit i = RING_DX/DY[i]), whether
+    // those cells are all connected to each other without the center
+    private static final boolean[] RING_CONNECTED = new boolean[256];
+
+    static {
+        for (int mask = 0; mask < 256; mask++) {
+            int first = Integer.numberOfTrailingZeros(mask);
+            int reached = mask == 0 ? 0 : 1 << first;
+            boolean grown = true;
+            while (grown) {
+                grown = false;
+                for (int i = 0; i < 8; i++) {
+                    for (int j = 0; j < 8; j++) {
+                        if ((reached & (1 << i)) != 0 && (mask & (1 << j)) != 0 && (reached & (1 << j)) == 0
+                                && Math.abs(RING_DX[i] - RING_DX[j]) <= 1 && Math.abs(RING_DY[i] - RING_DY[j]) <= 1) {
+                            reached |= 1 << j;
+                            grown = true;
+                        }
+                    }
+                }
+            }
+            RING_CONNECTED[mask] = reached == mask;
+        }
+    }
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private int[] labels = new int[0]; // Label of each cell, y * width + x, or NONE
+    private int[] merged = new int[0]; // Union-find over labels joined since the last build
+    private int labelCount;
+    private volatile boolean stale = true;
+    // Split floods: visits[cell] is floodBase + group for cells reached by the
+    // current flood, and each group's queue keeps every cell it reached
+    private int[] visits = new int[0];
+    private int floodBase;
+    private final int[][] floodQueues = new int[4][64];
+    // Frozen copies: the label tiles a frozen copy reads instead of labels (null
+    // when live), and on the live labels the last tiles handed out with the tiles
+    // changed since
+    private final int[][] frozen;
+    private int[][] lastFrozen;
+    private boolean[] changedTiles = new boolean[0];
+
+    ComponentLabels(Grid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.frozen = null;
+        grid.addListener(this);
+    }
+
+    // Read-only labels of a snapshot; roots[label] is the component of each label
+    private ComponentLabels(Grid snapshot, int[][] tiles, int[] roots) {
+        this.grid = snapshot;
+        this.width = snapshot.getWidth();
+        this.height = snapshot.getHeight();
+        this.frozen = tiles;
+        this.merged = roots;
+        this.labelCount = roots.length;
+        this.stale = false;
+    }
+
+    // Read-only copy of the labels for a snapshot of this grid as it is now.
+    // Rebuilds stale labels first, so it costs a pass over the cells only after
+    // bulk changes; otherwise a copy of the tiles changed since the last freeze.
+    synchronized ComponentLabels freeze(Grid snapshot) {
+        if (stale) {
+            rebuild();
+        }
+        int tileCount = (labels.length + LABEL_TILE - 1) >>> TILE_SHIFT;
+        boolean copyAll = lastFrozen == null || lastFrozen.length != tileCount;
+        int[][] tiles = copyAll ? new int[tileCount][] : lastFrozen.clone();
+        for (int t = 0; t < tileCount; t++) {
+            if (copyAll || changedTiles[t]) {
+                int from = t << TILE_SHIFT;
+                tiles[t] = Arrays.copyOfRange(labels, from, Math.min(from + LABEL_TILE, labels.length));
+            }
+        }
+        int[] roots = new int[labelCount];
+        for (int label = 0; label < labelCount; label++) {
+            roots[label] = findAndCompress(label);
+        }
+        lastFrozen = tiles;
+        if (changedTiles.length != tileCount) {
+            changedTiles = new boolean[tileCount];
+        } else {
+            Arrays.fill(changedTiles, false);
+        }
+        return new ComponentLabels(snapshot, tiles, roots);
+    }
+
+    // False if no path leads from the start to the goal; both must be inside the grid.
+    // A blocked start is left through its free neighbors, as AStarEngine does.
+    boolean connected(int startX, int startY, int goalX, int goalY) {
+        if (stale) {
+            rebuild();
+        }
+        int goal = component(goalY * width + goalX);
+        if (goal == NONE) {
+            return false;
+        }
+        if (!grid.isObstacle(startX, startY)) {
+            return component(startY * width + startX) == goal;
+        }
+        for (int i = 0; i < 8; i++) {
+            int nx = startX + RING_DX[i];
+            int ny = startY + RING_DY[i];
+            if (inBounds(nx, ny) && component(ny * width + nx) == goal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether the labels follow the grid with no rebuild pending
+    boolean isCurrent() {
+        return !stale;
+    }
+
+    // Component of a cell, NONE if it is blocked
+    int component(int cell) {
+        int label = frozen == null ? labels[cell] : frozen[cell >>> TILE_SHIFT][cell & (LABEL_TILE - 1)];
+        if (label == NONE) {
+            return NONE;
+        }
+        while (merged[label] != label) {
+            label = merged[label];
+        }
+        return label;
+    }
+
+    @Override
+    public void cellChanged(int x, int y) {
+        if (stale) {
+            return;
+        }
+        int cell = y * width + x;
+        boolean blocked = grid.isObstacle(x, y);
+        if (blocked == (labels[cell] == NONE)) {
+            return; // Only the cost changed
+        }
+        changed(cell);
+        if (blocked) {
+            labels[cell] = NONE;
+            int ring = freeRing(x, y);
+            if (!RING_CONNECTED[ring] && !relabelSplit(x, y, ring)) {
+                stale = true; // The component may have split
+            }
+            return;
+        }
+        int label = NONE;
+        for (int i = 0; i < 8; i++) {
+            int nx = x + RING_DX[i];
+            int ny = y + RING_DY[i];
+            if (inBounds(nx, ny) && labels[ny * width + nx] != NONE) {
+                int other = findAndCompress(labels[ny * width + nx]);
+                if (label == NONE) {
+                    label = other;
+                } else if (other != label) {
+                    // Keep the smaller label as the root
+                    merged[Math.max(label, other)] = Math.min(label, other);
+                    label = Math.min(label, other);
+                }
+            }
+        }
+        if (label == NONE) {
+            label = newLabel();
+        }
+        labels[cell] = label;
+    }
+
+    // After (x, y) was blocked with its free neighbors (ring) in groups not linked
+    // around it: flood from every group a cell at a time, joining groups whose floods
+    // meet and giving a new label to each group whose flood runs out first. False if
+    // the floods pass the budget; the labels then need a rebuild.
+    private boolean relabelSplit(int x, int y, int ring) {
+        int[] groupOf = new int[8];
+        int groups = 0;
+        for (int left = ring; left != 0; groups++) {
+            int reached = Integer.lowestOneBit(left);
+            boolean grown = true;
+            while (grown) {
+                grown = false;
+                for (int i = 0; i < 8; i++) {
+                    for (int j = 0; j < 8; j++) {
+                        if ((reached & (1 << i)) != 0 && (left & (1 << j)) != 0 && (reached & (1 << j)) == 0
+                                && Math.abs(RING_DX[i] - RING_DX[j]) <= 1 && Math.abs(RING_DY[i] - RING_DY[j]) <= 1) {
+                            reached |= 1 << j;
+                            grown = true;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < 8; i++) {
+                if ((reached & (1 << i)) != 0) {
+                    groupOf[i] = groups;
+                }
+            }
+            left &= ~reached;
+        }
+
+        if (visits.length != labels.length || floodBase > Integer.MAX_VALUE - 8) {
+            visits = new int[labels.length];
+            floodBase = 0;
+        }
+        floodBase += 4; // Marks of earlier floods are all below the new base
+        int[] head = new int[groups];
+        int[] tail = new int[groups];
+        int[] joined = new int[groups]; // Union-find over the groups whose floods met
+        boolean[] done = new boolean[groups];
+        for (int g = 0; g < groups; g++) {
+            joined[g] = g;
+        }
+        for (int i = 0; i < 8; i++) {
+            if ((ring & (1 << i)) != 0) {
+                int cell = (y + RING_DY[i]) * width + x + RING_DX[i];
+                visits[cell] = floodBase + groupOf[i];
+                push(groupOf[i], tail, cell);
+            }
+        }
+
+        int budget = Math.max(SPLIT_BUDGET, labels.length / 8);
+        int visited = Integer.bitCount(ring);
+        int open = groups;
+        while (open > 1) {
+            for (int g = 0; g < groups; g++) {
+                if (head[g] == tail[g] || done[rootGroup(joined, g)]) {
+                    continue;
+                }
+                int cell = floodQueues[g][head[g]++];
+                int cx = cell % width;
+                int cy = cell / width;
+                for (int i = 0; i < 8; i++) {
+                    int nx = cx + RING_DX[i];
+                    int ny = cy + RING_DY[i];
+                    if (!inBounds(nx, ny) || labels[ny * width + nx] == NONE) {
+                        continue;
+                    }
+                    int next = ny * width + nx;
+                    if (visits[next] >= floodBase) {
+                        int a = rootGroup(joined, g);
+                        int b = rootGroup(joined, visits[next] - floodBase);
+                        if (a != b) {
+                            joined[Math.max(a, b)] = Math.min(a, b);
+                            open--;
+                        }
+                    } else {
+                        if (++visited > budget) {
+                            return false;
+                        }
+                        visits[next] = floodBase + g;
+                        push(g, tail, next);
+                    }
+                }
+            }
+            // A set of joined groups whose floods all ran out is a component of its own
+            for (int root = 0; root < groups && open > 1; root++) {
+                if (joined[root] != root || done[root] || !ranOut(joined, head, tail, root)) {
+                    continue;
+                }
+                int label = newLabel();
+                for (int g = 0; g < groups; g++) {
+                    if (rootGroup(joined, g) == root) {
+                        for (int k = 0; k < tail[g]; k++) {
+                            labels[floodQueues[g][k]] = label;
+                            changed(floodQueues[g][k]);
+                        }
+                    }
+                }
+                done[root] = true;
+                open--;
+            }
+        }
+        return true;
+    }
+
+    // Note a cell whose label changed, for the next freeze
+    private void changed(int cell) {
+        if (lastFrozen != null) {
+            changedTiles[cell >>> TILE_SHIFT] = true;
+        }
+    }
+
+    private void push(int group, int[] tail, int cell) {
+        if (tail[group] == floodQueues[group].length) {
+            floodQueues[group] = Arrays.copyOf(floodQueues[group], tail[group] << 1);
+        }
+        floodQueues[group][tail[group]++] = cell;
+    }
+
+    private static int rootGroup(int[] joined, int group) {
+        while (joined[group] != group) {
+            group = joined[group];
+        }
+        return group;
+    }
+
+    // Whether every flood of the groups joined under root has run out
+    private static boolean ranOut(int[] joined, int[] head, int[] tail, int root) {
+        for (int g = 0; g < joined.length; g++) {
+            if (head[g] < tail[g] && rootGroup(joined, g) == root) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void gridReset() {
+        stale = true;
+    }
+
+    private synchronized void rebuild() {
+        if (!stale) {
+            return;
+        }
+        int cells = grid.cellCount("ComponentLabels");
+        if (labels.length != cells) {
+            labels = new int[cells];
+        }
+        int strips = Math.max(1, Math.min(height / MIN_STRIP_ROWS, 4 * Runtime.getRuntime().availableProcessors()));
+        int[] stripStart = new int[strips + 1];
+        for (int s = 0; s <= strips; s++) {
+            stripStart[s] = (int) ((long) height * s / strips);
+        }
+
+        // Each strip only links its own cells, so the strips can run in parallel
+        IntStream.range(0, strips).parallel().forEach(s -> labelStrip(stripStart[s], stripStart[s + 1]));
+        for (int s = 1; s < strips; s++) {
+            joinSeam(stripStart[s]);
+        }
+        // Point every cell at its root. A strip only writes its own cells and only
+        // their final value; the walk to the root may cross other strips, so it must
+        // not shorten their links as findRoot does, or a late shortening could undo
+        // a cell's root pointer. Any mix of old and new links leads to the same root.
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            for (int cell = stripStart[s] * width; cell < stripStart[s + 1] * width; cell++) {
+                if (labels[cell] != NONE) {
+                    labels[cell] = rootOf(cell);
+                }
+            }
+        });
+
+        // Number the roots strip by strip. Roots are marked with -(label + 2) first, so
+        // they stay recognizable while the other cells copy their root's label.
+        int[] firstLabel = new int[strips + 1];
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            int roots = 0;
+            for (int cell = stripStart[s] * width; cell < stripStart[s + 1] * width; cell++) {
+                if (labels[cell] == cell) {
+                    roots++;
+                }
+            }
+            firstLabel[s + 1] = roots;
+        });
+        for (int s = 0; s < strips; s++) {
+            firstLabel[s + 1] += firstLabel[s];
+        }
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            int label = firstLabel[s];
+            for (int cell = stripStart[s] * width; cell < stripStart[s + 1] * width; cell++) {
+                if (labels[cell] == cell) {
+                    labels[cell] = -(label++ + 2);
+                }
+            }
+        });
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            for (int cell = stripStart[s] * width; cell < stripStart[s + 1] * width; cell++) {
+                if (labels[cell] >= 0) {
+                    labels[cell] = -labels[labels[cell]] - 2;
+                }
+            }
+        });
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            for (int cell = stripStart[s] * width; cell < stripStart[s + 1] * width; cell++) {
+                if (labels[cell] < NONE) {
+                    labels[cell] = -labels[cell] - 2;
+                }
+            }
+        });
+
+        labelCount = firstLabel[strips];
+        merged = new int[Math.max(16, labelCount)];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = i;
+        }
+        lastFrozen = null; // Every label may have changed
+        stale = false;
+    }
+
+    // Union-find over the cells of rows [y0, y1); a free cell starts as its own root
+    private void labelStrip(int y0, int y1) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                if (grid.isObstacle(x, y)) {
+                    labels[cell] = NONE;
+                    continue;
+                }
+                labels[cell] = cell;
+                boolean westFree = x > 0 && labels[cell - 1] != NONE;
+                if (y == y0) {
+                    if (westFree) {
+                        labels[cell] = findRoot(cell - 1);
+                    }
+                } else if (labels[cell - width] != NONE) {
+                    // West and both upper corners touch the cell above, and each
+                    // was linked to it when its own row or cell was labeled
+                    labels[cell] = findRoot(cell - width);
+                } else {
+                    if (westFree) {
+                        labels[cell] = findRoot(cell - 1);
+                    } else if (x > 0 && labels[cell - width - 1] != NONE) {
+                        labels[cell] = findRoot(cell - width - 1);
+                    }
+                    if (x + 1 < width && labels[cell - width + 1] != NONE) {
+                        union(cell, cell - width + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    // Join the first row of a strip to the last row of the strip above
+    private void joinSeam(int y) {
+        for (int x = 0; x < width; x++) {
+            if (labels[y * width + x] != NONE) {
+                linkAbove(x, y);
+            }
+        }
+    }
+
+    private void linkAbove(int x, int y) {
+        int cell = y * width + x;
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+            int above = cell - width + nx - x;
+            if (labels[above] != NONE) {
+                union(cell, above);
+            }
+        }
+    }
+
+    private void union(int a, int b) {
+        int rootA = findRoot(a);
+        int rootB = findRoot(b);
+        if (rootA != rootB) {
+            labels[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    // Root of a cell while building, halving the path on the way
+    private int findRoot(int cell) {
+        while (labels[cell] != cell) {
+            int next = labels[cell];
+            int nextNext = labels[next];
+            if (nextNext != next) {
+                labels[cell] = nextNext;
+            }
+            cell = next;
+        }
+        return cell;
+    }
+
+    // Root of a cell without changing any link; safe while other strips point their cells at roots
+    private int rootOf(int cell) {
+        while (labels[cell] != cell) {
+            cell = labels[cell];
+        }
+        return cell;
+    }
+
+    private int findAndCompress(int label) {
+        int root = label;
+        while (merged[root] != root) {
+            root = merged[root];
+        }
+        while (merged[label] != root) {
+            int next = merged[label];
+            merged[label] = root;
+            label = next;
+        }
+        return root;
+    }
+
+    private int newLabel() {
+        if (labelCount == merged.length) {
+            merged = Arrays.copyOf(merged, merged.length << 1);
+        }
+        merged[labelCount] = labelCount;
+        return labelCount++;
+    }
+
+    // Bit i set if ring cell i around (x, y) is free and inside the grid
+    private int freeRing(int x, int y) {
+        int mask = 0;
+        for (int i = 0; i < 8; i++) {
+            int nx = x + RING_DX[i];
+            int ny = y + RING_DY[i];
+            if (inBounds(nx, ny) && !grid.isObstacle(nx, ny)) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
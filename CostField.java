@@ -0,0 +1,51 @@
+// Per-cell costs left behind by a search: g from the start (infinite for cells the
+// search never reached), h to the goal and f = g + h. Flat arrays indexed by
+// y * width + x, so a renderer can read any cell in O(1).
+public class CostField {
+    private final int width;
+    private final int height;
+    private final double[] g;
+    private final double[] h;
+
+    public CostField(int width, int height, double[] g, double[] h) {
+        this.width = width;
+        this.height = height;
+        this.g = g;
+        this.h = h;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isReached(int x, int y) {
+        return g[y * width + x] != Double.POSITIVE_INFINITY;
+    }
+
+    public double getG(int x, int y) {
+        return g[y * width + x];
+    }
+
+    public double getH(int x, int y) {
+        return h[y * width + x];
+    }
+
+    public double getF(int x, int y) {
+        return g[y * width + x] + h[y * width + x];
+    }
+
+    // Largest finite f in the field, 0 if no cell was reached
+    public double getMaxF() {
+        double max = 0;
+        for (int i = 0; i < g.length; i++) {
+            if (g[i] != Double.POSITIVE_INFINITY) {
+                max = Math.max(max, g[i] + h[i]);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.Arrays;
+
+// Distance to the nearest of a set of goal cells from every cell of a Grid, plus
+// the first step of a shortest route, for many agents heading for the same goals:
+//
+//   FlowField field = new FlowField(grid, goalX, goalY);
+//   int next = field.nextCell(agent.x, agent.y); // y * width + x, or -1
+//
+// One reverse Dijkstra from all goals at once fills a flat float[] of distances
+// and a byte[] of directions (indices into DX/DY below, NONE at goals and where no
+// goal can be reached). Moves and costs match AStarEngine, so the distance from a
+// cell is the cost of the path aStar would find to the nearest goal.
+//
+// The full build uses a bucket queue instead of a heap: buckets are as wide as the
+// cheapest step, so every cell in the current bucket is final and a push is an
+// array append. The field listens to its grid and keeps a list of changed cells;
+// the next read repairs only what they affect: the cells whose route ran through a
+// changed cell are cleared and refilled from their neighbors, and cells that got
+// cheaper or were freed spread their improvement, both with a local Dijkstra.
+// Bulk changes and changes at a goal rebuild the whole field.
+//
+// Reads repair pending changes first, so share a field between threads only
+// while its grid does not change.
+public class FlowField implements GridListener {
+    public static final byte NONE = -1;
+    // Direction d steps from (x, y) to (x + DX[d], y + DY[d])
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final float SQRT2 = (float) Math.sqrt(2);
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int[] goals;
+    private final boolean[] isGoal;
+    private final float[] distances;
+    private final byte[] directions;
+    private final boolean[] settled;
+
+    // Cells changed since the last repair
+    private int[] changed = new int[16];
+    private int changedCount;
+    private boolean rebuild = true;
+
+    // Repair scratch space
+    private final boolean[] cleared;
+    private int[] clearedCells = new int[16];
+    private int clearedCount;
+    private final boolean[] queued;
+    private final IndexedMinHeap open;
+
+    private int cellsSettled;
+
+    public FlowField(Grid grid, int goalX, int goalY) {
+        this(grid, new int[] {goalY * grid.getWidth() + goalX});
+    }
+
+    // goalCells are cell indices (y * width + x); blocked goals are ignored
+    public FlowField(Grid grid, int[] goalCells) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = grid.cellCount("FlowField");
+        this.goals = goalCells.clone();
+        this.isGoal = new boolean[cells];
+        for (int goal : goals) {
+            if (goal < 0 || goal >= cells) {
+                throw new IndexOutOfBoundsException("Goal cell " + goal + " is outside the grid");
+            }
+            isGoal[goal] = true;
+        }
+        this.distances = new float[cells];
+        this.directions = new byte[cells];
+        this.settled = new boolean[cells];
+        this.cleared = new boolean[cells];
+        this.queued = new boolean[cells];
+        this.open = new IndexedMinHeap(0);
+        grid.addListener(this);
+    }
+
+    // Stop listening to the grid; the field keeps describing the grid as it was
+    public void detach() {
+        grid.removeListener(this);
+    }
+
+    @Override
+    public void cellChanged(int x, int y) {
+        int cell = y * width + x;
+        if (isGoal[cell]) {
+            rebuild = true;
+            return;
+        }
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount << 1);
+        }
+        changed[changedCount++] = cell;
+    }
+
+    @Override
+    public void gridReset() {
+        rebuild = true;
+    }
+
+    // Cost of the cheapest route from (x, y) to a goal, infinite if there is none
+    public float getDistance(int x, int y) {
+        update();
+        return distances[y * width + x];
+    }
+
+    // Cell index of the first step from (x, y) towards the nearest goal; -1 at a
+    // goal and where no goal can be reached
+    public int nextCell(int x, int y) {
+        update();
+        int direction = directions[y * width + x];
+        return direction == NONE ? -1 : (y + DY[direction]) * width + x + DX[direction];
+    }
+
+    // Distances of all cells, row-major; the live array, valid until the grid changes
+    public float[] getDistances() {
+        update();
+        return distances;
+    }
+
+    // Directions of all cells, row-major: 0..7 for (-1, -1), (-1, 0), (-1, 1), (0, -1),
+    // (0, 1), (1, -1), (1, 0), (1, 1), NONE at goals and unreachable cells
+    public byte[] getDirections() {
+        update();
+        return directions;
+    }
+
+    // Cells finalized by the last build or repair; shows how local a repair was
+    public int getCellsSettled() {
+        return cellsSettled;
+    }
+
+    // Bring the field up to date with the grid
+    public void update() {
+        if (rebuild) {
+            build();
+        } else if (changedCount > 0) {
+            repair();
+        }
+    }
+
+    private void build() {
+        rebuild = false;
+        changedCount = 0;
+        cellsSettled = 0;
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(directions, NONE);
+        Arrays.fill(settled, false);
+        float[] costs = costArray();
+
+        // Steps cost between minCost and sqrt(2) * maxCost, so with buckets minCost
+        // wide a push lands at most this many buckets past the current one
+        float bucketWidth = grid.getMinCost();
+        float maxCost = grid instanceof TerrainGrid ? ((TerrainGrid) grid).getMaxCost() : 1;
+        int bucketCount = (int) Math.ceil(SQRT2 * maxCost / bucketWidth) + 2;
+        int[][] buckets = new int[bucketCount][16];
+        int[] bucketSizes = new int[bucketCount];
+        int pending = 0;
+        for (int goal : goals) {
+            if (!grid.isObstacle(goal % width, goal / width) && distances[goal] != 0) {
+                distances[goal] = 0;
+                buckets[0] = append(buckets[0], bucketSizes[0]++, goal);
+                pending++;
+            }
+        }
+
+        for (int current = 0; pending > 0; current++) {
+            int slot = current % bucketCount;
+            // Pushes from this bucket land in later ones, so its list does not grow here
+            int[] bucket = buckets[slot];
+            int size = bucketSizes[slot];
+            bucketSizes[slot] = 0;
+            pending -= size;
+            for (int i = 0; i < size; i++) {
+                int cell = bucket[i];
+                if (settled[cell]) {
+                    continue; // Pushed again by a cheaper route and already final
+                }
+                settled[cell] = true;
+                cellsSettled++;
+                int x = cell % width;
+                int y = cell / width;
+                if (grid.isObstacle(x, y)) {
+                    continue; // Blocked cells can be left but not entered
+                }
+                float cost = costs == null ? 1 : costs[cell];
+                for (int d = 0; d < 8; d++) {
+                    int nx = x - DX[d];
+                    int ny = y - DY[d];
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                        continue;
+                    }
+                    int neighbor = ny * width + nx;
+                    float distance = distances[cell] + ((DX[d] != 0 && DY[d] != 0) ? SQRT2 : 1) * cost;
+                    if (distance < distances[neighbor]) {
+                        distances[neighbor] = distance;
+                        directions[neighbor] = (byte) d;
+                        int target = Math.max(current + 1, (int) (distance / bucketWidth));
+                        int targetSlot = target % bucketCount;
+                        buckets[targetSlot] = append(buckets[targetSlot], bucketSizes[targetSlot]++, neighbor);
+                        pending++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void repair() {
+        cellsSettled = 0;
+        float[] costs = costArray();
+        open.ensureCapacity(distances.length);
+
+        // Clear every cell whose route to a goal enters a changed cell
+        clearedCount = 0;
+        for (int i = 0; i < changedCount; i++) {
+            clearDependents(changed[i]);
+        }
+        for (int i = 0; i < clearedCount; i++) {
+            int cell = clearedCells[i];
+            distances[cell] = Float.POSITIVE_INFINITY;
+            directions[cell] = NONE;
+        }
+        // Refill them from the neighbors that kept their distance
+        for (int i = 0; i < clearedCount; i++) {
+            int cell = clearedCells[i];
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || grid.isObstacle(nx, ny)) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                if (cleared[neighbor] || distances[neighbor] == Float.POSITIVE_INFINITY) {
+                    continue;
+                }
+                float distance = distances[neighbor] + stepCost(d, costs, neighbor);
+                if (distance < distances[cell]) {
+                    distances[cell] = distance;
+                    directions[cell] = (byte) d;
+                }
+            }
+            if (distances[cell] != Float.POSITIVE_INFINITY) {
+                enqueue(cell);
+            }
+        }
+        // Changed cells that can be entered may offer their neighbors a cheaper step
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changed[i];
+            if (distances[cell] != Float.POSITIVE_INFINITY) {
+                enqueue(cell);
+            }
+        }
+        for (int i = 0; i < clearedCount; i++) {
+            cleared[clearedCells[i]] = false;
+        }
+        changedCount = 0;
+
+        while (!open.isEmpty()) {
+            int cell = open.poll();
+            queued[cell] = false;
+            cellsSettled++;
+            int x = cell % width;
+            int y = cell / width;
+            if (grid.isObstacle(x, y)) {
+                continue;
+            }
+            for (int d = 0; d < 8; d++) {
+                int nx = x - DX[d];
+                int ny = y - DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                float distance = distances[cell] + stepCost(d, costs, cell);
+                if (distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    directions[neighbor] = (byte) d;
+                    enqueue(neighbor);
+                }
+            }
+        }
+    }
+
+    // Mark the cells whose chain of directions runs into the given cell
+    private void clearDependents(int root) {
+        int first = clearedCount;
+        int cell = root;
+        while (true) {
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < 8; d++) {
+                int nx = x - DX[d];
+                int ny = y - DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                if (directions[neighbor] == d && !cleared[neighbor]) {
+                    cleared[neighbor] = true;
+                    if (clearedCount == clearedCells.length) {
+                        clearedCells = Arrays.copyOf(clearedCells, clearedCount << 1);
+                    }
+                    clearedCells[clearedCount++] = neighbor;
+                }
+            }
+            if (first == clearedCount) {
+                return;
+            }
+            cell = clearedCells[first++];
+        }
+    }
+
+    private void enqueue(int cell) {
+        if (queued[cell]) {
+            open.decreaseKey(cell, distances[cell], 0);
+        } else {
+            queued[cell] = true;
+            open.push(cell, distances[cell], 0);
+        }
+    }
+
+    // Cost of stepping in direction d into cell
+    private static float stepCost(int d, float[] costs, int cell) {
+        float length = (DX[d] != 0 && DY[d] != 0) ? SQRT2 : 1;
+        return costs == null ? length : length * costs[cell];
+    }
+
+    private float[] costArray() {
+        return grid instanceof TerrainGrid && !grid.hasUniformCosts() ? ((TerrainGrid) grid).costArray() : null;
+    }
+
+    private static int[] append(int[] list, int size, int cell) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size << 1);
+        }
+        list[size] = cell;
+        return list;
+    }
+}
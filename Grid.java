@@ -1,19 +1,70 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 public class Grid {
+  // Binary grid file: header (magic, version, width, height as little-endian ints)
+  // followed by the obstacle words of each row, little-endian, row after row
+  private static final int FILE_MAGIC = 0x44524741; // "AGRD"
+  private static final int FILE_VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int IO_CHUNK_BYTES = 1 << 20;
+
   private final int width;  // Width of the grid
   private final int height; // Height of the grid
-  private final boolean[][] obstacles;  // 2D boolean array representing obstacles
+  private final int wordsPerRow; // 64-cell words per row; rows start on a word boundary
+  private final CellStorage cells; // Obstacle bits, row-major, one bit per cell
+  private final long[] heapWords;  // Backing array of cells when it is on the heap, else null
+  private int version;             // Bumped whenever an obstacle changes
+  private GridListener[] listeners = new GridListener[0]; // Notified of every obstacle change
+  private volatile ComponentLabels components;           // Built by the first canReach
+  private volatile JumpTable jumpTable;                  // Built by the first JPS+ search of a version
 
   public Grid(int width, int height) {
+      this(width, height, new HeapCellStorage(Math.toIntExact(wordCount(width, height))));
+  }
+
+  public Grid(int width, int height, CellStorage cells) {
       this.width = width;
       this.height = height;
-      this.obstacles = new boolean[width][height]; // Initialize obstacles array
+      this.wordsPerRow = (width + 63) >>> 6;
+      if (cells.wordCount() < wordCount(width, height)) {
+          throw new IllegalArgumentException("Storage too small for a " + width + "x" + height + " grid");
+      }
+      this.cells = cells;
+      this.heapWords = cells instanceof HeapCellStorage ? ((HeapCellStorage) cells).words() : null;
+  }
+
+  private static long wordCount(int width, int height) {
+      return (long) ((width + 63) >>> 6) * height;
+  }
+
+  // width * height, for code that keeps an array slot per cell. A grid can have
+  // more cells than an int indexes (a mapped one, say); user is named in the error.
+  int cellCount(String user) {
+      try {
+          return Math.multiplyExact(width, height);
+      } catch (ArithmeticException e) {
+          throw new IllegalArgumentException("Grid " + width + "x" + height + " is too large for " + user
+                  + ": more than Integer.MAX_VALUE cells");
+      }
   }
 
   public boolean isObstacle(int x, int y) {
-      return x >= 0 && x < width && y >= 0 && y < height && obstacles[x][y];
+      if (x < 0 || x >= width || y < 0 || y >= height) {
+          return false;
+      }
+      long word = heapWords != null
+              ? heapWords[y * wordsPerRow + (x >>> 6)]
+              : cells.getWord((long) y * wordsPerRow + (x >>> 6));
+      return (word & (1L << x)) != 0;
   }
 
+  // Block obstacleCount cells picked with replacement, so fewer may end up blocked,
+  // from an unseeded Random. MapGenerator gives exact densities from a seed.
   public void generateRandomObstacles(int obstacleCount) {
       java.util.Random random = new java.util.Random();
 
@@ -21,10 +72,14 @@ public class Grid {
           int x = random.nextInt(width);
           int y = random.nextInt(height);
 
-          obstacles[x][y] = true; // Mark the cell as an obstacle
+          writeCell(x, y, true); // Mark the cell as an obstacle
       }
   }
   public List<Node> getNeighbors(Node node) {
+    return getNeighbors(node, Neighborhood.EIGHT);
+}
+
+  public List<Node> getNeighbors(Node node, Neighborhood neighborhood) {
     List<Node> neighbors = new ArrayList<>();
     for (int dx = -1; dx <= 1; dx++) {
         for (int dy = -1; dy <= 1; dy++) {
@@ -32,6 +87,16 @@ public class Grid {
             if (dx == 0 && dy == 0) {
                 continue;
             }
+            if (dx != 0 && dy != 0) {
+                if (neighborhood == Neighborhood.FOUR) {
+                    continue;
+                }
+                // No squeezing diagonally between two blocked cells or past one
+                if (neighborhood == Neighborhood.EIGHT_NO_CORNER_CUTTING
+                        && (isObstacle(node.x + dx, node.y) || isObstacle(node.x, node.y + dy))) {
+                    continue;
+                }
+            }
 
             int newX = node.x + dx;
             int newY = node.y + dy;
@@ -46,7 +111,7 @@ public class Grid {
 }
 
 private boolean isValid(int x, int y) {
-  return x >= 0 && x < width && y >= 0 && y < height && !obstacles[x][y];
+  return x >= 0 && x < width && y >= 0 && y < height && !isObstacle(x, y);
 }
   public int getWidth() {
       return width;
@@ -56,22 +121,298 @@ private boolean isValid(int x, int y) {
       return height;
   }
 
+  public int getWordsPerRow() {
+      return wordsPerRow;
+  }
+
+  // Obstacle bits of cells (64 * wordIndex .. 64 * wordIndex + 63, y); bit i is cell x = 64 * wordIndex + i.
+  // Bits past the right edge of the grid are always 0.
+  public long getRowWord(int y, int wordIndex) {
+      if (heapWords != null) {
+          return heapWords[y * wordsPerRow + wordIndex];
+      }
+      return cells.getWord((long) y * wordsPerRow + wordIndex);
+  }
+
+  // Overwrite a whole row from its obstacle words (same layout as getRowWord). Bits
+  // past the right edge are ignored. Listeners get gridReset, so this is meant for
+  // bulk loading rather than edits.
+  public void setRowWords(int y, long[] rowWords) {
+      if (y < 0 || y >= height) {
+          throw new IndexOutOfBoundsException("Row " + y + " is outside the grid");
+      }
+      if (rowWords.length < wordsPerRow) {
+          throw new IllegalArgumentException("Expected " + wordsPerRow + " words, got " + rowWords.length);
+      }
+      storeRowWords(y, rowWords, 0);
+      notifyAllChanged();
+  }
+
+  // Overwrite every row from words laid out row after row (height * getWordsPerRow()
+  // words, each row as in setRowWords). Listeners get a single gridReset, so a
+  // listener that rebuilds on reset (HPA*, a GUI) does so once, not once per row.
+  public void setAllRowWords(long[] words) {
+      if (words.length < wordCount(width, height)) {
+          throw new IllegalArgumentException("Expected " + wordCount(width, height) + " words, got " + words.length);
+      }
+      for (int y = 0; y < height; y++) {
+          storeRowWords(y, words, y * wordsPerRow);
+      }
+      notifyAllChanged();
+  }
+
+  // Store row y from words[offset..] without telling anyone; for filling a grid that
+  // has no listeners yet, such as one a loader just created
+  void storeRowWords(int y, long[] words, int offset) {
+      long tailMask = (width & 63) == 0 ? -1L : (1L << width) - 1;
+      long base = (long) y * wordsPerRow;
+      if (heapWords != null) {
+          System.arraycopy(words, offset, heapWords, (int) base, wordsPerRow);
+          heapWords[(int) base + wordsPerRow - 1] &= tailMask;
+      } else {
+          for (int i = 0; i < wordsPerRow - 1; i++) {
+              cells.setWord(base + i, words[offset + i]);
+          }
+          cells.setWord(base + wordsPerRow - 1, words[offset + wordsPerRow - 1] & tailMask);
+      }
+  }
+
+  // False if no path leads from (startX, startY) to (goalX, goalY), answered from
+  // connected-component labels in constant time. The labels cost an int per cell;
+  // they are built on the first call and then kept up to date with the grid.
+  // Points outside the grid are left to the search and always give true, as do
+  // grids too large for one label array.
+  public boolean canReach(int startX, int startY, int goalX, int goalY) {
+      if (startX < 0 || startX >= width || startY < 0 || startY >= height
+              || goalX < 0 || goalX >= width || goalY < 0 || goalY >= height) {
+          return true;
+      }
+      ComponentLabels labels = getComponentLabels();
+      return labels == null || labels.connected(startX, startY, goalX, goalY);
+  }
+
+  // The labels behind canReach, created on first use; null for grids too large for them
+  ComponentLabels getComponentLabels() {
+      if ((long) width * height > Integer.MAX_VALUE - 8) {
+          return null;
+      }
+      ComponentLabels labels = components;
+      if (labels == null) {
+          synchronized (this) {
+              labels = components;
+              if (labels == null) {
+                  labels = new ComponentLabels(this);
+                  components = labels;
+              }
+          }
+      }
+      return labels;
+  }
+
+  // Answer canReach from labels made elsewhere (a snapshot's frozen copy)
+  void setComponentLabels(ComponentLabels labels) {
+      components = labels;
+  }
+
+  // Modification counter; lets precomputed data (e.g. JPS+ jump tables) detect a stale grid
+  public int getVersion() {
+      return version;
+  }
+
+  // JPS+ jump distances for the grid as it is now, built on first use after each
+  // change and then shared by every JumpPointSearch, on any thread, until the next
+  // change. Like canReach, meant for searches while nobody modifies the grid.
+  JumpTable getJumpTable() {
+      JumpTable table = jumpTable;
+      if (table == null || table.version != getVersion()) {
+          synchronized (this) {
+              table = jumpTable;
+              if (table == null || table.version != getVersion()) {
+                  table = new JumpTable(this);
+                  jumpTable = table;
+              }
+          }
+      }
+      return table;
+  }
+
+  public void addListener(GridListener listener) {
+      listeners = Arrays.copyOf(listeners, listeners.length + 1);
+      listeners[listeners.length - 1] = listener;
+  }
+
+  public void removeListener(GridListener listener) {
+      for (int i = 0; i < listeners.length; i++) {
+          if (listeners[i] == listener) {
+              GridListener[] remaining = new GridListener[listeners.length - 1];
+              System.arraycopy(listeners, 0, remaining, 0, i);
+              System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+              listeners = remaining;
+              return;
+          }
+      }
+  }
+
   public void resetObstacles() {
-    for (int i = 0; i < width; i++) {
-        for (int j = 0; j < height; j++) {
-            obstacles[i][j] = false;
-        }
-    }
+    cells.clear();
+    notifyAllChanged();
 }
 
 public void setObstacle(int x, int y, boolean isObstacle) {
-  if (x >= 0 && x < width && y >= 0 && y < height) {
-      obstacles[x][y] = isObstacle;
-  } else {
-      System.out.println("Error: Coordinates out of bounds.");
+  if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside the grid");
   }
+  writeCell(x, y, isObstacle);
 }
-}
 
+  // Flip a cell between free and obstacle
+  public void toggleObstacle(int x, int y) {
+      setObstacle(x, y, !isObstacle(x, y));
+  }
+
+  private void writeCell(int x, int y, boolean isObstacle) {
+      long index = (long) y * wordsPerRow + (x >>> 6);
+      long word = cells.getWord(index);
+      long updated = isObstacle ? word | (1L << x) : word & ~(1L << x);
+      if (updated != word) {
+          cells.setWord(index, updated);
+          notifyCellChanged(x, y);
+      }
+  }
+
+  // Bump the version and tell listeners that a cell changed
+  protected void notifyCellChanged(int x, int y) {
+      version++;
+      for (GridListener listener : listeners) {
+          listener.cellChanged(x, y);
+      }
+  }
+
+  // Bump the version and tell listeners that any cell may have changed
+  protected void notifyAllChanged() {
+      version++;
+      for (GridListener listener : listeners) {
+          listener.gridReset();
+      }
+  }
 
+  // Cost of entering a free cell, per unit of step length; 1 everywhere on a plain grid
+  public float getCost(int x, int y) {
+      return 1;
+  }
+
+  // Smallest cell cost; the octile heuristic times this stays admissible
+  public float getMinCost() {
+      return 1;
+  }
+
+  // True if every cell costs 1. JPS, HPA*, D* Lite and bidirectional search rely on it.
+  public boolean hasUniformCosts() {
+      return true;
+  }
 
+  // Write the grid in the binary grid format
+  public void save(Path file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+          ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+          buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(width).putInt(height);
+          long words = wordCount(width, height);
+          for (long i = 0; i < words; i++) {
+              if (buffer.remaining() < Long.BYTES) {
+                  writeFully(channel, buffer);
+              }
+              buffer.putLong(cells.getWord(i));
+          }
+          writeFully(channel, buffer);
+      }
+  }
+
+  // Read a binary grid file into a heap-backed grid
+  public static Grid load(Path file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          int[] size = readHeader(channel);
+          Grid grid = new Grid(size[0], size[1]);
+          ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+          long words = wordCount(size[0], size[1]);
+          long position = HEADER_BYTES;
+          long i = 0;
+          while (i < words) {
+              buffer.clear();
+              buffer.limit((int) Math.min(buffer.capacity(), (words - i) * Long.BYTES));
+              while (buffer.hasRemaining()) {
+                  int read = channel.read(buffer, position);
+                  if (read < 0) {
+                      throw new IOException("Truncated grid file: " + file);
+                  }
+                  position += read;
+              }
+              buffer.flip();
+              while (buffer.remaining() >= Long.BYTES) {
+                  grid.cells.setWord(i++, buffer.getLong());
+              }
+          }
+          return grid;
+      }
+  }
+
+  // Memory-map a binary grid file; the grid lives off-heap and edits are written
+  // through to the file. The mapping stays valid after this method returns.
+  public static Grid map(Path file, boolean writable) throws IOException {
+      StandardOpenOption[] options = writable
+              ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+              : new StandardOpenOption[] {StandardOpenOption.READ};
+      try (FileChannel channel = FileChannel.open(file, options)) {
+          int[] size = readHeader(channel);
+          long words = wordCount(size[0], size[1]);
+          if (channel.size() < HEADER_BYTES + words * Long.BYTES) {
+              throw new IOException("Truncated grid file: " + file);
+          }
+          return new Grid(size[0], size[1], new MappedCellStorage(channel, HEADER_BYTES, words, writable));
+      }
+  }
+
+  // Create an empty grid file of the given size and map it writable
+  public static Grid createMapped(Path file, int width, int height) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+          ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+          header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(width).putInt(height);
+          writeFully(channel, header);
+          long words = wordCount(width, height);
+          // Mapping past the end grows the file; the new region reads as zeros
+          return new Grid(width, height, new MappedCellStorage(channel, HEADER_BYTES, words, true));
+      }
+  }
+
+  private static int[] readHeader(FileChannel channel) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+          if (channel.read(header, header.position()) < 0) {
+              throw new IOException("Not a grid file: header is truncated");
+          }
+      }
+      header.flip();
+      if (header.getInt() != FILE_MAGIC) {
+          throw new IOException("Not a grid file: bad magic number");
+      }
+      int version = header.getInt();
+      if (version != FILE_VERSION) {
+          throw new IOException("Unsupported grid file version " + version);
+      }
+      int width = header.getInt();
+      int height = header.getInt();
+      if (width <= 0 || height <= 0) {
+          throw new IOException("Invalid grid size " + width + "x" + height);
+      }
+      return new int[] {width, height};
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+          channel.write(buffer);
+      }
+      buffer.clear();
+  }
+}
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+// Which cells of a Grid changed, readable by grid version: a reader remembers the
+// version it last looked at and asks for the changes since, so several readers
+// (path checks, caches, renderers) can share one log at their own pace:
+//
+//   GridChangeLog log = new GridChangeLog(grid, 1 << 16);
+//   int seen = grid.getVersion();
+//   ...
+//   int[] cells = log.changedSince(seen); // null: too old, assume everything changed
+//   seen = grid.getVersion();
+//
+// The log keeps the last capacity cell changes in a ring of (version, cell) pairs.
+// Asking about a version from before the oldest kept change, or from before a bulk
+// change (gridReset), gets null. Cost changes of a TerrainGrid are logged as well.
+// Like the grid's other listeners, not thread-safe.
+public class GridChangeLog implements GridListener {
+    private final Grid grid;
+    private final int width;
+    private final long[] entries; // version << 32 | cell, oldest at head
+    private int head;
+    private int size;
+    private int coveredFrom; // Every change after this version is in the log
+
+    public GridChangeLog(Grid grid, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.entries = new long[capacity];
+        this.coveredFrom = grid.getVersion();
+        grid.addListener(this);
+    }
+
+    // Stop listening to the grid; later questions about newer versions get null
+    public void detach() {
+        grid.removeListener(this);
+        coveredFrom = Integer.MAX_VALUE;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    @Override
+    public void cellChanged(int x, int y) {
+        if (size == entries.length) {
+            // Forget the oldest change; versions up to it can no longer be answered
+            coveredFrom = (int) (entries[head] >>> 32);
+            head = (head + 1) % entries.length;
+            size--;
+        }
+        entries[(head + size) % entries.length] = (long) grid.getVersion() << 32 | (y * width + x);
+        size++;
+    }
+
+    @Override
+    public void gridReset() {
+        head = 0;
+        size = 0;
+        coveredFrom = grid.getVersion();
+    }
+
+    // Distinct cells (y * width + x, ascending) changed after the given grid version,
+    // or null if the log cannot tell
+    public int[] changedSince(int version) {
+        if (version - coveredFrom < 0 || grid.getVersion() - version < 0) {
+            return null;
+        }
+        // Versions grow along the ring, so find the first newer change by bisection
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (versionAt(middle) - version > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        int[] cells = new int[size - low];
+        for (int i = low; i < size; i++) {
+            cells[i - low] = (int) entries[(head + i) % entries.length];
+        }
+        Arrays.sort(cells);
+        int distinct = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (i == 0 || cells[i] != cells[i - 1]) {
+                cells[distinct++] = cells[i];
+            }
+        }
+        return distinct == cells.length ? cells : Arrays.copyOf(cells, distinct);
+    }
+
+    private int versionAt(int i) {
+        return (int) (entries[(head + i) % entries.length] >>> 32);
+    }
+}
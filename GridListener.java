@@ -0,0 +1,10 @@
+// Receives obstacle and cost changes from a Grid; register with Grid.addListener.
+// Callbacks run on the thread that modified the grid.
+public interface GridListener {
+
+    // The obstacle state or the cost of cell (x, y) changed
+    void cellChanged(int x, int y);
+
+    // Any number of cells changed at once (Grid.resetObstacles, bulk cost updates)
+    void gridReset();
+}
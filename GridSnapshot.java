@@ -0,0 +1,17 @@
+// Read-only state of a VersionedGrid as of one publish(). Any number of threads
+// may search it at once without locking; it never changes, and writes
+// (setObstacle, setRowWords, resetObstacles) throw UnsupportedOperationException.
+public class GridSnapshot extends Grid {
+    private final int version;
+
+    GridSnapshot(int width, int height, CellStorage cells, int version) {
+        super(width, height, cells);
+        this.version = version;
+    }
+
+    // Number of the publish that made this snapshot; 0 for the initial empty grid
+    @Override
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.Arrays;
+
+// Obstacle bits held in a long[] on the Java heap: one bit per cell instead of
+// the byte per cell (plus a header per column) of a boolean[][].
+public class HeapCellStorage implements CellStorage {
+    private final long[] words;
+
+    public HeapCellStorage(int wordCount) {
+        this.words = new long[wordCount];
+    }
+
+    @Override
+    public long wordCount() {
+        return words.length;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return words[(int) wordIndex];
+    }
+
+    @Override
+    public void setWord(long wordIndex, long word) {
+        words[(int) wordIndex] = word;
+    }
+
+    // The backing array, so Grid can read heap cells without an interface call
+    long[] words() {
+        return words;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+}
@@ -0,0 +1,28 @@
+// Cost-to-goal estimate used by AStarEngine, chosen when the engine is built.
+// All but MANHATTAN are admissible for every Neighborhood, so paths stay optimal;
+// MANHATTAN is exact on open four-connected grids but overestimates diagonal moves,
+// so with eight neighbors it trades path quality for fewer expansions.
+public enum Heuristic {
+    OCTILE,    // Straight and diagonal steps; exact on open eight-connected grids
+    EUCLIDEAN, // Straight-line distance
+    MANHATTAN, // Straight steps only
+    ZERO;      // No estimate: the search becomes Dijkstra
+
+    private static final double OCTILE_DIAGONAL = Math.sqrt(2) - 2;
+
+    // Estimated cost from (x, y) to (goalX, goalY) with unit cell costs
+    public double distance(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(goalX - x);
+        int dy = Math.abs(goalY - y);
+        // Plain comparisons rather than a switch, which would go through a lookup
+        // table; the engine's own heuristic is a constant to the JIT either way
+        if (this == OCTILE) {
+            return (dx + dy) + OCTILE_DIAGONAL * Math.min(dx, dy);
+        } else if (this == EUCLIDEAN) {
+            return Math.sqrt((double) dx * dx + (double) dy * dy);
+        } else if (this == MANHATTAN) {
+            return dx + dy;
+        }
+        return 0;
+    }
+}
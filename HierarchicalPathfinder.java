@@ -0,0 +1,706 @@
+import java.util.Arrays;
+
+// Hierarchical pathfinding (HPA*) over a Grid. The grid is cut into square
+// clusters; cells where two clusters touch become entrances, and the cost between
+// every pair of entrances of a cluster is computed once. A query connects start
+// and goal to the entrances of their own clusters, searches this small abstract
+// graph, and then refines each abstract edge with a search bounded to a single
+// cluster. Paths are close to optimal (they always cross cluster borders at
+// entrance cells) and long-range queries touch only a few cells per cluster.
+//
+// The pathfinder listens to its grid to keep the abstraction current: a changed
+// cell rebuilds just the cluster holding it, plus the eight around it when the
+// cell lies on a cluster border, and a reset rebuilds everything. Call detach
+// when done with it, or the grid keeps it alive and keeps rebuilding it.
+public class HierarchicalPathfinder implements PathSearch, GridListener {
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    // Entrances at least this wide get a transition at each end instead of one in the middle
+    private static final int WIDE_ENTRANCE = 6;
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+    private final int slots; // Abstract node ids per cluster; id = cluster * slots + local index
+
+    // Transitions owned by each cluster as (inside cell, outside cell) pairs: across its
+    // east border (including diagonal links at its two east corners) and its south border
+    private final int[][] eastBorder;
+    private final int[][] southBorder;
+    // Per cluster: entrance cells, the intra-cluster cost matrix between them, and the
+    // transitions leaving the cluster as (local index, outside cell) pairs
+    private final int[][] nodeCells;
+    private final double[][] nodeDistances;
+    private final int[][] interEdges;
+
+    // Abstract search scratch; the two ids past the cluster slots are start and goal
+    private final int startId;
+    private final int goalId;
+    private final double[] g;
+    private final int[] parent;
+    private final int[] stamp;
+    private final byte[] state;
+    private int generation;
+    private final IndexedMinHeap open;
+
+    // Cluster-bounded search scratch, indexed by (y - y0) * clusterSize + (x - x0)
+    private final double[] localG;
+    private final int[] localParent;
+    private final int[] localStamp;
+    private final int[] localTarget; // Equals localGeneration for entrances the search still has to settle
+    private int localGeneration;
+    private final IndexedMinHeap localOpen;
+    private int localExpanded;
+
+    // Query state
+    private int startCluster;
+    private int goalCluster;
+    private int goalX;
+    private int goalY;
+    private double[] startEdges = new double[0]; // Cost from start to each entrance of its cluster
+    private double[] goalEdges = new double[0];  // Cost from each entrance of the goal cluster to goal
+
+    private int[] path = new int[16];
+    private int pathLength;
+    private double pathCost;
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private long elapsedNanos;
+
+    public HierarchicalPathfinder(Grid grid, int clusterSize) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        this.slots = 4 * clusterSize;
+        int clusters = clustersX * clustersY;
+        eastBorder = new int[clusters][];
+        southBorder = new int[clusters][];
+        nodeCells = new int[clusters][];
+        nodeDistances = new double[clusters][];
+        interEdges = new int[clusters][];
+
+        startId = clusters * slots;
+        goalId = startId + 1;
+        int ids = Math.toIntExact((long) clusters * slots + 2);
+        g = new double[ids];
+        parent = new int[ids];
+        stamp = new int[ids];
+        state = new byte[ids];
+        open = new IndexedMinHeap(ids);
+
+        int localCells = clusterSize * clusterSize;
+        localG = new double[localCells];
+        localParent = new int[localCells];
+        localStamp = new int[localCells];
+        localTarget = new int[localCells];
+        localOpen = new IndexedMinHeap(localCells);
+
+        buildAll();
+        grid.addListener(this);
+    }
+
+    // Stop listening to the grid; the abstraction keeps describing the grid as it was
+    public void detach() {
+        grid.removeListener(this);
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    // Bring the abstraction up to date after the obstacle at (x, y) changed
+    @Override
+    public void cellChanged(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cx = x / clusterSize;
+        int cy = y / clusterSize;
+        int c = cy * clustersX + cx;
+        boolean onBorder = x % clusterSize == 0 || x % clusterSize == clusterSize - 1 || x == width - 1
+                || y % clusterSize == 0 || y % clusterSize == clusterSize - 1 || y == height - 1;
+        if (!onBorder) {
+            buildCluster(c);
+            return;
+        }
+        // Border links next to this cell are owned by this cluster and its eight neighbors
+        // (corner links check the cells beside them), and the entrances of all of them may change
+        int fromX = Math.max(0, cx - 1);
+        int toX = Math.min(clustersX - 1, cx + 1);
+        int fromY = Math.max(0, cy - 1);
+        int toY = Math.min(clustersY - 1, cy + 1);
+        for (int oy = fromY; oy <= toY; oy++) {
+            for (int ox = fromX; ox <= toX; ox++) {
+                buildEastBorder(oy * clustersX + ox);
+                buildSouthBorder(oy * clustersX + ox);
+            }
+        }
+        for (int oy = fromY; oy <= toY; oy++) {
+            for (int ox = fromX; ox <= toX; ox++) {
+                buildCluster(oy * clustersX + ox);
+            }
+        }
+    }
+
+    @Override
+    public void gridReset() {
+        buildAll();
+    }
+
+    private void buildAll() {
+        int clusters = clustersX * clustersY;
+        for (int c = 0; c < clusters; c++) {
+            buildEastBorder(c);
+            buildSouthBorder(c);
+        }
+        for (int c = 0; c < clusters; c++) {
+            buildCluster(c);
+        }
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (!grid.hasUniformCosts()) {
+            throw new IllegalArgumentException("HierarchicalPathfinder needs a grid where every cell costs 1");
+        }
+        if (grid != this.grid) {
+            throw new IllegalArgumentException("HierarchicalPathfinder was built for a different grid");
+        }
+        long startTime = System.nanoTime();
+        boolean found = run(startX, startY, goalX, goalY);
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    private boolean run(int startX, int startY, int goalX, int goalY) {
+        pathLength = 0;
+        pathCost = 0;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = 0;
+        localExpanded = 0;
+        // Unlike AStarEngine, the start must be free: entrances only join free cells
+        if (!walkable(startX, startY) || !walkable(goalX, goalY)) {
+            return false;
+        }
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        startCluster = clusterOf(startX, startY);
+        goalCluster = clusterOf(goalX, goalY);
+
+        startEdges = connect(startCluster, start, startEdges);
+        goalEdges = connect(goalCluster, goal, goalEdges);
+        double direct = INFINITY;
+        if (startCluster == goalCluster) {
+            localSearch(startCluster, start, goal, null, 0);
+            direct = localCost(goal);
+        }
+
+        double abstractCost = searchAbstract(startX, startY);
+        if (direct <= abstractCost) {
+            if (direct == INFINITY) {
+                return false;
+            }
+            pathLength = 0;
+            appendCell(start);
+            appendLocalPath(startCluster, start, goal);
+        } else {
+            refine(start, goal);
+        }
+        nodesExpanded += localExpanded;
+        return true;
+    }
+
+    // A* over entrances; returns the abstract path cost or infinity
+    private double searchAbstract(int startX, int startY) {
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        open.clear();
+        stamp[startId] = generation;
+        g[startId] = 0;
+        parent[startId] = -1;
+        state[startId] = OPEN;
+        open.push(startId, AStarEngine.heuristic(startX, startY, goalX, goalY), 0);
+        nodesPushed = 1;
+        peakOpenSize = 1;
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == goalId) {
+                return g[goalId];
+            }
+            state[current] = CLOSED;
+            nodesExpanded++;
+
+            if (current == startId) {
+                int[] cells = nodeCells[startCluster];
+                for (int j = 0; j < cells.length; j++) {
+                    relax(current, startCluster * slots + j, cells[j], startEdges[j]);
+                }
+                continue;
+            }
+            int c = current / slots;
+            int i = current % slots;
+            int[] cells = nodeCells[c];
+            int n = cells.length;
+            double[] distances = nodeDistances[c];
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    relax(current, c * slots + j, cells[j], distances[i * n + j]);
+                }
+            }
+            int[] edges = interEdges[c];
+            for (int e = 0; e < edges.length; e += 2) {
+                if (edges[e] == i) {
+                    int peer = edges[e + 1];
+                    int peerCluster = clusterOf(peer % width, peer / width);
+                    relax(current, peerCluster * slots + localIndex(peerCluster, peer),
+                            peer, octile(cells[i], peer));
+                }
+            }
+            if (c == goalCluster) {
+                relax(current, goalId, goalY * width + goalX, goalEdges[i]);
+            }
+        }
+        return INFINITY;
+    }
+
+    private void relax(int current, int id, int cell, double cost) {
+        if (cost == INFINITY) {
+            return;
+        }
+        double tentativeG = g[current] + cost;
+        boolean fresh = stamp[id] != generation;
+        if (!fresh && (state[id] == CLOSED || tentativeG >= g[id] - AStarEngine.COST_EPSILON)) {
+            return;
+        }
+        double h = AStarEngine.heuristic(cell % width, cell / width, goalX, goalY);
+        g[id] = tentativeG;
+        parent[id] = current;
+        if (fresh) {
+            stamp[id] = generation;
+            state[id] = OPEN;
+            open.push(id, tentativeG + h, h);
+            nodesPushed++;
+            peakOpenSize = Math.max(peakOpenSize, open.size());
+        } else {
+            open.decreaseKey(id, tentativeG + h, h);
+        }
+    }
+
+    // Turn the abstract path into grid cells, searching inside one cluster per edge
+    private void refine(int start, int goal) {
+        int hops = 0;
+        for (int id = goalId; id != -1; id = parent[id]) {
+            hops++;
+        }
+        int[] cells = new int[hops];
+        int i = hops;
+        for (int id = goalId; id != -1; id = parent[id]) {
+            cells[--i] = id == startId ? start : id == goalId ? goal : nodeCells[id / slots][id % slots];
+        }
+        pathLength = 0;
+        appendCell(start);
+        for (int k = 1; k < hops; k++) {
+            int from = cells[k - 1];
+            int to = cells[k];
+            int fromCluster = clusterOf(from % width, from / width);
+            if (fromCluster == clusterOf(to % width, to / width)) {
+                appendLocalPath(fromCluster, from, to);
+            } else {
+                pathCost += octile(from, to);
+                appendCell(to);
+            }
+        }
+    }
+
+    // Append the cells after from on a cheapest path to `to` inside the cluster
+    private void appendLocalPath(int cluster, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        localSearch(cluster, from, to, null, 0);
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int target = local(to, x0, y0);
+        int steps = 0;
+        for (int l = target; localParent[l] != -1; l = localParent[l]) {
+            steps++;
+        }
+        ensurePathCapacity(pathLength + steps);
+        int i = pathLength + steps;
+        for (int l = target; localParent[l] != -1; l = localParent[l]) {
+            path[--i] = (y0 + l / clusterSize) * width + x0 + l % clusterSize;
+        }
+        pathLength += steps;
+        pathCost += localG[target];
+    }
+
+    private void appendCell(int cell) {
+        ensurePathCapacity(pathLength + 1);
+        path[pathLength++] = cell;
+    }
+
+    private void ensurePathCapacity(int length) {
+        if (path.length < length) {
+            path = Arrays.copyOf(path, Math.max(length, path.length << 1));
+        }
+    }
+
+    // Costs from a cell to every entrance of its cluster, reusing the given array when it fits
+    private double[] connect(int cluster, int cell, double[] edges) {
+        int[] cells = nodeCells[cluster];
+        if (edges.length < cells.length) {
+            edges = new double[Math.max(cells.length, slots)];
+        }
+        localSearch(cluster, cell, -1, cells, 0);
+        for (int j = 0; j < cells.length; j++) {
+            edges[j] = localCost(cells[j]);
+        }
+        return edges;
+    }
+
+    // Cost to a cell of the cluster from the source of the last local search
+    private double localCost(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        int l = (y % clusterSize) * clusterSize + x % clusterSize;
+        return localStamp[l] == localGeneration ? localG[l] : INFINITY;
+    }
+
+    // Search from source bounded to one cluster: A* when target >= 0, otherwise
+    // Dijkstra until every cell in targets[firstTarget..] is settled
+    private void localSearch(int cluster, int source, int target, int[] targets, int firstTarget) {
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, width);
+        int y1 = Math.min(y0 + clusterSize, height);
+        if (++localGeneration == 0) {
+            Arrays.fill(localStamp, 0);
+            Arrays.fill(localTarget, 0);
+            localGeneration = 1;
+        }
+        localOpen.clear();
+        int targetsLeft = 0;
+        if (targets != null) {
+            for (int j = firstTarget; j < targets.length; j++) {
+                localTarget[local(targets[j], x0, y0)] = localGeneration;
+                targetsLeft++;
+            }
+            if (targetsLeft == 0) {
+                return;
+            }
+        }
+        int targetX = target < 0 ? 0 : target % width;
+        int targetY = target < 0 ? 0 : target / width;
+        int s = local(source, x0, y0);
+        int t = target < 0 ? -1 : local(target, x0, y0);
+        localStamp[s] = localGeneration;
+        localG[s] = 0;
+        localParent[s] = -1;
+        localOpen.push(s, 0, 0);
+        while (!localOpen.isEmpty()) {
+            int current = localOpen.poll();
+            if (current == t || (localTarget[current] == localGeneration && --targetsLeft == 0)) {
+                return;
+            }
+            localExpanded++;
+            int cx = x0 + current % clusterSize;
+            int cy = y0 + current / clusterSize;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1 || grid.isObstacle(nx, ny)) {
+                    continue;
+                }
+                int neighbor = (ny - y0) * clusterSize + (nx - x0);
+                double tentativeG = localG[current] + ((DX[d] != 0 && DY[d] != 0) ? SQRT2 : 1);
+                boolean fresh = localStamp[neighbor] != localGeneration;
+                if (!fresh && tentativeG >= localG[neighbor] - AStarEngine.COST_EPSILON) {
+                    continue;
+                }
+                double h = target < 0 ? 0 : AStarEngine.heuristic(nx, ny, targetX, targetY);
+                localG[neighbor] = tentativeG;
+                localParent[neighbor] = current;
+                if (fresh) {
+                    localStamp[neighbor] = localGeneration;
+                    localOpen.push(neighbor, tentativeG + h, h);
+                } else {
+                    // Consistent heuristic: an improved cell is still in the fringe
+                    localOpen.decreaseKey(neighbor, tentativeG + h, h);
+                }
+            }
+        }
+    }
+
+    private int local(int cell, int x0, int y0) {
+        return (cell / width - y0) * clusterSize + (cell % width - x0);
+    }
+
+    // Find the entrances along the east border of cluster c
+    private void buildEastBorder(int c) {
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        int x = (cx + 1) * clusterSize - 1;
+        if (cx + 1 >= clustersX) {
+            eastBorder[c] = new int[0];
+            return;
+        }
+        int y0 = cy * clusterSize;
+        int y1 = Math.min(y0 + clusterSize, height);
+        IntList pairs = new IntList();
+        int runStart = -1;
+        for (int y = y0; y <= y1; y++) {
+            boolean open = y < y1 && walkable(x, y) && walkable(x + 1, y);
+            if (open && runStart < 0) {
+                runStart = y;
+            } else if (!open && runStart >= 0) {
+                addTransitions(pairs, x, runStart, x + 1, runStart, 0, 1, y - runStart);
+                runStart = -1;
+            }
+            // Diagonal-only crossings inside the border, so no connection is lost
+            if (y + 1 < y1 && !straight(x, y, x + 1, y) && !straight(x, y + 1, x + 1, y + 1)) {
+                addLink(pairs, x, y, x + 1, y + 1);
+                addLink(pairs, x, y + 1, x + 1, y);
+            }
+        }
+        // Diagonal crossings at the two east corners, into the clusters north-east and south-east
+        if (y0 > 0 && !walkable(x + 1, y0) && !walkable(x, y0 - 1)) {
+            addLink(pairs, x, y0, x + 1, y0 - 1);
+        }
+        if (y1 < height && !walkable(x + 1, y1 - 1) && !walkable(x, y1)) {
+            addLink(pairs, x, y1 - 1, x + 1, y1);
+        }
+        eastBorder[c] = pairs.toArray();
+    }
+
+    // Find the entrances along the south border of cluster c
+    private void buildSouthBorder(int c) {
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        int y = (cy + 1) * clusterSize - 1;
+        if (cy + 1 >= clustersY) {
+            southBorder[c] = new int[0];
+            return;
+        }
+        int x0 = cx * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, width);
+        IntList pairs = new IntList();
+        int runStart = -1;
+        for (int x = x0; x <= x1; x++) {
+            boolean open = x < x1 && walkable(x, y) && walkable(x, y + 1);
+            if (open && runStart < 0) {
+                runStart = x;
+            } else if (!open && runStart >= 0) {
+                addTransitions(pairs, runStart, y, runStart, y + 1, 1, 0, x - runStart);
+                runStart = -1;
+            }
+            if (x + 1 < x1 && !straight(x, y, x, y + 1) && !straight(x + 1, y, x + 1, y + 1)) {
+                addLink(pairs, x, y, x + 1, y + 1);
+                addLink(pairs, x + 1, y, x, y + 1);
+            }
+        }
+        southBorder[c] = pairs.toArray();
+    }
+
+    // One transition in the middle of a narrow entrance, one at each end of a wide one
+    private void addTransitions(IntList pairs, int ax, int ay, int bx, int by, int dx, int dy, int length) {
+        if (length < WIDE_ENTRANCE) {
+            int mid = length / 2;
+            pairs.add((ay + dy * mid) * width + ax + dx * mid, (by + dy * mid) * width + bx + dx * mid);
+        } else {
+            int last = length - 1;
+            pairs.add(ay * width + ax, by * width + bx);
+            pairs.add((ay + dy * last) * width + ax + dx * last, (by + dy * last) * width + bx + dx * last);
+        }
+    }
+
+    private void addLink(IntList pairs, int ax, int ay, int bx, int by) {
+        if (walkable(ax, ay) && walkable(bx, by)) {
+            pairs.add(ay * width + ax, by * width + bx);
+        }
+    }
+
+    private boolean straight(int ax, int ay, int bx, int by) {
+        return walkable(ax, ay) && walkable(bx, by);
+    }
+
+    // Collect the entrances of cluster c from the borders around it and cost them
+    private void buildCluster(int c) {
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        IntList edges = new IntList();
+        collect(edges, c, eastBorder[c]);
+        collect(edges, c, southBorder[c]);
+        if (cx > 0) {
+            collect(edges, c, eastBorder[c - 1]);
+            if (cy > 0) {
+                collect(edges, c, eastBorder[c - 1 - clustersX]);
+            }
+            if (cy + 1 < clustersY) {
+                collect(edges, c, eastBorder[c - 1 + clustersX]);
+            }
+        }
+        if (cy > 0) {
+            collect(edges, c, southBorder[c - clustersX]);
+        }
+
+        IntList cells = new IntList();
+        int[] edgeArray = edges.toArray();
+        for (int e = 0; e < edgeArray.length; e += 2) {
+            int cell = edgeArray[e];
+            int index = cells.indexOf(cell);
+            if (index < 0) {
+                index = cells.size();
+                cells.add(cell);
+            }
+            edgeArray[e] = index;
+        }
+        int[] nodes = cells.toArray();
+        int n = nodes.length;
+        double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            // Costs are symmetric, so each search only has to settle the entrances after i
+            localSearch(c, nodes[i], -1, nodes, i + 1);
+            for (int j = i + 1; j < n; j++) {
+                double cost = localCost(nodes[j]);
+                distances[i * n + j] = cost;
+                distances[j * n + i] = cost;
+            }
+        }
+        nodeCells[c] = nodes;
+        nodeDistances[c] = distances;
+        interEdges[c] = edgeArray;
+    }
+
+    // Add the transitions of a border that have an end in cluster c, as (inside, outside)
+    private void collect(IntList edges, int c, int[] pairs) {
+        for (int p = 0; p < pairs.length; p += 2) {
+            int a = pairs[p];
+            int b = pairs[p + 1];
+            if (clusterOf(a % width, a / width) == c) {
+                edges.add(a, b);
+            } else if (clusterOf(b % width, b / width) == c) {
+                edges.add(b, a);
+            }
+        }
+    }
+
+    private int localIndex(int cluster, int cell) {
+        int[] cells = nodeCells[cluster];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == cell) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Cell " + cell + " is not an entrance of cluster " + cluster);
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    private double octile(int a, int b) {
+        return AStarEngine.heuristic(a % width, a / width, b % width, b / width);
+    }
+
+    private boolean walkable(int x, int y) {
+        return inBounds(x, y) && !grid.isObstacle(x, y);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    // Abstract nodes plus cells expanded by the cluster-bounded searches of the query
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return 0;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Growable int array used while building the abstraction
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        void add(int a, int b) {
+            add(a);
+            add(b);
+        }
+
+        int indexOf(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+import java.util.Arrays;
+
+// D* Lite planner that keeps its search between calls. It searches backwards
+// from the goal, so when obstacles change only the cells whose cost-to-goal is
+// affected are re-expanded, and when the start moves along the path nothing has
+// to be searched again. The planner listens to its Grid: setObstacle,
+// toggleObstacle and resetObstacles are picked up on the next search.
+//
+// Moves follow AStarEngine: 8 neighbors with costs 1 and sqrt(2), a move is
+// allowed whenever the cell moved into is free. Changing the goal or searching
+// another grid starts over from scratch.
+//
+// Internally costs are whole multiples of 2^-20 (sqrt(2) rounded to that step),
+// so g, rhs and keys are sums of integers that are exact in a double no matter
+// in which order they were added. D* Lite's key comparisons and g == rhs tests
+// rely on exact ties, which floating point sums along different routes break.
+public class IncrementalPlanner implements PathSearch, GridListener {
+    private static final double STRAIGHT = 1 << 20;
+    private static final double DIAGONAL = Math.round(Math.sqrt(2) * STRAIGHT);
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private Grid grid;
+    private int width;
+    private int height;
+    private int start = -1;
+    private int goal = -1;
+    private int lastStart;      // Start when km was last updated
+    private double km;          // Sum of heuristic shifts caused by start moves
+    private boolean reset = true;
+
+    private double[] g = new double[0];
+    private double[] rhs = new double[0];   // One-step lookahead of g
+    private int[] stamp = new int[0];        // g and rhs are infinite unless stamp matches
+    private boolean[] queued = new boolean[0];
+    private int generation;
+    private final IndexedMinHeap open = new IndexedMinHeap(0);
+
+    // Cells changed since the last search
+    private int[] changed = new int[16];
+    private int changedCount;
+
+    private int[] path = new int[16];
+    private int pathLength;
+    private double pathCost;
+
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private int reopens;
+    private long elapsedNanos;
+
+    public IncrementalPlanner(Grid grid) {
+        attach(grid);
+    }
+
+    // Stop listening to the grid
+    public void detach() {
+        if (grid != null) {
+            grid.removeListener(this);
+        }
+    }
+
+    @Override
+    public void cellChanged(int x, int y) {
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount << 1);
+        }
+        changed[changedCount++] = y * width + x;
+    }
+
+    @Override
+    public void gridReset() {
+        reset = true;
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (!grid.hasUniformCosts()) {
+            throw new IllegalArgumentException("IncrementalPlanner needs a grid where every cell costs 1");
+        }
+        long startTime = System.nanoTime();
+        boolean found = run(grid, startX, startY, goalX, goalY);
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    private boolean run(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (grid != this.grid) {
+            detach();
+            attach(grid);
+        }
+        pathLength = 0;
+        pathCost = 0;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = open.size();
+        reopens = 0;
+        if (!inBounds(startX, startY) || !inBounds(goalX, goalY) || grid.isObstacle(goalX, goalY)) {
+            return false;
+        }
+
+        int newGoal = goalY * width + goalX;
+        start = startY * width + startX;
+        if (reset || newGoal != goal) {
+            initialize(newGoal);
+        } else {
+            // The heuristic is measured from the start; moving it lowers every key by at most this much
+            km += heuristic(lastStart, start);
+            lastStart = start;
+            applyChanges();
+        }
+
+        computeShortestPath();
+        if (value(start) == INFINITY) {
+            return false;
+        }
+        return storePath();
+    }
+
+    private void attach(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        int cells = grid.cellCount("IncrementalPlanner");
+        if (g.length < cells) {
+            g = new double[cells];
+            rhs = new double[cells];
+            stamp = new int[cells];
+            queued = new boolean[cells];
+            generation = 0;
+        }
+        reset = true;
+        grid.addListener(this);
+    }
+
+    private void initialize(int newGoal) {
+        goal = newGoal;
+        lastStart = start;
+        km = 0;
+        reset = false;
+        changedCount = 0;
+        open.ensureCapacity(width * height);
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        touch(goal);
+        rhs[goal] = 0;
+        push(goal);
+    }
+
+    // Re-evaluate every cell that can step into a changed cell
+    private void applyChanges() {
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changed[i];
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (inBounds(nx, ny)) {
+                    updateVertex(ny * width + nx);
+                }
+            }
+        }
+        changedCount = 0;
+    }
+
+    private void computeShortestPath() {
+        while (!open.isEmpty()) {
+            double startKey = Math.min(gOf(start), rhsOf(start));
+            double startK1 = startKey + km;
+            double topK1 = open.peekKey();
+            double topK2 = open.peekTie();
+            if (!keyLess(topK1, topK2, startK1, startKey) && gOf(start) == rhsOf(start)) {
+                break;
+            }
+            int u = open.peek();
+            double oldK1 = topK1;
+            double oldK2 = topK2;
+            double value = Math.min(gOf(u), rhsOf(u));
+            double newK1 = value + heuristic(start, u) + km;
+            if (keyLess(oldK1, oldK2, newK1, value)) {
+                // Key is out of date because the start moved
+                open.update(u, newK1, value);
+                continue;
+            }
+            open.poll();
+            queued[u] = false;
+            nodesExpanded++;
+            if (gOf(u) > rhsOf(u)) {
+                g[u] = rhs[u];
+                updatePredecessors(u);
+            } else {
+                // Underconsistent: the cell got more expensive, raise it and re-evaluate it too
+                reopens++;
+                g[u] = INFINITY;
+                updateVertex(u);
+                updatePredecessors(u);
+            }
+        }
+    }
+
+    private static boolean keyLess(double k1, double k2, double otherK1, double otherK2) {
+        return k1 < otherK1 || (k1 == otherK1 && k2 < otherK2);
+    }
+
+    private void updatePredecessors(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        for (int d = 0; d < 8; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (inBounds(nx, ny)) {
+                updateVertex(ny * width + nx);
+            }
+        }
+    }
+
+    private void updateVertex(int u) {
+        touch(u);
+        if (u != goal) {
+            int best = bestSuccessor(u);
+            rhs[u] = best < 0 ? INFINITY : scaledStep(u, best) + gOf(best);
+        }
+        if (queued[u]) {
+            if (g[u] != rhs[u]) {
+                double value = Math.min(g[u], rhs[u]);
+                open.update(u, value + heuristic(start, u) + km, value);
+            } else {
+                open.remove(u);
+                queued[u] = false;
+            }
+        } else if (g[u] != rhs[u]) {
+            push(u);
+        }
+    }
+
+    // Neighbor of u with the cheapest step-plus-cost-to-goal, or -1 if none is reachable
+    private int bestSuccessor(int u) {
+        int x = u % width;
+        int y = u / width;
+        double best = INFINITY;
+        int bestCell = -1;
+        for (int d = 0; d < 8; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (!inBounds(nx, ny) || grid.isObstacle(nx, ny)) {
+                continue;
+            }
+            int s = ny * width + nx;
+            double cost = ((DX[d] != 0 && DY[d] != 0) ? DIAGONAL : STRAIGHT) + gOf(s);
+            if (cost < best) {
+                best = cost;
+                bestCell = s;
+            }
+        }
+        return bestCell;
+    }
+
+    private double stepCost(int a, int b) {
+        return (a % width != b % width && a / width != b / width) ? SQRT2 : 1;
+    }
+
+    private double scaledStep(int a, int b) {
+        return (a % width != b % width && a / width != b / width) ? DIAGONAL : STRAIGHT;
+    }
+
+    private void push(int u) {
+        double value = Math.min(g[u], rhs[u]);
+        open.push(u, value + heuristic(start, u) + km, value);
+        queued[u] = true;
+        nodesPushed++;
+        peakOpenSize = Math.max(peakOpenSize, open.size());
+    }
+
+    // Follow the cheapest successors from the start down to the goal
+    private boolean storePath() {
+        int cell = start;
+        pathLength = 0;
+        appendCell(cell);
+        int limit = width * height;
+        while (cell != goal) {
+            int next = bestSuccessor(cell);
+            if (next < 0 || pathLength > limit) {
+                pathLength = 0;
+                pathCost = 0;
+                return false;
+            }
+            pathCost += stepCost(cell, next);
+            appendCell(next);
+            cell = next;
+        }
+        return true;
+    }
+
+    private void appendCell(int cell) {
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, pathLength << 1);
+        }
+        path[pathLength++] = cell;
+    }
+
+    // Make g and rhs of a cell belong to the current search, starting at infinity
+    private void touch(int cell) {
+        if (stamp[cell] != generation) {
+            stamp[cell] = generation;
+            g[cell] = INFINITY;
+            rhs[cell] = INFINITY;
+            queued[cell] = false;
+        }
+    }
+
+    private double gOf(int cell) {
+        return stamp[cell] == generation ? g[cell] : INFINITY;
+    }
+
+    private double rhsOf(int cell) {
+        return stamp[cell] == generation ? rhs[cell] : INFINITY;
+    }
+
+    private double value(int cell) {
+        return Math.min(gOf(cell), rhsOf(cell));
+    }
+
+    // Octile distance in scaled units
+    private double heuristic(int a, int b) {
+        int dx = Math.abs(a % width - b % width);
+        int dy = Math.abs(a / width - b / width);
+        return (dx + dy) * STRAIGHT + (DIAGONAL - 2 * STRAIGHT) * Math.min(dx, dy);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    // Cells raised because a change made them more expensive
+    @Override
+    public int getReopens() {
+        return reopens;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+
+// Binary min-heap of grid cell indices keyed by a double priority.
+// Every cell remembers its slot in the heap, so a cheaper route to a node
+// already in the fringe is a real decrease-key instead of a duplicate entry.
+// Equal keys are broken by a secondary value (the search passes h), which keeps
+// open maps from expanding every cell on the same f-cost contour.
+public class IndexedMinHeap {
+    private int[] heap;      // Cell index stored in each heap slot
+    private double[] keys;   // Priority of the cell in each heap slot
+    private double[] ties;   // Tie-breaker of the cell in each heap slot (lower wins)
+    private int[] slotOf;    // Heap slot of each cell (only valid while it is queued)
+    private int size;
+
+    public IndexedMinHeap(int cellCount) {
+        heap = new int[Math.max(16, Math.min(cellCount, 1024))];
+        keys = new double[heap.length];
+        ties = new double[heap.length];
+        slotOf = new int[cellCount];
+    }
+
+    // Make room for cellCount cells; keeps the current arrays if they are big enough
+    public void ensureCapacity(int cellCount) {
+        if (slotOf.length < cellCount) {
+            slotOf = new int[cellCount];
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void push(int cell, double key, double tie) {
+        if (size == heap.length) {
+            int newLength = heap.length << 1;
+            heap = Arrays.copyOf(heap, newLength);
+            keys = Arrays.copyOf(keys, newLength);
+            ties = Arrays.copyOf(ties, newLength);
+        }
+        siftUp(size++, cell, key, tie);
+    }
+
+    // Lower the key of a cell that is already in the heap
+    public void decreaseKey(int cell, double key, double tie) {
+        siftUp(slotOf[cell], cell, key, tie);
+    }
+
+    // Change the key of a queued cell in either direction
+    public void update(int cell, double key, double tie) {
+        int slot = slotOf[cell];
+        siftUp(slot, cell, key, tie);
+        slot = slotOf[cell];
+        siftDown(slot, cell, keys[slot], ties[slot]);
+    }
+
+    // Take a queued cell out of the heap
+    public void remove(int cell) {
+        int slot = slotOf[cell];
+        int last = heap[--size];
+        if (slot < size) {
+            double lastKey = keys[size];
+            double lastTie = ties[size];
+            siftUp(slot, last, lastKey, lastTie);
+            slot = slotOf[last];
+            siftDown(slot, last, keys[slot], ties[slot]);
+        }
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public double peekTie() {
+        return ties[0];
+    }
+
+    // Cell in a heap slot, 0 <= slot < size(); walking all slots visits every queued cell
+    public int get(int slot) {
+        return heap[slot];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public int poll() {
+        int top = heap[0];
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last, keys[size], ties[size]);
+        }
+        return top;
+    }
+
+    private static boolean less(double key, double tie, double otherKey, double otherTie) {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+
+    // Copy the entry in slot from into slot to
+    private void move(int from, int to) {
+        int cell = heap[from];
+        heap[to] = cell;
+        keys[to] = keys[from];
+        ties[to] = ties[from];
+        slotOf[cell] = to;
+    }
+
+    private void place(int slot, int cell, double key, double tie) {
+        heap[slot] = cell;
+        keys[slot] = key;
+        ties[slot] = tie;
+        slotOf[cell] = slot;
+    }
+
+    private void siftUp(int slot, int cell, double key, double tie) {
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            if (!less(key, tie, keys[parentSlot], ties[parentSlot])) {
+                break;
+            }
+            move(parentSlot, slot);
+            slot = parentSlot;
+        }
+        place(slot, cell, key, tie);
+    }
+
+    private void siftDown(int slot, int cell, double key, double tie) {
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = (slot << 1) + 1;
+            int right = child + 1;
+            if (right < size && less(keys[right], ties[right], keys[child], ties[child])) {
+                child = right;
+            }
+            if (!less(keys[child], ties[child], key, tie)) {
+                break;
+            }
+            move(child, slot);
+            slot = child;
+        }
+        place(slot, cell, key, tie);
+    }
+}
@@ -0,0 +1,416 @@
+import java.util.Arrays;
+
+// Jump Point Search for 8-connected grids with costs 1 and sqrt(2), the same moves
+// AStar.getNeighbors allows (including diagonal steps past blocked corners).
+// Instead of pushing every neighbor, JPS jumps along straight and diagonal lines
+// and only stops at cells with a forced neighbor, which prunes the symmetric
+// paths that make plain A* expand whole open areas. Paths have the same cost as
+// A* under the octile heuristic; the reported path lists every cell, like aStar.
+//
+// Horizontal jumps scan whole 64-cell words of the grid rows at once. With
+// precomputed = true (JPS+), the distance to the next jump point or wall is
+// stored for every cell and the four straight directions, and straight jumps
+// become table lookups. The tables belong to the grid (Grid.getJumpTable): built
+// once per grid version and shared read-only by every engine on every thread.
+public class JumpPointSearch implements PathSearch {
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+
+    private final boolean precomputed;
+
+    private Grid grid;
+    private int width;
+    private int height;
+    private int wordsPerRow;
+    private long tailMask; // Padding bits of the last word in a row, treated as blocked
+    private int goalX;
+    private int goalY;
+
+    private double[] g = new double[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] state = new byte[0];
+    private int generation;
+    private final IndexedMinHeap open = new IndexedMinHeap(0);
+
+    private int[][] jumpTable; // JPS+ distances of the grid searched, shared with other engines
+
+    private int[] path = new int[16];
+    private int pathLength;
+    private double pathCost;
+
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private long elapsedNanos;
+
+    public JumpPointSearch(boolean precomputed) {
+        this.precomputed = precomputed;
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (!grid.hasUniformCosts()) {
+            throw new IllegalArgumentException("JumpPointSearch needs a grid where every cell costs 1");
+        }
+        long startTime = System.nanoTime();
+        boolean found = run(grid, startX, startY, goalX, goalY);
+        elapsedNanos = System.nanoTime() - startTime;
+        return found;
+    }
+
+    private boolean run(Grid grid, int startX, int startY, int goalX, int goalY) {
+        bind(grid);
+        this.goalX = goalX;
+        this.goalY = goalY;
+        pathLength = 0;
+        pathCost = 0;
+        nodesExpanded = 0;
+        nodesPushed = 0;
+        peakOpenSize = 0;
+        if (!inBounds(startX, startY) || !walkable(goalX, goalY)) {
+            return false;
+        }
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        stamp[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        state[start] = OPEN;
+        double startH = AStarEngine.heuristic(startX, startY, goalX, goalY);
+        open.push(start, startH, startH);
+        nodesPushed = 1;
+        peakOpenSize = 1;
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == goal) {
+                pathCost = g[goal];
+                storePath(goal);
+                return true;
+            }
+            state[current] = CLOSED;
+            nodesExpanded++;
+
+            int x = current % width;
+            int y = current / width;
+            int p = parent[current];
+            if (p < 0) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if ((dx != 0 || dy != 0) && walkable(x + dx, y + dy)) {
+                            relax(current, x, y, jump(x, y, dx, dy));
+                        }
+                    }
+                }
+                continue;
+            }
+            int dx = Integer.signum(x - p % width);
+            int dy = Integer.signum(y - p / width);
+            if (dx != 0 && dy != 0) {
+                if (walkable(x, y + dy)) {
+                    relax(current, x, y, jump(x, y, 0, dy));
+                }
+                if (walkable(x + dx, y)) {
+                    relax(current, x, y, jump(x, y, dx, 0));
+                }
+                if (walkable(x + dx, y + dy)) {
+                    relax(current, x, y, jump(x, y, dx, dy));
+                }
+                if (!walkable(x - dx, y) && walkable(x - dx, y + dy)) {
+                    relax(current, x, y, jump(x, y, -dx, dy));
+                }
+                if (!walkable(x, y - dy) && walkable(x + dx, y - dy)) {
+                    relax(current, x, y, jump(x, y, dx, -dy));
+                }
+            } else if (dx == 0) {
+                if (walkable(x, y + dy)) {
+                    relax(current, x, y, jump(x, y, 0, dy));
+                }
+                if (!walkable(x + 1, y) && walkable(x + 1, y + dy)) {
+                    relax(current, x, y, jump(x, y, 1, dy));
+                }
+                if (!walkable(x - 1, y) && walkable(x - 1, y + dy)) {
+                    relax(current, x, y, jump(x, y, -1, dy));
+                }
+            } else {
+                if (walkable(x + dx, y)) {
+                    relax(current, x, y, jump(x, y, dx, 0));
+                }
+                if (!walkable(x, y + 1) && walkable(x + dx, y + 1)) {
+                    relax(current, x, y, jump(x, y, dx, 1));
+                }
+                if (!walkable(x, y - 1) && walkable(x + dx, y - 1)) {
+                    relax(current, x, y, jump(x, y, dx, -1));
+                }
+            }
+        }
+        return false;
+    }
+
+    // Push or decrease-key the jump point found from (x, y)
+    private void relax(int current, int x, int y, int jumpPoint) {
+        if (jumpPoint < 0) {
+            return;
+        }
+        int jx = jumpPoint % width;
+        int jy = jumpPoint / width;
+        double tentativeG = g[current] + AStarEngine.heuristic(x, y, jx, jy);
+        boolean fresh = stamp[jumpPoint] != generation;
+        if (!fresh && (state[jumpPoint] == CLOSED || tentativeG >= g[jumpPoint] - AStarEngine.COST_EPSILON)) {
+            return;
+        }
+        double h = AStarEngine.heuristic(jx, jy, goalX, goalY);
+        g[jumpPoint] = tentativeG;
+        parent[jumpPoint] = current;
+        if (fresh) {
+            stamp[jumpPoint] = generation;
+            state[jumpPoint] = OPEN;
+            open.push(jumpPoint, tentativeG + h, h);
+            nodesPushed++;
+            if (open.size() > peakOpenSize) {
+                peakOpenSize = open.size();
+            }
+        } else {
+            open.decreaseKey(jumpPoint, tentativeG + h, h);
+        }
+    }
+
+    // Jump from (x, y) one step in direction (dx, dy) and onward; returns the jump point cell or -1
+    private int jump(int x, int y, int dx, int dy) {
+        if (dx == 0 || dy == 0) {
+            return jumpStraight(x, y, dx, dy);
+        }
+        x += dx;
+        y += dy;
+        while (walkable(x, y)) {
+            if (x == goalX && y == goalY) {
+                return y * width + x;
+            }
+            if ((walkable(x - dx, y + dy) && !walkable(x - dx, y))
+                    || (walkable(x + dx, y - dy) && !walkable(x, y - dy))) {
+                return y * width + x;
+            }
+            if (jumpStraight(x, y, dx, 0) >= 0 || jumpStraight(x, y, 0, dy) >= 0) {
+                return y * width + x;
+            }
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    // First jump point strictly after the walkable cell (x, y) along a row or column, or -1
+    private int jumpStraight(int x, int y, int dx, int dy) {
+        if (precomputed) {
+            int direction = dx > 0 ? JumpTable.EAST : dx < 0 ? JumpTable.WEST : dy > 0 ? JumpTable.SOUTH : JumpTable.NORTH;
+            int distance = jumpTable[direction][y * width + x];
+            int reach = Math.abs(distance);
+            int goalDistance = dx != 0
+                    ? (goalY == y ? (goalX - x) * dx : -1)
+                    : (goalX == x ? (goalY - y) * dy : -1);
+            if (goalDistance > 0 && goalDistance <= reach) {
+                return goalY * width + goalX;
+            }
+            return distance > 0 ? (y + dy * distance) * width + x + dx * distance : -1;
+        }
+        if (dx > 0) {
+            return jumpEast(x + 1, y);
+        }
+        if (dx < 0) {
+            return jumpWest(x - 1, y);
+        }
+        return jumpVertical(x, y + dy, dy);
+    }
+
+    // Scan row y eastward from x (inclusive), a word of 64 cells at a time
+    private int jumpEast(int x, int y) {
+        int w = x >>> 6;
+        long startMask = -1L << (x & 63);
+        int goalWord = goalY == y && goalX >= x ? goalX >>> 6 : -1;
+        while (true) {
+            long blocked = blockedWord(y, w);
+            long up = blockedWord(y - 1, w);
+            long down = blockedWord(y + 1, w);
+            // Bit i of upNext is the cell right of bit i in the row above
+            long upNext = (up >>> 1) | (blockedWord(y - 1, w + 1) << 63);
+            long downNext = (down >>> 1) | (blockedWord(y + 1, w + 1) << 63);
+            long forced = ((up & ~upNext) | (down & ~downNext)) & startMask;
+            long stop = blocked & startMask;
+            int stopBit = stop == 0 ? 64 : Long.numberOfTrailingZeros(stop);
+            int eventBit = forced == 0 ? 64 : Long.numberOfTrailingZeros(forced);
+            if (w == goalWord) {
+                eventBit = Math.min(eventBit, goalX & 63);
+            }
+            if (eventBit < stopBit) {
+                return y * width + (w << 6) + eventBit;
+            }
+            if (stop != 0) {
+                return -1;
+            }
+            w++;
+            startMask = -1L;
+        }
+    }
+
+    // Scan row y westward from x (inclusive), a word of 64 cells at a time
+    private int jumpWest(int x, int y) {
+        if (x < 0) {
+            return -1;
+        }
+        int w = x >>> 6;
+        long endMask = -1L >>> (63 - (x & 63));
+        int goalWord = goalY == y && goalX <= x ? goalX >>> 6 : -2;
+        while (true) {
+            long blocked = blockedWord(y, w);
+            long up = blockedWord(y - 1, w);
+            long down = blockedWord(y + 1, w);
+            // Bit i of upPrevious is the cell left of bit i in the row above
+            long upPrevious = (up << 1) | (blockedWord(y - 1, w - 1) >>> 63);
+            long downPrevious = (down << 1) | (blockedWord(y + 1, w - 1) >>> 63);
+            long forced = ((up & ~upPrevious) | (down & ~downPrevious)) & endMask;
+            long stop = blocked & endMask;
+            int stopBit = 63 - Long.numberOfLeadingZeros(stop);
+            int eventBit = 63 - Long.numberOfLeadingZeros(forced);
+            if (w == goalWord) {
+                eventBit = Math.max(eventBit, goalX & 63);
+            }
+            if (eventBit > stopBit) {
+                return y * width + (w << 6) + eventBit;
+            }
+            if (stop != 0) {
+                return -1;
+            }
+            w--;
+            endMask = -1L;
+        }
+    }
+
+    // Scan column x from y (inclusive) in direction dy
+    private int jumpVertical(int x, int y, int dy) {
+        while (walkable(x, y)) {
+            if ((x == goalX && y == goalY) || forcedVertical(x, y, dy)) {
+                return y * width + x;
+            }
+            y += dy;
+        }
+        return -1;
+    }
+
+    private boolean forcedVertical(int x, int y, int dy) {
+        return (walkable(x + 1, y + dy) && !walkable(x + 1, y))
+                || (walkable(x - 1, y + dy) && !walkable(x - 1, y));
+    }
+
+    // Obstacle bits of a row word; rows and words outside the grid count as fully blocked
+    private long blockedWord(int y, int w) {
+        if (y < 0 || y >= height || w < 0 || w >= wordsPerRow) {
+            return -1L;
+        }
+        long word = grid.getRowWord(y, w);
+        return w == wordsPerRow - 1 ? word | tailMask : word;
+    }
+
+    private boolean walkable(int x, int y) {
+        return inBounds(x, y) && !grid.isObstacle(x, y);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private void bind(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        wordsPerRow = grid.getWordsPerRow();
+        tailMask = (width & 63) == 0 ? 0 : -1L << (width & 63);
+        int cells = grid.cellCount("JumpPointSearch");
+        if (g.length < cells) {
+            g = new double[cells];
+            parent = new int[cells];
+            stamp = new int[cells];
+            state = new byte[cells];
+            generation = 0;
+        }
+        open.ensureCapacity(cells);
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        if (precomputed) {
+            jumpTable = grid.getJumpTable().distances;
+        }
+    }
+
+    // Expand the jump point chain into every cell along the path
+    private void storePath(int goal) {
+        int length = 1;
+        for (int cell = goal; parent[cell] != -1; cell = parent[cell]) {
+            length += steps(cell, parent[cell]);
+        }
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length << 1)];
+        }
+        int i = length;
+        path[--i] = goal;
+        for (int cell = goal; parent[cell] != -1; cell = parent[cell]) {
+            int from = parent[cell];
+            int x = cell % width;
+            int y = cell / width;
+            int dx = Integer.signum(from % width - x);
+            int dy = Integer.signum(from / width - y);
+            for (int s = steps(cell, from); s > 0; s--) {
+                x += dx;
+                y += dy;
+                path[--i] = y * width + x;
+            }
+        }
+        pathLength = length;
+    }
+
+    private int steps(int a, int b) {
+        return Math.max(Math.abs(a % width - b % width), Math.abs(a / width - b / width));
+    }
+
+    @Override
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return 0;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
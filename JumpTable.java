@@ -0,0 +1,73 @@
+// JPS+ straight jump distances of one grid version: for every cell and each of
+// the four straight directions, > 0 is the distance to the next jump point and
+// <= 0 is minus the number of free cells before a wall. Grid.getJumpTable builds
+// one per grid version; it never changes afterwards, so every JumpPointSearch on
+// every thread reads the same table instead of building its own.
+final class JumpTable {
+    static final int EAST = 0;
+    static final int WEST = 1;
+    static final int SOUTH = 2; // +y
+    static final int NORTH = 3; // -y
+
+    final int version;        // Grid version the distances describe
+    final int[][] distances;  // [direction][y * width + x]
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+
+    JumpTable(Grid grid) {
+        this.grid = grid;
+        this.version = grid.getVersion();
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = grid.cellCount("JPS+ jump tables");
+        distances = new int[4][cells];
+        int[] east = distances[EAST];
+        int[] west = distances[WEST];
+        int[] south = distances[SOUTH];
+        int[] north = distances[NORTH];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = width - 1; x >= 0; x--) {
+                east[row + x] = nextDistance(x + 1, y, forcedHorizontal(x + 1, y, 1), x + 1 < width ? east[row + x + 1] : 0);
+            }
+            for (int x = 0; x < width; x++) {
+                west[row + x] = nextDistance(x - 1, y, forcedHorizontal(x - 1, y, -1), x > 0 ? west[row + x - 1] : 0);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = height - 1; y >= 0; y--) {
+                south[y * width + x] = nextDistance(x, y + 1, forcedVertical(x, y + 1, 1), y + 1 < height ? south[(y + 1) * width + x] : 0);
+            }
+            for (int y = 0; y < height; y++) {
+                north[y * width + x] = nextDistance(x, y - 1, forcedVertical(x, y - 1, -1), y > 0 ? north[(y - 1) * width + x] : 0);
+            }
+        }
+    }
+
+    // Table entry for a cell whose next cell along the direction is (nx, ny)
+    private int nextDistance(int nx, int ny, boolean nextForced, int nextEntry) {
+        if (!walkable(nx, ny)) {
+            return 0;
+        }
+        if (nextForced) {
+            return 1;
+        }
+        return nextEntry > 0 ? nextEntry + 1 : nextEntry - 1;
+    }
+
+    private boolean forcedHorizontal(int x, int y, int dx) {
+        return (walkable(x + dx, y + 1) && !walkable(x, y + 1))
+                || (walkable(x + dx, y - 1) && !walkable(x, y - 1));
+    }
+
+    private boolean forcedVertical(int x, int y, int dy) {
+        return (walkable(x + 1, y + dy) && !walkable(x + 1, y))
+                || (walkable(x - 1, y + dy) && !walkable(x - 1, y));
+    }
+
+    private boolean walkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && !grid.isObstacle(x, y);
+    }
+}
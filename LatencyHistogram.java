@@ -0,0 +1,146 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear histogram of non-negative long values (nanoseconds here), in the style
+// of HdrHistogram: values below 256 get a bucket each, and every power of two above
+// is split into 128 equal buckets, so a recorded value is off by less than 1% and
+// the whole range of long fits in 7296 counters. Recording is lock-free and takes
+// no allocation; many threads can record into one histogram at once.
+//
+// The counters and the max are striped like a LongAdder: a thread records into the
+// stripe its id picks, so threads of one pool write to different stripes instead of
+// contending for the same bucket and the same max. A stripe is created by its first
+// record; reads add the stripes up. Percentiles are read without stopping the
+// recorders, so a read racing with records may see some of them and not others.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;  // Buckets per power of two
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS; // Values below this are exact
+    private static final int BUCKETS = ((63 - SUB_BITS) << SUB_BITS) + SUB_BUCKETS;
+    // Twice the processors, rounded up to a power of two, at most 64
+    private static final int STRIPES =
+            Math.min(64, Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1) << 1);
+
+    private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final LongAdder sum = new LongAdder();
+
+    private static final class Stripe {
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final AtomicLong max = new AtomicLong();
+    }
+
+    // Negative values count as 0
+    public void record(long value) {
+        value = Math.max(0, value);
+        int index = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe());
+            stripe = stripes.get(index);
+        }
+        stripe.counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        long seen = stripe.max.get();
+        while (value > seen && !stripe.max.compareAndSet(seen, value)) {
+            seen = stripe.max.get();
+        }
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (long count : mergedCounts()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getMax() {
+        long max = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripes.get(s);
+            if (stripe != null) {
+                max = Math.max(max, stripe.max.get());
+            }
+        }
+        return max;
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Smallest recorded value that percentile percent of the values do not exceed,
+    // rounded up to its bucket's upper end; 0 if nothing was recorded
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = mergedCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long max = getMax();
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperEnd(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripes.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    stripe.counts.set(i, 0);
+                }
+                stripe.max.set(0);
+            }
+        }
+        sum.reset();
+    }
+
+    // Count of each bucket over all stripes
+    private long[] mergedCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripes.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += stripe.counts.get(i);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // value >>> shift keeps the top SUB_BITS + 1 bits, 128..255
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value that lands in the bucket
+    private static long upperEnd(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long top = bucket - ((long) shift << SUB_BITS);
+        return ((top + 1) << shift) - 1;
+    }
+}
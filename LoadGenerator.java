@@ -0,0 +1,232 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load-generating client for PathServer: opens a few connections, keeps a fixed
+// number of queries outstanding on each (the pipeline depth) between random
+// endpoints on one grid, and reports throughput and latency percentiles.
+//
+//   java LoadGenerator [--port 7420] [--connections 4] [--pipeline 64]
+//                      [--seconds 10] [--warmup 2] [--grid 0] [--mode ASTAR] [--seed 1]
+//
+// Latency is from writing a query to reading its answer, so it includes time the
+// query spent queued behind the others in flight; with a deeper pipeline
+// throughput rises until the workers are saturated and then only latency grows.
+// Queries sent during the warm-up are answered but not counted.
+public class LoadGenerator {
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder badRequests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private int port = PathServer.DEFAULT_PORT;
+    private int connections = 4;
+    private int pipeline = 64;
+    private double seconds = 10;
+    private double warmup = 2;
+    private int gridIndex;
+    private SearchMode mode = SearchMode.ASTAR;
+    private long seed = 1;
+    private long measureFrom;
+    private long sendUntil;
+
+    private LoadGenerator(String[] options) {
+        for (int i = 0; i + 1 < options.length; i += 2) {
+            String value = options[i + 1];
+            switch (options[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(value);
+                    break;
+                case "--pipeline":
+                    pipeline = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Double.parseDouble(value);
+                    break;
+                case "--warmup":
+                    warmup = Double.parseDouble(value);
+                    break;
+                case "--grid":
+                    gridIndex = Integer.parseInt(value);
+                    break;
+                case "--mode":
+                    mode = SearchMode.valueOf(value.toUpperCase());
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + options[i]);
+            }
+        }
+        if (options.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for " + options[options.length - 1]);
+        }
+        if (connections <= 0 || pipeline <= 0 || seconds <= 0 || warmup < 0) {
+            throw new IllegalArgumentException("Connections, pipeline and seconds must be positive");
+        }
+    }
+
+    private void run() throws Exception {
+        long now = System.nanoTime();
+        measureFrom = now + (long) (warmup * 1e9);
+        sendUntil = measureFrom + (long) (seconds * 1e9);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            Client client = new Client(seeds.split());
+            threads.add(new Thread(client::send, "load-sender-" + c));
+            threads.add(new Thread(client::receive, "load-receiver-" + c));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long answered = found.sum() + notFound.sum() + badRequests.sum() + failures.sum();
+        System.out.printf("%d connections x %d in flight, %s on grid %d, %.1f s after %.1f s warm-up%n",
+                connections, pipeline, mode, gridIndex, seconds, warmup);
+        System.out.printf("%d queries, %.0f/s: %d found, %d without a path, %d bad, %d failed%n",
+                answered, answered / seconds, found.sum(), notFound.sum(), badRequests.sum(), failures.sum());
+        System.out.printf("latency us: p50 %.1f  p99 %.1f  p99.9 %.1f  max %.1f  mean %.1f%n",
+                latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3,
+                latency.getValueAtPercentile(99.9) / 1e3, latency.getMax() / 1e3, latency.getMean() / 1e3);
+    }
+
+    // One connection. Query ids are slots in sentAt; a slot is taken from free for
+    // each query and returned when its answer arrives, which also caps the queries
+    // in flight at the pipeline depth.
+    private final class Client {
+        private final SplittableRandom random;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final int width;
+        private final int height;
+        private final BlockingQueue<Integer> free = new ArrayBlockingQueue<>(pipeline);
+        private final AtomicLongArray sentAt = new AtomicLongArray(pipeline);
+
+        Client(SplittableRandom random) throws IOException {
+            this.random = random;
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), IO_BUFFER_BYTES));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), IO_BUFFER_BYTES));
+            int gridCount = in.readInt();
+            if (gridIndex < 0 || gridIndex >= gridCount) {
+                socket.close();
+                throw new IllegalArgumentException("Server has " + gridCount + " grid(s), no grid " + gridIndex);
+            }
+            int w = 0;
+            int h = 0;
+            for (int g = 0; g < gridCount; g++) {
+                int gridWidth = in.readInt();
+                int gridHeight = in.readInt();
+                if (g == gridIndex) {
+                    w = gridWidth;
+                    h = gridHeight;
+                }
+            }
+            width = w;
+            height = h;
+            for (int slot = 0; slot < pipeline; slot++) {
+                free.add(slot);
+            }
+        }
+
+        void send() {
+            try {
+                while (System.nanoTime() < sendUntil) {
+                    Integer slot = free.poll();
+                    if (slot == null) {
+                        // Pipeline full: push out what is buffered, then wait for an answer
+                        out.flush();
+                        slot = free.take();
+                    }
+                    sentAt.set(slot, System.nanoTime());
+                    out.writeInt(slot);
+                    out.writeInt(gridIndex);
+                    out.writeInt(random.nextInt(width));
+                    out.writeInt(random.nextInt(height));
+                    out.writeInt(random.nextInt(width));
+                    out.writeInt(random.nextInt(height));
+                    out.writeByte(mode.ordinal());
+                }
+                // No more queries: the server answers the rest and then closes
+                out.flush();
+                socket.shutdownOutput();
+            } catch (IOException e) {
+                System.err.println("Send failed: " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void receive() {
+            byte[] path = new byte[256];
+            try {
+                while (true) {
+                    int slot;
+                    try {
+                        slot = in.readInt();
+                    } catch (EOFException e) {
+                        return;
+                    }
+                    byte status = in.readByte();
+                    in.readDouble();
+                    int length = in.readInt();
+                    if (length > path.length) {
+                        path = new byte[Math.max(length, path.length * 2)];
+                    }
+                    in.readFully(path, 0, length);
+                    long received = System.nanoTime();
+                    long sent = sentAt.get(slot);
+                    free.add(slot);
+                    if (sent < measureFrom || sent >= sendUntil) {
+                        continue;
+                    }
+                    latency.record(received - sent);
+                    if (status == PathServer.FOUND) {
+                        found.increment();
+                    } else if (status == PathServer.NOT_FOUND) {
+                        notFound.increment();
+                    } else if (status == PathServer.BAD_REQUEST) {
+                        badRequests.increment();
+                    } else {
+                        failures.increment();
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Receive failed: " + e);
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(args).run();
+    }
+}
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Map import and export besides Grid's own binary format. Files are streamed
+// through a FileChannel in 1 MB chunks and each row is assembled as obstacle words
+// and stored straight into the new grid, so loading never creates per-cell objects
+// and sends no change notifications. A .map row is bulk-copied out of the chunk
+// and turned into words 64 characters at a time, with no per-cell reader calls.
+//
+// Moving AI .map (movingai.com benchmarks), text:
+//   type octile / height H / width W / map, then H rows of W characters.
+//   '.', 'G' and 'S' are passable; '@', 'O', 'T' and 'W' are obstacles.
+//
+// Run-length encoded binary, little-endian: magic "AGRL", version 1, width and
+// height as ints, then for each row the lengths of its alternating free and
+// blocked runs (starting with free, possibly 0) as unsigned LEB128 varints
+// adding up to the width.
+public class MapFiles {
+    private static final int RLE_MAGIC = 0x4C524741; // "AGRL"
+    private static final int RLE_VERSION = 1;
+    private static final int IO_CHUNK_BYTES = 1 << 20;
+
+    // Per byte of a .map row: 0 free, 1 blocked, -1 not a map character
+    private static final byte[] MAP_CELLS = new byte[256];
+
+    static {
+        Arrays.fill(MAP_CELLS, (byte) -1);
+        for (char c : new char[] {'.', 'G', 'S'}) {
+            MAP_CELLS[c] = 0;
+        }
+        for (char c : new char[] {'@', 'O', 'T', 'W'}) {
+            MAP_CELLS[c] = 1;
+        }
+    }
+
+    public static Grid loadMovingAi(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkReader in = new ChunkReader(channel);
+            int width = -1;
+            int height = -1;
+            while (true) {
+                String line = in.readLine();
+                if (line == null) {
+                    throw new IOException("Not a .map file: no 'map' line in " + file);
+                }
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].equals("map")) {
+                    break;
+                } else if (fields[0].equals("height") && fields.length == 2) {
+                    height = Integer.parseInt(fields[1]);
+                } else if (fields[0].equals("width") && fields.length == 2) {
+                    width = Integer.parseInt(fields[1]);
+                }
+            }
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid or missing map size in " + file);
+            }
+
+            Grid grid = new Grid(width, height);
+            long[] row = new long[grid.getWordsPerRow()];
+            byte[] text = new byte[width];
+            for (int y = 0; y < height; y++) {
+                int read = in.read(text);
+                // 64 characters per word; an unknown one (-1) leaves bad negative
+                for (int i = 0; i < row.length; i++) {
+                    int from = i << 6;
+                    int to = Math.min(from + 64, read);
+                    long word = 0;
+                    int bad = 0;
+                    for (int x = from; x < to; x++) {
+                        byte kind = MAP_CELLS[text[x] & 0xFF];
+                        word |= (long) (kind & 1) << x;
+                        bad |= kind;
+                    }
+                    if (bad < 0 || to - from < Math.min(64, width - from)) {
+                        throw new IOException("Row " + y + " of " + file + " is too short or has an unknown character at column "
+                                + firstBadColumn(text, from, to));
+                    }
+                    row[i] = word;
+                }
+                in.skipLine();
+                grid.storeRowWords(y, row, 0); // A new grid: nobody to notify
+            }
+            return grid;
+        }
+    }
+
+    public static void saveMovingAi(Grid grid, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK_BYTES);
+            buffer.put(("type octile\nheight " + grid.getHeight() + "\nwidth " + grid.getWidth() + "\nmap\n").getBytes());
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    if (!buffer.hasRemaining()) {
+                        writeFully(channel, buffer);
+                    }
+                    buffer.put(grid.isObstacle(x, y) ? (byte) '@' : (byte) '.');
+                }
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                buffer.put((byte) '\n');
+            }
+            writeFully(channel, buffer);
+        }
+    }
+
+    public static Grid loadRle(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkReader in = new ChunkReader(channel);
+            if (in.readIntLE() != RLE_MAGIC) {
+                throw new IOException("Not an RLE map file: bad magic number");
+            }
+            int version = in.readIntLE();
+            if (version != RLE_VERSION) {
+                throw new IOException("Unsupported RLE map version " + version);
+            }
+            int width = in.readIntLE();
+            int height = in.readIntLE();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid grid size " + width + "x" + height);
+            }
+
+            Grid grid = new Grid(width, height);
+            long[] row = new long[grid.getWordsPerRow()];
+            for (int y = 0; y < height; y++) {
+                Arrays.fill(row, 0);
+                int x = 0;
+                boolean blocked = false;
+                while (x < width) {
+                    int run = in.readVarint();
+                    if (run < 0) {
+                        throw new IOException("Negative run in row " + y); // A 5-byte varint can set the sign bit
+                    }
+                    if (run > width - x) {
+                        throw new IOException("Runs of row " + y + " exceed the width");
+                    }
+                    if (blocked) {
+                        setBits(row, x, x + run);
+                    }
+                    x += run;
+                    blocked = !blocked;
+                }
+                grid.storeRowWords(y, row, 0); // A new grid: nobody to notify
+            }
+            return grid;
+        }
+    }
+
+    public static void saveRle(Grid grid, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(RLE_MAGIC).putInt(RLE_VERSION).putInt(grid.getWidth()).putInt(grid.getHeight());
+            int width = grid.getWidth();
+            for (int y = 0; y < grid.getHeight(); y++) {
+                int x = 0;
+                boolean blocked = false;
+                while (x < width) {
+                    int end = nextChange(grid, y, x, blocked);
+                    if (buffer.remaining() < 5) {
+                        writeFully(channel, buffer);
+                    }
+                    putVarint(buffer, end - x);
+                    x = end;
+                    blocked = !blocked;
+                }
+            }
+            writeFully(channel, buffer);
+        }
+    }
+
+    // First x >= from whose obstacle bit differs from blocked, or the width; scans a word at a time
+    private static int nextChange(Grid grid, int y, int from, boolean blocked) {
+        int width = grid.getWidth();
+        int wordIndex = from >>> 6;
+        long word = grid.getRowWord(y, wordIndex);
+        word = (blocked ? ~word : word) & (-1L << from);
+        while (word == 0) {
+            if (++wordIndex >= grid.getWordsPerRow()) {
+                return width;
+            }
+            word = grid.getRowWord(y, wordIndex);
+            if (blocked) {
+                word = ~word;
+            }
+        }
+        return Math.min(width, (wordIndex << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    // First column in [from, to) that is not a map character, or to if the row ended there
+    private static int firstBadColumn(byte[] text, int from, int to) {
+        while (from < to && MAP_CELLS[text[from] & 0xFF] >= 0) {
+            from++;
+        }
+        return from;
+    }
+
+    // Set bits [from, to) of a row
+    private static void setBits(long[] row, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (first == last) {
+            row[first] |= firstMask & lastMask;
+            return;
+        }
+        row[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            row[i] = -1L;
+        }
+        row[last] |= lastMask;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Byte-at-a-time or bulk reading over a channel, refilled in large chunks
+    private static final class ChunkReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK_BYTES);
+
+        ChunkReader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        // Next byte as 0..255, or -1 at the end of the file
+        int read() throws IOException {
+            if (!buffer.hasRemaining() && !refill()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        // Read the next chunk; false at the end of the file
+        private boolean refill() throws IOException {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            return n > 0;
+        }
+
+        // Fill dst from the buffer a chunk at a time; the count is short only at the end of the file
+        int read(byte[] dst) throws IOException {
+            int count = 0;
+            while (count < dst.length) {
+                if (!buffer.hasRemaining() && !refill()) {
+                    break;
+                }
+                int n = Math.min(buffer.remaining(), dst.length - count);
+                buffer.get(dst, count, n);
+                count += n;
+            }
+            return count;
+        }
+
+        // Next line without its terminator, or null at the end of the file
+        String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b = read();
+            if (b < 0) {
+                return null;
+            }
+            while (b >= 0 && b != '\n') {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+                b = read();
+            }
+            return line.toString();
+        }
+
+        // Skip to just past the next line break (or the end of the file)
+        void skipLine() throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (b >= 0 && b != '\n');
+        }
+
+        int readIntLE() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int b = read();
+                if (b < 0) {
+                    throw new IOException("Truncated map file");
+                }
+                value |= b << shift;
+            }
+            return value;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = read();
+                if (b < 0) {
+                    throw new IOException("Truncated map file");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed run length");
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Seeded obstacle generators for benchmark and test maps. The same grid size and
+// seed always give a bit-identical map, however many threads run:
+//
+//   MapGenerator.random(grid, 0.25, 42);   // exactly 25% of the cells blocked
+//   MapGenerator.maze(grid, 42);
+//   MapGenerator.rooms(grid, 42);
+//   MapGenerator.caves(grid, 0.45, 5, 42);
+//
+// Each generator overwrites the whole grid. The rows are cut into strips of
+// STRIP_ROWS, each with its own SplittableRandom split off the seed in strip
+// order; the strips build their obstacle words in parallel and the map is then
+// stored with Grid.setAllRowWords, so listeners hear a single gridReset. The strip
+// size is fixed, so the thread count never changes which random numbers a cell sees.
+public class MapGenerator {
+    private static final int STRIP_ROWS = 64;
+    private static final int ROOM_BLOCK = 16;  // Rooms get a block of this many cells square
+    private static final int BLOCK_ROWS_PER_STRIP = STRIP_ROWS / ROOM_BLOCK;
+    private static final double EXTRA_DOOR_CHANCE = 0.25; // Vertical doors beyond the one that connects
+
+    // Block exactly round(density * cells) cells, chosen uniformly within each strip
+    // (every strip gets its share of the count, so the density is even everywhere)
+    public static void random(Grid grid, double density, long seed) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("Density must be between 0 and 1: " + density);
+        }
+        int width = grid.getWidth();
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] words = new long[Math.multiplyExact(wordsPerRow, grid.getHeight())];
+        SplittableRandom[] random = stripRandoms(grid.getHeight(), seed);
+        IntStream.range(0, random.length).parallel().forEach(s -> {
+            int y0 = s * STRIP_ROWS;
+            int y1 = Math.min(grid.getHeight(), y0 + STRIP_ROWS);
+            long first = (long) y0 * width;
+            long end = (long) y1 * width;
+            // Quotas telescope, so the strips add up to the rounded total exactly
+            long needed = Math.round(density * end) - Math.round(density * first);
+            long remaining = end - first;
+            // Selection sampling: each cell is picked with chance needed / remaining
+            for (int y = y0; y < y1 && needed > 0; y++) {
+                int row = y * wordsPerRow;
+                for (int x = 0; x < width; x++, remaining--) {
+                    if (random[s].nextLong(remaining) < needed) {
+                        words[row + (x >>> 6)] |= 1L << x;
+                        needed--;
+                    }
+                }
+            }
+        });
+        grid.setAllRowWords(words);
+    }
+
+    // Perfect maze: rooms on even coordinates, walls in between. Each strip carves a
+    // depth-first maze over its own rooms and opens one door down into the next
+    // strip, so every room is reachable from every other along exactly one route.
+    public static void maze(Grid grid, long seed) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] words = new long[Math.multiplyExact(wordsPerRow, height)];
+        int roomsX = (width + 1) / 2;
+        SplittableRandom[] random = stripRandoms(height, seed);
+        IntStream.range(0, random.length).parallel().forEach(s -> {
+            int y0 = s * STRIP_ROWS;
+            int y1 = Math.min(height, y0 + STRIP_ROWS);
+            // Walls on odd rows and columns; the rooms are what is left
+            for (int y = y0; y < y1; y++) {
+                for (int i = 0; i < wordsPerRow; i++) {
+                    words[y * wordsPerRow + i] = (y & 1) == 1 ? -1L : 0xAAAAAAAAAAAAAAAAL;
+                }
+            }
+            // STRIP_ROWS is even, so no room row is cut by a strip boundary
+            int firstRoomRow = y0 / 2;
+            int roomRows = (y1 + 1) / 2 - firstRoomRow;
+            carveMaze(words, wordsPerRow, roomsX, firstRoomRow, roomRows, random[s]);
+            // The strip's last row is a wall row when a next strip follows
+            if (y1 < height) {
+                clear(words, wordsPerRow, 2 * random[s].nextInt(roomsX), y1 - 1);
+            }
+        });
+        grid.setAllRowWords(words);
+    }
+
+    // Depth-first maze over room rows [firstRoomRow, firstRoomRow + roomRows)
+    private static void carveMaze(long[] words, int wordsPerRow, int roomsX, int firstRoomRow, int roomRows,
+                                  SplittableRandom random) {
+        int[] dx = {1, -1, 0, 0};
+        int[] dy = {0, 0, 1, -1};
+        int[] options = new int[4];
+        boolean[] visited = new boolean[roomsX * roomRows];
+        int[] stack = new int[roomsX * roomRows];
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        while (top > 0) {
+            int room = stack[top - 1];
+            int rx = room % roomsX;
+            int ry = room / roomsX;
+            int count = 0;
+            for (int d = 0; d < 4; d++) {
+                int nx = rx + dx[d];
+                int ny = ry + dy[d];
+                if (nx >= 0 && nx < roomsX && ny >= 0 && ny < roomRows && !visited[ny * roomsX + nx]) {
+                    options[count++] = d;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int d = options[random.nextInt(count)];
+            int next = (ry + dy[d]) * roomsX + rx + dx[d];
+            visited[next] = true;
+            // Knock down the wall in between
+            clear(words, wordsPerRow, rx * 2 + dx[d], (firstRoomRow + ry) * 2 + dy[d]);
+            stack[top++] = next;
+        }
+    }
+
+    // Rooms and corridors: the grid is cut into blocks of ROOM_BLOCK cells (the last
+    // block of a row or column takes the remainder), each with one rectangular room.
+    // Neighboring blocks share a door on their common edge and each room runs an
+    // L-shaped corridor to each of its doors. Every east-west door exists; between
+    // block rows one door always does and the others by chance, so every room is
+    // reachable. Door positions come from a hash of the seed and the edge, so both
+    // blocks agree on them without sharing state.
+    public static void rooms(Grid grid, long seed) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] words = new long[Math.multiplyExact(wordsPerRow, height)];
+        int blocksX = Math.max(1, width / ROOM_BLOCK);
+        int blocksY = Math.max(1, height / ROOM_BLOCK);
+        int strips = (blocksY + BLOCK_ROWS_PER_STRIP - 1) / BLOCK_ROWS_PER_STRIP;
+        SplittableRandom[] random = splitRandoms(strips, seed);
+        long tailMask = (width & 63) == 0 ? -1L : (1L << width) - 1;
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            int firstBlockRow = s * BLOCK_ROWS_PER_STRIP;
+            int lastBlockRow = Math.min(blocksY, firstBlockRow + BLOCK_ROWS_PER_STRIP);
+            int y0 = blockStart(firstBlockRow, blocksY, height);
+            int y1 = blockStart(lastBlockRow, blocksY, height);
+            for (int y = y0; y < y1; y++) {
+                for (int i = 0; i < wordsPerRow; i++) {
+                    words[y * wordsPerRow + i] = i == wordsPerRow - 1 ? tailMask : -1L;
+                }
+            }
+            for (int by = firstBlockRow; by < lastBlockRow; by++) {
+                int top = blockStart(by, blocksY, height);
+                int bottom = blockStart(by + 1, blocksY, height);
+                int keptDown = (int) Long.remainderUnsigned(mix(seed, by, -1), blocksX);
+                int keptUp = by == 0 ? -1 : (int) Long.remainderUnsigned(mix(seed, by - 1, -1), blocksX);
+                for (int bx = 0; bx < blocksX; bx++) {
+                    int left = blockStart(bx, blocksX, width);
+                    int right = blockStart(bx + 1, blocksX, width);
+                    int roomWidth = roomSize(innerStart(left, right), innerEnd(left, right), random[s]);
+                    int roomX0 = innerStart(left, right)
+                            + random[s].nextInt(innerEnd(left, right) - innerStart(left, right) - roomWidth + 1);
+                    int roomX1 = roomX0 + roomWidth;
+                    int roomHeight = roomSize(innerStart(top, bottom), innerEnd(top, bottom), random[s]);
+                    int roomY0 = innerStart(top, bottom)
+                            + random[s].nextInt(innerEnd(top, bottom) - innerStart(top, bottom) - roomHeight + 1);
+                    int roomY1 = roomY0 + roomHeight;
+                    for (int y = roomY0; y < roomY1; y++) {
+                        for (int x = roomX0; x < roomX1; x++) {
+                            clear(words, wordsPerRow, x, y);
+                        }
+                    }
+                    int cx = (roomX0 + roomX1 - 1) / 2;
+                    int cy = (roomY0 + roomY1 - 1) / 2;
+                    // Doors to the west and east, at a row both blocks agree on
+                    if (bx > 0) {
+                        int doorY = inner(top, bottom, mix(seed, by, bx - 1));
+                        corridor(words, wordsPerRow, left, doorY, cx, cy, true);
+                    }
+                    if (bx + 1 < blocksX) {
+                        int doorY = inner(top, bottom, mix(seed, by, bx));
+                        corridor(words, wordsPerRow, right - 1, doorY, cx, cy, true);
+                    }
+                    // Doors to the north and south
+                    if (by > 0 && hasDoorBelow(seed, by - 1, bx, keptUp)) {
+                        int doorX = inner(left, right, mix(seed, -1 - (by - 1), bx));
+                        corridor(words, wordsPerRow, doorX, top, cx, cy, false);
+                    }
+                    if (by + 1 < blocksY && hasDoorBelow(seed, by, bx, keptDown)) {
+                        int doorX = inner(left, right, mix(seed, -1 - by, bx));
+                        corridor(words, wordsPerRow, doorX, bottom - 1, cx, cy, false);
+                    }
+                }
+            }
+        });
+        grid.setAllRowWords(words);
+    }
+
+    // Whether block (bx, by) has a door down to (bx, by + 1)
+    private static boolean hasDoorBelow(long seed, int by, int bx, int kept) {
+        return bx == kept || (mix(seed, -1 - by, ~bx) >>> 11) * 0x1.0p-53 < EXTRA_DOOR_CHANCE;
+    }
+
+    // First cell of block i out of count over length cells; the last block takes the remainder
+    private static int blockStart(int i, int count, int length) {
+        return i >= count ? length : i * (length / count);
+    }
+
+    // Inside of a block [from, to): one cell of wall is kept on each side where the
+    // block is wide enough
+    private static int innerStart(int from, int to) {
+        return to - from >= 3 ? from + 1 : from;
+    }
+
+    private static int innerEnd(int from, int to) {
+        return to - from >= 3 ? to - 1 : to;
+    }
+
+    // Random room size for an inside [from, to): at least 2 where it fits
+    private static int roomSize(int from, int to, SplittableRandom random) {
+        int size = to - from;
+        return size <= 2 ? size : 2 + random.nextInt(size - 1);
+    }
+
+    // A position inside [from, to), away from the block's ends, picked by a hash
+    private static int inner(int from, int to, long hash) {
+        return innerStart(from, to) + (int) Long.remainderUnsigned(hash, innerEnd(from, to) - innerStart(from, to));
+    }
+
+    // Free an L from a door to (cx, cy): along the door's row first for a west or
+    // east door (horizontalFirst), along its column first for a north or south door
+    private static void corridor(long[] words, int wordsPerRow, int x, int y, int cx, int cy, boolean horizontalFirst) {
+        int bendX = horizontalFirst ? cx : x;
+        int bendY = horizontalFirst ? y : cy;
+        for (int i = Math.min(x, bendX); i <= Math.max(x, bendX); i++) {
+            clear(words, wordsPerRow, i, y);
+        }
+        for (int j = Math.min(y, cy); j <= Math.max(y, cy); j++) {
+            clear(words, wordsPerRow, bendX, j);
+        }
+        for (int i = Math.min(bendX, cx); i <= Math.max(bendX, cx); i++) {
+            clear(words, wordsPerRow, i, bendY);
+        }
+    }
+
+    // Cellular-automaton caves: cells start blocked with chance fillDensity, then
+    // each step a blocked cell stays blocked with 4 or more blocked neighbors and a
+    // free cell becomes blocked with 5 or more; outside the grid counts as blocked.
+    // 0.45 and 4 to 5 steps give open caves. Caves need not all be connected.
+    // A step works on 64 cells at once, counting neighbors with bitwise adders.
+    public static void caves(Grid grid, double fillDensity, int steps, long seed) {
+        if (!(fillDensity >= 0 && fillDensity <= 1)) {
+            throw new IllegalArgumentException("Density must be between 0 and 1: " + fillDensity);
+        }
+        if (steps < 0) {
+            throw new IllegalArgumentException("Steps must not be negative: " + steps);
+        }
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] words = new long[Math.multiplyExact(wordsPerRow, height)];
+        SplittableRandom[] random = stripRandoms(height, seed);
+        IntStream.range(0, random.length).parallel().forEach(s -> {
+            for (int y = s * STRIP_ROWS; y < Math.min(height, (s + 1) * STRIP_ROWS); y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random[s].nextDouble() < fillDensity) {
+                        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }
+        });
+        // Bits past the right edge are set while stepping, so they count as blocked
+        long padding = (width & 63) == 0 ? 0 : -1L << width;
+        long[] current = words;
+        long[] next = new long[words.length];
+        for (int step = 0; step < steps; step++) {
+            long[] from = current;
+            long[] to = next;
+            IntStream.range(0, random.length).parallel().forEach(s -> {
+                for (int y = s * STRIP_ROWS; y < Math.min(height, (s + 1) * STRIP_ROWS); y++) {
+                    for (int i = 0; i < wordsPerRow; i++) {
+                        to[y * wordsPerRow + i] = caveStep(from, wordsPerRow, height, padding, y, i);
+                    }
+                }
+            });
+            next = current;
+            current = to;
+        }
+        grid.setAllRowWords(current);
+    }
+
+    // Next state of word i of row y
+    private static long caveStep(long[] words, int wordsPerRow, int height, long padding, int y, int i) {
+        // Bit-sliced counters of the blocked neighbors of each of the 64 cells:
+        // count[0] holds the ones bits, count[1] the twos, count[2] the fours and
+        // count[3] the eights
+        long[] count = new long[4];
+        long self = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            long center = caveWord(words, wordsPerRow, height, padding, y + dy, i);
+            long west = caveWord(words, wordsPerRow, height, padding, y + dy, i - 1);
+            long east = caveWord(words, wordsPerRow, height, padding, y + dy, i + 1);
+            add(count, (center << 1) | (west >>> 63)); // The cell to the left of each bit
+            add(count, (center >>> 1) | (east << 63)); // The cell to the right
+            if (dy == 0) {
+                self = center;
+            } else {
+                add(count, center);
+            }
+        }
+        long atLeast4 = count[3] | count[2];
+        long atLeast5 = count[3] | (count[2] & (count[1] | count[0]));
+        long result = (self & atLeast4) | (~self & atLeast5);
+        return i == wordsPerRow - 1 ? result & ~padding : result;
+    }
+
+    // Add one bit per cell to the counters (a ripple-carry adder, 64 lanes wide)
+    private static void add(long[] count, long bits) {
+        long carry = count[0] & bits;
+        count[0] ^= bits;
+        long carry2 = count[1] & carry;
+        count[1] ^= carry;
+        long carry4 = count[2] & carry2;
+        count[2] ^= carry2;
+        count[3] |= carry4;
+    }
+
+    // Word i of row y with everything outside the grid blocked
+    private static long caveWord(long[] words, int wordsPerRow, int height, long padding, int y, int i) {
+        if (y < 0 || y >= height || i < 0 || i >= wordsPerRow) {
+            return -1L;
+        }
+        long word = words[y * wordsPerRow + i];
+        return i == wordsPerRow - 1 ? word | padding : word;
+    }
+
+    // One generator per strip of STRIP_ROWS rows, split off the seed in strip order
+    private static SplittableRandom[] stripRandoms(int height, long seed) {
+        return splitRandoms((height + STRIP_ROWS - 1) / STRIP_ROWS, seed);
+    }
+
+    private static SplittableRandom[] splitRandoms(int count, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            randoms[i] = root.split();
+        }
+        return randoms;
+    }
+
+    private static void clear(long[] words, int wordsPerRow, int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+    }
+
+    // Stateless 64-bit hash of the seed and two ints (the MurmurHash3 finalizer)
+    private static long mix(long seed, int a, int b) {
+        long h = seed ^ ((long) a << 32 | (b & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+}
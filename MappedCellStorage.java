@@ -0,0 +1,61 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Obstacle bits held off-heap in a memory-mapped grid file. The OS pages the map
+// in on demand, so even a 65536x65536 grid (512 MiB of bits) opens in
+// milliseconds and costs no Java heap. Writes go straight to the file.
+// A single mapping is limited to 2 GiB, so the data is mapped in segments.
+public class MappedCellStorage implements CellStorage {
+    private static final int SEGMENT_SHIFT = 27;                  // 2^27 words = 1 GiB per segment
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long wordCount;
+
+    // Map wordCount little-endian words starting at byte offset of the channel
+    public MappedCellStorage(FileChannel channel, long offset, long wordCount, boolean writable) throws IOException {
+        this.wordCount = wordCount;
+        int segmentCount = (int) ((wordCount + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[segmentCount];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < segmentCount; i++) {
+            long firstWord = (long) i << SEGMENT_SHIFT;
+            long words = Math.min(wordCount - firstWord, 1L << SEGMENT_SHIFT);
+            segments[i] = channel.map(mode, offset + firstWord * Long.BYTES, words * Long.BYTES);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return segments[(int) (wordIndex >>> SEGMENT_SHIFT)].getLong((int) (wordIndex & SEGMENT_MASK) << 3);
+    }
+
+    @Override
+    public void setWord(long wordIndex, long word) {
+        segments[(int) (wordIndex >>> SEGMENT_SHIFT)].putLong((int) (wordIndex & SEGMENT_MASK) << 3, word);
+    }
+
+    @Override
+    public void clear() {
+        for (MappedByteBuffer segment : segments) {
+            for (int i = 0, n = segment.capacity(); i < n; i += Long.BYTES) {
+                segment.putLong(i, 0L);
+            }
+        }
+    }
+
+    // Flush pending writes to the file
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+// Moves AStarEngine and Grid.getNeighbors allow from a cell, chosen when the
+// engine is built. A move always needs the cell moved into to be free.
+public enum Neighborhood {
+    FOUR,                   // Straight steps only, cost 1
+    EIGHT,                  // Straight and diagonal steps (cost sqrt(2)), even past blocked corners
+    EIGHT_NO_CORNER_CUTTING // Diagonal steps also need both cells beside the move to be free
+}
@@ -0,0 +1,366 @@
+import java.util.*;
+
+// Bounded cache of search results in front of another PathSearch, for callers that
+// keep asking for the same start/goal pairs on a grid that rarely changes:
+//
+//   PathCache cache = new PathCache(grid, 10_000);
+//   SearchResult result = AStar.search(grid, start, goal, cache);
+//
+// Entries are keyed by packed start and goal cells and evicted least recently used
+// first. The cache listens to the grid and drops only the entries a change can
+// affect: when a cell is blocked, the paths through it or next to it; when a cell
+// is freed or its cost changes, those plus the failed queries and the paths a
+// detour through that cell could beat (judged by the octile distance
+// start -> cell -> goal). Grid changes it did not see (e.g. while detached) are
+// caught by the grid version and flush everything.
+//
+// Both checks go through indexes, so an edit costs about the entries near it
+// rather than the size of the cache: paths by the 16x16 tiles they touch, and for
+// freed cells each entry by the 64x64 regions its detour box overlaps. Outside
+// that box no cell can give a detour cheaper than the cached cost (the octile
+// distance is at least the larger axis distance). Boxes are sized with the grid's
+// smallest cost when the entry is stored; if that drops below the value a box was
+// sized with, a freed cell checks every entry once more, as without the index.
+//
+// A hit reports zero expanded and pushed nodes. Like any PathSearch, not thread-safe.
+public class PathCache implements PathSearch, GridListener {
+    private static final int TILE_SHIFT = 4;   // Index paths by 16x16 tiles
+    private static final int REGION_SHIFT = 6; // Index detour boxes by 64x64 regions
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int regionsX;
+    private final PathSearch engine;
+    private final LinkedHashMap<Long, Entry> entries;
+    private final Map<Integer, Set<Entry>> tiles = new HashMap<>(); // Entries whose path touches or borders a tile
+    private final Set<Entry> failures = new HashSet<>();             // Entries for queries without a path
+    private final Map<Integer, Set<Entry>> regions = new HashMap<>(); // Entries whose detour box overlaps a region
+    private float boxMinCost; // Largest smallest-cost any stored detour box was sized with
+    private int version; // Grid version the entries are known to be valid for
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    private Entry current; // Result of the last search
+    private int nodesExpanded;
+    private int nodesPushed;
+    private int peakOpenSize;
+    private int reopens;
+    private long elapsedNanos;
+
+    private static final class Entry {
+        final long key;
+        final int[] path;        // Cells from start to goal, or null if there is no path
+        final int[] sortedCells; // Path cells in ascending order, for membership tests
+        final double cost;
+        final int startCell;
+        final int goalCell;
+        int[] tileKeys = new int[0];
+        int[] regionKeys = new int[0];
+
+        Entry(long key, int[] path, double cost, int startCell, int goalCell) {
+            this.key = key;
+            this.path = path;
+            this.cost = cost;
+            this.startCell = startCell;
+            this.goalCell = goalCell;
+            if (path != null) {
+                sortedCells = path.clone();
+                Arrays.sort(sortedCells);
+            } else {
+                sortedCells = null;
+            }
+        }
+    }
+
+    public PathCache(Grid grid, int capacity) {
+        this(grid, capacity, new AStarEngine());
+    }
+
+    public PathCache(Grid grid, int capacity, PathSearch engine) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.tilesX = ((width - 1) >> TILE_SHIFT) + 1;
+        this.regionsX = ((width - 1) >> REGION_SHIFT) + 1;
+        this.engine = engine;
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > capacity) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.version = grid.getVersion();
+        grid.addListener(this);
+    }
+
+    // Stop listening to the grid; later changes will flush the cache on the next search
+    public void detach() {
+        grid.removeListener(this);
+    }
+
+    @Override
+    public boolean search(Grid grid, int startX, int startY, int goalX, int goalY) {
+        if (grid != this.grid) {
+            throw new IllegalArgumentException("PathCache was built for a different grid");
+        }
+        long startTime = System.nanoTime();
+        if (grid.getVersion() != version) {
+            clear();
+            version = grid.getVersion();
+        }
+
+        int startCell = startY * width + startX;
+        int goalCell = goalY * width + goalX;
+        long key = ((long) startCell << 32) | (goalCell & 0xFFFFFFFFL);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            nodesExpanded = 0;
+            nodesPushed = 0;
+            peakOpenSize = 0;
+            reopens = 0;
+        } else {
+            misses++;
+            boolean found = engine.search(grid, startX, startY, goalX, goalY);
+            int[] path = null;
+            if (found) {
+                path = new int[engine.getPathLength()];
+                for (int i = 0; i < path.length; i++) {
+                    path[i] = engine.getPathCell(i);
+                }
+            }
+            entry = new Entry(key, path, found ? engine.getPathCost() : 0, startCell, goalCell);
+            nodesExpanded = engine.getNodesExpanded();
+            nodesPushed = engine.getNodesPushed();
+            peakOpenSize = engine.getPeakOpenSize();
+            reopens = engine.getReopens();
+            // Only cache queries inside the grid; the key would be ambiguous otherwise
+            if (inBounds(startX, startY) && inBounds(goalX, goalY)) {
+                entries.put(key, entry);
+                index(entry);
+            }
+        }
+        current = entry;
+        elapsedNanos = System.nanoTime() - startTime;
+        return entry.path != null;
+    }
+
+    @Override
+    public void cellChanged(int x, int y) {
+        int cell = y * width + x;
+        List<Entry> stale = new ArrayList<>();
+        Set<Entry> nearby = tiles.get(tileOf(x, y));
+        if (nearby != null) {
+            for (Entry entry : nearby) {
+                if (touches(entry, x, y)) {
+                    stale.add(entry);
+                }
+            }
+        }
+        if (!grid.isObstacle(x, y)) {
+            // A freed or cheaper cell can connect failed queries and shorten paths that pass far from it
+            stale.addAll(failures);
+            Collection<Entry> candidates = grid.getMinCost() < boxMinCost
+                    ? entries.values()
+                    : regions.getOrDefault(regionOf(x, y), Collections.emptySet());
+            for (Entry entry : candidates) {
+                if (entry.path != null && detourBound(entry, x, y) < entry.cost - AStarEngine.COST_EPSILON) {
+                    stale.add(entry);
+                }
+            }
+        }
+        for (Entry entry : stale) {
+            if (entries.remove(entry.key) == entry) {
+                unindex(entry);
+                invalidations++;
+            }
+        }
+        version = grid.getVersion();
+    }
+
+    @Override
+    public void gridReset() {
+        invalidations += entries.size();
+        clear();
+        version = grid.getVersion();
+    }
+
+    public void clear() {
+        entries.clear();
+        tiles.clear();
+        failures.clear();
+        regions.clear();
+        boxMinCost = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Entries dropped because the grid changed under them
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    // True if the entry's path runs through (x, y) or one of its eight neighbors
+    private boolean touches(Entry entry, int x, int y) {
+        for (int ny = y - 1; ny <= y + 1; ny++) {
+            for (int nx = x - 1; nx <= x + 1; nx++) {
+                if (inBounds(nx, ny) && Arrays.binarySearch(entry.sortedCells, ny * width + nx) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Lower bound on any path from the entry's start to its goal through (x, y)
+    private double detourBound(Entry entry, int x, int y) {
+        return grid.getMinCost() * (AStarEngine.heuristic(entry.startCell % width, entry.startCell / width, x, y)
+                + AStarEngine.heuristic(x, y, entry.goalCell % width, entry.goalCell / width));
+    }
+
+    // Register the entry with every tile holding a cell of its path or a neighbor of one
+    private void index(Entry entry) {
+        if (entry.path == null) {
+            failures.add(entry);
+            return;
+        }
+        Set<Integer> keys = new HashSet<>();
+        for (int cell : entry.path) {
+            int x = cell % width;
+            int y = cell / width;
+            for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+                for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                    keys.add(tileOf(nx, ny));
+                }
+            }
+        }
+        entry.tileKeys = new int[keys.size()];
+        int i = 0;
+        for (int tile : keys) {
+            entry.tileKeys[i++] = tile;
+            tiles.computeIfAbsent(tile, k -> new HashSet<>()).add(entry);
+        }
+
+        // Detour box: a cell outside it has |sx - x| + |x - gx| (or the same in y)
+        // at least cost / minCost, so no detour through it can beat the path
+        float minCost = grid.getMinCost();
+        boxMinCost = Math.max(boxMinCost, minCost);
+        double reach = entry.cost / minCost;
+        int sx = entry.startCell % width;
+        int sy = entry.startCell / width;
+        int gx = entry.goalCell % width;
+        int gy = entry.goalCell / width;
+        int fromX = (int) Math.max(0, Math.floor((sx + gx - reach) / 2));
+        int toX = (int) Math.min(width - 1, Math.ceil((sx + gx + reach) / 2));
+        int fromY = (int) Math.max(0, Math.floor((sy + gy - reach) / 2));
+        int toY = (int) Math.min(height - 1, Math.ceil((sy + gy + reach) / 2));
+        int regionsY = (toY >> REGION_SHIFT) - (fromY >> REGION_SHIFT) + 1;
+        entry.regionKeys = new int[((toX >> REGION_SHIFT) - (fromX >> REGION_SHIFT) + 1) * regionsY];
+        i = 0;
+        for (int ry = fromY >> REGION_SHIFT; ry <= toY >> REGION_SHIFT; ry++) {
+            for (int rx = fromX >> REGION_SHIFT; rx <= toX >> REGION_SHIFT; rx++) {
+                int region = ry * regionsX + rx;
+                entry.regionKeys[i++] = region;
+                regions.computeIfAbsent(region, k -> new HashSet<>()).add(entry);
+            }
+        }
+    }
+
+    private void unindex(Entry entry) {
+        if (entry.path == null) {
+            failures.remove(entry);
+            return;
+        }
+        for (int tile : entry.tileKeys) {
+            Set<Entry> set = tiles.get(tile);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    tiles.remove(tile);
+                }
+            }
+        }
+        for (int region : entry.regionKeys) {
+            Set<Entry> set = regions.get(region);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    regions.remove(region);
+                }
+            }
+        }
+    }
+
+    private int tileOf(int x, int y) {
+        return (y >> TILE_SHIFT) * tilesX + (x >> TILE_SHIFT);
+    }
+
+    private int regionOf(int x, int y) {
+        return (y >> REGION_SHIFT) * regionsX + (x >> REGION_SHIFT);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getPathLength() {
+        return current == null || current.path == null ? 0 : current.path.length;
+    }
+
+    @Override
+    public int getPathCell(int i) {
+        return current.path[i];
+    }
+
+    @Override
+    public double getPathCost() {
+        return current == null ? 0 : current.cost;
+    }
+
+    @Override
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    @Override
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    @Override
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    @Override
+    public int getReopens() {
+        return reopens;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,25 @@
+// A reusable grid search. Paths are reported as cell indices (y * width + x),
+// start first, so callers can read them without any per-cell objects.
+// Implementations keep scratch state between calls and are not thread-safe.
+public interface PathSearch {
+
+    // Search from (startX, startY) to (goalX, goalY); returns true if a path was found
+    boolean search(Grid grid, int startX, int startY, int goalX, int goalY);
+
+    int getPathLength();
+
+    // Cell index of the i-th path cell (y * width + x)
+    int getPathCell(int i);
+
+    double getPathCost();
+
+    int getNodesExpanded();
+
+    int getNodesPushed();
+
+    int getPeakOpenSize();
+
+    int getReopens();
+
+    long getElapsedNanos();
+}
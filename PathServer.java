@@ -0,0 +1,338 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless path server: loads grids at startup and answers binary path queries on
+// a loopback TCP socket, for services that wrap the library in their own process.
+//
+//   java PathServer [--port 7420] [--threads N] grid...
+//
+// A grid is a file (.map: Moving AI, .rle: MapFiles run-length format, anything
+// else: Grid's binary format) or a generated map: random:SIZE:DENSITY:SEED,
+// maze:SIZE:SEED, rooms:SIZE:SEED or caves:SIZE:SEED (see MapGenerator).
+// LoadGenerator is the matching client.
+//
+// Protocol, big-endian. On connect the server sends the number of grids and the
+// width and height of each. The client then sends queries without waiting for the
+// answers (pipelining):
+//   int id, int grid, int startX, int startY, int goalX, int goalY, byte mode
+// where mode is a SearchMode ordinal. Each query gets one answer, in the order the
+// searches finish, not the order the queries came in:
+//   int id, byte status (FOUND, NOT_FOUND, BAD_REQUEST, FAILED), double cost,
+//   int length, then length bytes of CompactPath.encode (0 without a path)
+//
+// Per connection a reader thread hands queries to a fixed pool of search workers
+// and a writer thread writes every answer that is ready in one flush, so answers
+// go out in batches under load. At most MAX_IN_FLIGHT queries per connection are
+// queued, running or waiting to be written; beyond that the reader stops reading
+// and TCP pushes back on the client. Workers search with AStar.findPath, so each
+// keeps its engines in AStar's thread-locals and a query allocates little beyond
+// its answer; JPS+ jump tables are built once per grid and shared by all workers.
+// Searching is CPU-bound, so the pool is sized to the cores (Java 17 has no
+// virtual threads, and they would not add throughput here). The grids never
+// change while the server runs, which is what lets all workers share them.
+public class PathServer {
+    public static final int DEFAULT_PORT = 7420;
+    public static final byte FOUND = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte BAD_REQUEST = 2; // Unknown grid or mode, a point outside the grid, or a mode the grid does not support
+    public static final byte FAILED = 3;      // The search threw; the server logs why
+
+    private static final int MAX_IN_FLIGHT = 4096;
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final SearchMode[] MODES = SearchMode.values();
+    private static final byte[] NO_PATH = new byte[0];
+
+    private final Grid[] grids;
+    private final ExecutorService workers;
+    private final ServerSocket socket;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    // An answer ready to be written
+    private static final class Answer {
+        final int id;
+        final byte status;
+        final double cost;
+        final byte[] path;
+
+        Answer(int id, byte status, double cost, byte[] path) {
+            this.id = id;
+            this.status = status;
+            this.cost = cost;
+            this.path = path;
+        }
+    }
+
+    // Queued by a connection's reader after its last answer
+    private static final Answer END = new Answer(-1, BAD_REQUEST, 0, NO_PATH);
+
+    // Listen on the loopback interface; port 0 picks a free port
+    public PathServer(Grid[] grids, int port, int threads) throws IOException {
+        if (grids.length == 0) {
+            throw new IllegalArgumentException("No grids to serve");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        this.grids = grids.clone();
+        for (Grid grid : this.grids) {
+            // Build the component labels now rather than in the first query
+            grid.canReach(0, 0, 0, 0);
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "path-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.socket = new ServerSocket(port, 64, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    // Accept connections until close() is called
+    public void serve() throws IOException {
+        while (true) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                if (socket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            client.setTcpNoDelay(true);
+            new Connection(client, connections.incrementAndGet()).start();
+        }
+    }
+
+    // Stop accepting connections; queries already queued still run
+    public void close() throws IOException {
+        socket.close();
+        workers.shutdown();
+    }
+
+    // Every query must get an answer, or its client and the connection's reader
+    // wait for it forever, so a search that throws is answered too
+    private Answer tryAnswer(int id, int gridIndex, int startX, int startY, int goalX, int goalY, int mode) {
+        try {
+            return answer(id, gridIndex, startX, startY, goalX, goalY, mode);
+        } catch (IllegalArgumentException e) {
+            return new Answer(id, BAD_REQUEST, 0, NO_PATH); // e.g. JPS on a grid with cell costs
+        } catch (Throwable e) {
+            System.err.println("Query " + id + " failed: " + e);
+            return new Answer(id, FAILED, 0, NO_PATH);
+        }
+    }
+
+    private Answer answer(int id, int gridIndex, int startX, int startY, int goalX, int goalY, int mode) {
+        if (gridIndex < 0 || gridIndex >= grids.length || mode < 0 || mode >= MODES.length) {
+            return new Answer(id, BAD_REQUEST, 0, NO_PATH);
+        }
+        Grid grid = grids[gridIndex];
+        if (!inside(grid, startX, startY) || !inside(grid, goalX, goalY)) {
+            return new Answer(id, BAD_REQUEST, 0, NO_PATH);
+        }
+        CompactPath path = AStar.findPath(grid, startX, startY, goalX, goalY, MODES[mode]);
+        return path == null
+                ? new Answer(id, NOT_FOUND, 0, NO_PATH)
+                : new Answer(id, FOUND, path.getCost(), path.encode());
+    }
+
+    private static boolean inside(Grid grid, int x, int y) {
+        return x >= 0 && x < grid.getWidth() && y >= 0 && y < grid.getHeight();
+    }
+
+    // One client: a reader thread feeding the workers and a writer thread batching answers
+    private final class Connection {
+        private final Socket client;
+        private final int number;
+        private final BlockingQueue<Answer> answers = new LinkedBlockingQueue<>();
+        private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        private volatile boolean closed; // Lost the client: skip the queries still queued
+
+        Connection(Socket client, int number) {
+            this.client = client;
+            this.number = number;
+        }
+
+        void start() {
+            new Thread(this::read, "path-reader-" + number).start();
+            new Thread(this::write, "path-writer-" + number).start();
+        }
+
+        private void read() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream(), IO_BUFFER_BYTES));
+                while (true) {
+                    int id;
+                    try {
+                        id = in.readInt();
+                    } catch (EOFException e) {
+                        break; // The client has sent its last query
+                    }
+                    int gridIndex = in.readInt();
+                    int startX = in.readInt();
+                    int startY = in.readInt();
+                    int goalX = in.readInt();
+                    int goalY = in.readInt();
+                    int mode = in.readByte();
+                    inFlight.acquire();
+                    try {
+                        workers.execute(() -> {
+                            if (closed) {
+                                inFlight.release();
+                            } else {
+                                answers.add(tryAnswer(id, gridIndex, startX, startY, goalX, goalY, mode));
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        inFlight.release();
+                        break; // Server closed
+                    }
+                }
+            } catch (IOException e) {
+                closed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Once every query has been answered, let the writer finish
+            inFlight.acquireUninterruptibly(MAX_IN_FLIGHT);
+            answers.add(END);
+        }
+
+        private void write() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream(), IO_BUFFER_BYTES));
+                out.writeInt(grids.length);
+                for (Grid grid : grids) {
+                    out.writeInt(grid.getWidth());
+                    out.writeInt(grid.getHeight());
+                }
+                out.flush();
+                List<Answer> batch = new ArrayList<>();
+                while (true) {
+                    batch.add(answers.take());
+                    answers.drainTo(batch);
+                    for (Answer answer : batch) {
+                        if (answer == END) {
+                            out.flush();
+                            return;
+                        }
+                        out.writeInt(answer.id);
+                        out.writeByte(answer.status);
+                        out.writeDouble(answer.cost);
+                        out.writeInt(answer.path.length);
+                        out.write(answer.path);
+                        inFlight.release();
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            } catch (IOException e) {
+                // Connection lost: keep releasing answers so the reader can finish
+                closed = true;
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (answers.take() != END) {
+                    inFlight.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // A grid file or generated map, as described at the top
+    static Grid loadGrid(String spec) throws IOException {
+        String[] fields = spec.split(":");
+        switch (fields[0]) {
+            case "random":
+                checkFields(spec, fields, 4);
+                Grid random = new Grid(Integer.parseInt(fields[1]), Integer.parseInt(fields[1]));
+                MapGenerator.random(random, Double.parseDouble(fields[2]), Long.parseLong(fields[3]));
+                return random;
+            case "maze":
+            case "rooms":
+            case "caves":
+                checkFields(spec, fields, 3);
+                Grid grid = new Grid(Integer.parseInt(fields[1]), Integer.parseInt(fields[1]));
+                long seed = Long.parseLong(fields[2]);
+                if (fields[0].equals("maze")) {
+                    MapGenerator.maze(grid, seed);
+                } else if (fields[0].equals("rooms")) {
+                    MapGenerator.rooms(grid, seed);
+                } else {
+                    MapGenerator.caves(grid, 0.45, 5, seed);
+                }
+                return grid;
+            default:
+                Path file = Path.of(spec);
+                if (spec.endsWith(".map")) {
+                    return MapFiles.loadMovingAi(file);
+                }
+                return spec.endsWith(".rle") ? MapFiles.loadRle(file) : Grid.load(file);
+        }
+    }
+
+    private static void checkFields(String spec, String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException("Bad grid spec " + spec);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Grid> grids = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                grids.add(loadGrid(args[i]));
+            }
+        }
+        if (grids.isEmpty()) {
+            System.err.println("Usage: java PathServer [--port 7420] [--threads N] grid...");
+            System.exit(2);
+        }
+        PathServer server = new PathServer(grids.toArray(new Grid[0]), port, threads);
+        SearchStats.registerMBean();
+        System.out.println("Serving " + grids.size() + " grid(s) on port " + server.getPort() + " with " + threads + " workers");
+        server.serve();
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.*;
+
+// Stored paths checked in bulk against the changes in a GridChangeLog, for agents
+// that follow a path for many ticks while the grid changes under them:
+//
+//   PathValidator paths = new PathValidator(log);
+//   int id = paths.add(AStar.findPath(grid, sx, sy, gx, gy, SearchMode.ASTAR));
+//   ...
+//   for (int stale : paths.validate()) { replan the agent holding path stale }
+//
+// Paths are indexed by the 16x16 tiles they cross, like PathCache entries, so a
+// validation looks only at the paths near cells that changed since the last one:
+// its work follows the changes, not the number or length of the stored paths.
+// Only when the log cannot tell what changed is every path rescanned.
+//
+// A path is stale once a cell on it is blocked; the first cell, where the agent
+// stands, does not count. Smoothed paths are checked along their segments. Freed
+// cells never make a path stale even if a shorter one now exists.
+public class PathValidator {
+    private static final int TILE_SHIFT = 4;
+
+    private final GridChangeLog log;
+    private final Grid grid;
+    private final int width;
+    private final int tilesX;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Integer, Set<Entry>> tiles = new HashMap<>(); // Entries whose path crosses a tile
+    private final List<Entry> added = new ArrayList<>();             // Not checked since they were added
+    private int version; // Grid version of the last validation
+    private int nextId;
+
+    private static final class Entry {
+        final int id;
+        final int[] sortedCells; // Cells the path enters, ascending; its first cell left out
+        int[] tileKeys = new int[0];
+
+        Entry(int id, int[] sortedCells) {
+            this.id = id;
+            this.sortedCells = sortedCells;
+        }
+    }
+
+    public PathValidator(GridChangeLog log) {
+        this.log = log;
+        this.grid = log.getGrid();
+        this.width = grid.getWidth();
+        this.tilesX = ((width - 1) >> TILE_SHIFT) + 1;
+        this.version = grid.getVersion();
+    }
+
+    // Store a path found on the log's grid; returns its id. It is checked in full by
+    // the next validate, since it may have been found on an older grid.
+    public int add(CompactPath path) {
+        if (path.getWidth() != width) {
+            throw new IllegalArgumentException("Path is for a grid " + path.getWidth() + " wide, not " + width);
+        }
+        int[] cells = path.routeCells();
+        int[] entered = Arrays.copyOfRange(cells, Math.min(1, cells.length), cells.length);
+        Arrays.sort(entered);
+        Entry entry = new Entry(nextId++, entered);
+        entries.put(entry.id, entry);
+        index(entry);
+        added.add(entry);
+        return entry.id;
+    }
+
+    public void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            unindex(entry);
+            added.remove(entry);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Ids (ascending) of the stored paths that cross a cell blocked since the last
+    // validation. They are removed; store the replanned paths with add.
+    public int[] validate() {
+        Set<Entry> stale = new HashSet<>();
+        int[] changed = log.changedSince(version);
+        if (changed == null) {
+            for (Entry entry : entries.values()) {
+                if (blocked(entry)) {
+                    stale.add(entry);
+                }
+            }
+        } else {
+            for (int cell : changed) {
+                if (!grid.isObstacle(cell % width, cell / width)) {
+                    continue;
+                }
+                Set<Entry> nearby = tiles.get(tileOf(cell));
+                if (nearby == null) {
+                    continue;
+                }
+                for (Entry entry : nearby) {
+                    if (Arrays.binarySearch(entry.sortedCells, cell) >= 0) {
+                        stale.add(entry);
+                    }
+                }
+            }
+            for (Entry entry : added) {
+                if (blocked(entry)) {
+                    stale.add(entry);
+                }
+            }
+        }
+        added.clear();
+        version = grid.getVersion();
+
+        int[] ids = new int[stale.size()];
+        int i = 0;
+        for (Entry entry : stale) {
+            ids[i++] = entry.id;
+            entries.remove(entry.id);
+            unindex(entry);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private boolean blocked(Entry entry) {
+        for (int cell : entry.sortedCells) {
+            if (grid.isObstacle(cell % width, cell / width)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void index(Entry entry) {
+        Set<Integer> keys = new HashSet<>();
+        for (int cell : entry.sortedCells) {
+            keys.add(tileOf(cell));
+        }
+        entry.tileKeys = new int[keys.size()];
+        int i = 0;
+        for (int tile : keys) {
+            entry.tileKeys[i++] = tile;
+            tiles.computeIfAbsent(tile, k -> new HashSet<>()).add(entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (int tile : entry.tileKeys) {
+            Set<Entry> set = tiles.get(tile);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    tiles.remove(tile);
+                }
+            }
+        }
+    }
+
+    private int tileOf(int cell) {
+        return ((cell / width) >> TILE_SHIFT) * tilesX + ((cell % width) >> TILE_SHIFT);
+    }
+}
@@ -0,0 +1,25 @@
+// One start/goal pair for AStar.findPaths
+public class Query {
+    public final int startX;
+    public final int startY;
+    public final int goalX;
+    public final int goalY;
+    public final SearchMode mode;
+
+    public Query(int startX, int startY, int goalX, int goalY) {
+        this(startX, startY, goalX, goalY, SearchMode.ASTAR);
+    }
+
+    public Query(int startX, int startY, int goalX, int goalY, SearchMode mode) {
+        this.startX = startX;
+        this.startY = startY;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.mode = mode;
+    }
+
+    @Override
+    public String toString() {
+        return "Query(" + startX + ", " + startY + ") -> (" + goalX + ", " + goalY + ") " + mode;
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Runs an A* search on a worker thread, a batch of expansions at a time, and
+// publishes what each batch changed (cells opened, cells closed) on a lock-free
+// queue. A UI polls the queue once per frame and redraws just those cells, so the
+// window stays responsive and drawing cost follows the search, not the grid size.
+//
+//   SearchAnimation animation = new SearchAnimation(grid, start, goal, 50, 10);
+//   animation.start();
+//   // every frame: for (Frame f; (f = animation.poll()) != null; ) draw f
+//
+// The grid must not change while the animation runs; cancel it first.
+public class SearchAnimation {
+
+    // Cells changed by one batch of expansions. The last frame has finished set and
+    // carries the path (null if none was found) and the final cost field.
+    public static final class Frame {
+        public final int[] opened;
+        public final int[] closed;
+        public final boolean finished;
+        public final SearchResult result;
+        public final CostField costs;
+
+        Frame(int[] opened, int[] closed, boolean finished, SearchResult result, CostField costs) {
+            this.opened = opened;
+            this.closed = closed;
+            this.finished = finished;
+            this.result = result;
+            this.costs = costs;
+        }
+    }
+
+    private final Grid grid;
+    private final Node start;
+    private final Node goal;
+    private final int expansionsPerFrame;
+    private final long pauseMillis;
+    private final AStarEngine engine = new AStarEngine();
+    private final ConcurrentLinkedQueue<Frame> frames = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private Thread worker;
+
+    // expansionsPerFrame cells are expanded per published frame, with a pause of
+    // pauseMillis after each one to keep the search watchable (0 runs flat out)
+    public SearchAnimation(Grid grid, Node start, Node goal, int expansionsPerFrame, long pauseMillis) {
+        this.grid = grid;
+        // Own copies: the result fills in g, h and parent of the start node
+        this.start = new Node(start.x, start.y);
+        this.goal = new Node(goal.x, goal.y);
+        this.expansionsPerFrame = expansionsPerFrame;
+        this.pauseMillis = pauseMillis;
+    }
+
+    public void start() {
+        worker = new Thread(this::run, "search-animation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Stop the search; no more frames are published after the current batch
+    public void cancel() {
+        cancelled = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    // Next unconsumed frame, or null if the worker has not published one yet
+    public Frame poll() {
+        return frames.poll();
+    }
+
+    // True once the search has ended, found or not; cancelled searches never finish
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void run() {
+        Recorder recorder = new Recorder();
+        long searchNanos = 0; // Time spent searching, without the pauses
+        long stepStart = System.nanoTime();
+        engine.begin(grid, start.x, start.y, goal.x, goal.y);
+        int status = AStarEngine.RUNNING;
+        while (status == AStarEngine.RUNNING && !cancelled) {
+            status = engine.step(expansionsPerFrame, recorder);
+            searchNanos += System.nanoTime() - stepStart;
+            if (status == AStarEngine.RUNNING) {
+                frames.add(recorder.frame(false, null, null));
+                if (pauseMillis > 0) {
+                    try {
+                        Thread.sleep(pauseMillis);
+                    } catch (InterruptedException e) {
+                        return; // Cancelled
+                    }
+                }
+            }
+            stepStart = System.nanoTime();
+        }
+        if (cancelled) {
+            return;
+        }
+        SearchResult result = AStar.toResult(grid, start, goal, engine, status == AStarEngine.FOUND, searchNanos);
+        frames.add(recorder.frame(true, result, engine.getCostField()));
+        finished = true;
+    }
+
+    // Collects the cells of one batch
+    private static final class Recorder implements SearchObserver {
+        private int[] opened = new int[64];
+        private int openedCount;
+        private int[] closed = new int[64];
+        private int closedCount;
+
+        @Override
+        public void cellOpened(int cell) {
+            if (openedCount == opened.length) {
+                opened = Arrays.copyOf(opened, openedCount << 1);
+            }
+            opened[openedCount++] = cell;
+        }
+
+        @Override
+        public void cellClosed(int cell) {
+            if (closedCount == closed.length) {
+                closed = Arrays.copyOf(closed, closedCount << 1);
+            }
+            closed[closedCount++] = cell;
+        }
+
+        Frame frame(boolean finished, SearchResult result, CostField costs) {
+            Frame frame = new Frame(Arrays.copyOf(opened, openedCount), Arrays.copyOf(closed, closedCount),
+                    finished, result, costs);
+            openedCount = 0;
+            closedCount = 0;
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder event for one AStar.search call. The event's own duration is the
+// wall-clock time of the call, including the reachability check. While no recording
+// enables it, begin/end/shouldCommit are the only work done and the fields are not
+// filled in. Enable it with e.g.
+//
+//   java -XX:StartFlightRecording:filename=search.jfr,settings=profile ...
+//   jfr print --events pathfinding.Search search.jfr
+//
+// and add a threshold (jdk.jfr settings "pathfinding.Search#threshold=10 ms") to
+// keep only the slow searches.
+@Name("pathfinding.Search")
+@Label("Path Search")
+@Category("Pathfinding")
+@Description("One grid path search with its endpoints, work counters and outcome")
+@StackTrace(false)
+class SearchEvent extends jdk.jfr.Event {
+    static final String FOUND = "found";
+    static final String NOT_FOUND = "not found";
+    static final String REJECTED = "rejected"; // Goal blocked or in another component
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Grid Width")
+    int gridWidth;
+
+    @Label("Grid Height")
+    int gridHeight;
+
+    @Label("Start X")
+    int startX;
+
+    @Label("Start Y")
+    int startY;
+
+    @Label("Goal X")
+    int goalX;
+
+    @Label("Goal Y")
+    int goalY;
+
+    @Label("Nodes Expanded")
+    int nodesExpanded;
+
+    @Label("Nodes Pushed")
+    int nodesPushed;
+
+    @Label("Peak Open Size")
+    int peakOpenSize;
+
+    @Label("Reopens")
+    int reopens;
+
+    @Label("Path Length")
+    @Description("Cells on the path, 0 if none was found")
+    int pathLength;
+
+    @Label("Path Cost")
+    double pathCost;
+
+    @Label("Outcome")
+    String outcome;
+}
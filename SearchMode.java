@@ -0,0 +1,7 @@
+// Search algorithm used by AStar.search
+public enum SearchMode {
+    ASTAR,     // Plain A* over all 8 neighbors
+    JPS,       // Jump Point Search, same path cost as A*
+    JPS_PLUS,  // Jump Point Search with precomputed straight jump distances
+    BIDIRECTIONAL // A* from both ends at once, same path cost as A*
+}
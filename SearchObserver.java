@@ -0,0 +1,10 @@
+// Receives the cells a stepped search touches, e.g. to animate it.
+// Cells are indices y * width + x.
+public interface SearchObserver {
+
+    // The cell entered the fringe (for the first time or with a cheaper g)
+    void cellOpened(int cell);
+
+    // The cell was taken from the fringe and expanded
+    void cellClosed(int cell);
+}
@@ -0,0 +1,74 @@
+import java.util.List;
+
+// Path returned by a search together with counters describing how much work it took.
+// Useful for spotting queries that blow up (many expansions for a short path).
+public class SearchResult {
+    private final List<Node> path;       // Path from start to goal, or null if none was found
+    private final double pathCost;       // Cost of the path, 0 if none was found
+    private final int nodesExpanded;     // Nodes popped from the fringe and expanded
+    private final int nodesPushed;       // Nodes inserted into the fringe (first time or reopened)
+    private final int peakOpenSize;      // Largest fringe size seen during the search
+    private final int reopens;           // Closed nodes put back into the fringe with a cheaper g
+    private final long elapsedNanos;     // Wall-clock time spent searching
+    private final double suboptimalityBound; // The path costs at most this times the optimum
+
+    public SearchResult(List<Node> path, double pathCost, int nodesExpanded, int nodesPushed,
+                        int peakOpenSize, int reopens, long elapsedNanos) {
+        this(path, pathCost, nodesExpanded, nodesPushed, peakOpenSize, reopens, elapsedNanos, 1);
+    }
+
+    public SearchResult(List<Node> path, double pathCost, int nodesExpanded, int nodesPushed,
+                        int peakOpenSize, int reopens, long elapsedNanos, double suboptimalityBound) {
+        this.path = path;
+        this.pathCost = pathCost;
+        this.nodesExpanded = nodesExpanded;
+        this.nodesPushed = nodesPushed;
+        this.peakOpenSize = peakOpenSize;
+        this.reopens = reopens;
+        this.elapsedNanos = elapsedNanos;
+        this.suboptimalityBound = suboptimalityBound;
+    }
+
+    public boolean isFound() {
+        return path != null;
+    }
+
+    public List<Node> getPath() {
+        return path;
+    }
+
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public int getNodesPushed() {
+        return nodesPushed;
+    }
+
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    public int getReopens() {
+        return reopens;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // 1 for exact searches; an anytime search reports how close it got within its budget
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchResult[found=%b, cost=%.3f, bound=%.3f, expanded=%d, pushed=%d, peakOpen=%d, reopens=%d, %.3f ms]",
+                isFound(), pathCost, suboptimalityBound, nodesExpanded, nodesPushed, peakOpenSize, reopens, elapsedNanos / 1e6);
+    }
+}
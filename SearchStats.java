@@ -0,0 +1,152 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Cumulative counters and a latency histogram over every AStar.search call, cheap
+// enough to stay on in production: a search reads the clock twice and adds to a
+// few LongAdders and one striped histogram counter (StatsBenchmark measures it).
+// setEnabled(false), also settable over JMX, skips all of that, clock included.
+// Read them directly or, after registerMBean, through JMX (jconsole, or any JMX
+// exporter) as "pathfinding:type=SearchStats". For the details of single slow
+// searches, record SearchEvents with Flight Recorder.
+public class SearchStats implements SearchStatsMBean {
+    public static final String OBJECT_NAME = "pathfinding:type=SearchStats";
+
+    private static final SearchStats GLOBAL = new SearchStats();
+
+    private final LongAdder found = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder nodesPushed = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile boolean enabled = true;
+
+    // The statistics AStar.search records into
+    public static SearchStats global() {
+        return GLOBAL;
+    }
+
+    // The global statistics, or null while they are disabled
+    static SearchStats recording() {
+        return GLOBAL.enabled ? GLOBAL : null;
+    }
+
+    // Register the global statistics with the platform MBean server; registering
+    // twice is harmless
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    // One finished search; rejected ones never reached an engine
+    public void record(boolean wasRejected, boolean wasFound, int expanded, int pushed, long elapsedNanos) {
+        if (wasRejected) {
+            rejected.increment();
+        } else {
+            if (wasFound) {
+                found.increment();
+            } else {
+                notFound.increment();
+            }
+            nodesExpanded.add(expanded);
+            nodesPushed.add(pushed);
+        }
+        latency.record(elapsedNanos);
+    }
+
+    // Latencies in nanoseconds
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Whether AStar records into the global statistics; the counts so far are kept
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getSearches() {
+        return found.sum() + notFound.sum() + rejected.sum();
+    }
+
+    @Override
+    public long getFound() {
+        return found.sum();
+    }
+
+    @Override
+    public long getNotFound() {
+        return notFound.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    @Override
+    public long getNodesPushed() {
+        return nodesPushed.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latency.getMean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP90Micros() {
+        return latency.getValueAtPercentile(90) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latency.getValueAtPercentile(99.9) / 1e3;
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latency.getMax() / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        found.reset();
+        notFound.reset();
+        rejected.reset();
+        nodesExpanded.reset();
+        nodesPushed.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,37 @@
+// JMX view of SearchStats: cumulative search counters and latency percentiles.
+// Registered under "pathfinding:type=SearchStats" by SearchStats.registerMBean.
+public interface SearchStatsMBean {
+
+    // Whether searches are being counted; a writable attribute
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getSearches();
+
+    long getFound();
+
+    long getNotFound();
+
+    // Searches answered without running an engine: goal blocked or unreachable
+    long getRejected();
+
+    long getNodesExpanded();
+
+    long getNodesPushed();
+
+    // Latencies in microseconds, over all searches since the last reset
+    double getLatencyMeanMicros();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP90Micros();
+
+    double getLatencyP99Micros();
+
+    double getLatencyP999Micros();
+
+    double getLatencyMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+// Grid with a traversal cost per cell, e.g. 0.5 for roads and 3 for mud. Entering
+// a cell costs its cost times the step length (1 or sqrt(2)). Costs live in one
+// row-major float array (index y * width + x), so region updates and imports are
+// plain loops over contiguous row slices that the JIT can unroll and vectorize.
+//
+// Obstacles work as in Grid. AStarEngine (SearchMode.ASTAR) honors the costs and
+// scales its heuristic by the smallest cost so it stays admissible; engines that
+// assume unit costs reject the grid unless every cell costs 1.
+//
+// Every cost update brings the smallest and largest cost up to date before it
+// returns, so the getters only read and searches on many threads can share an
+// unchanged grid. The bounds keep a count of the cells at each; an update rescans
+// the grid only when it removes the last cell at a bound, and scaleCost and
+// importCosts always rescan, since they touch a region or all of it anyway.
+public class TerrainGrid extends Grid {
+    private final float[] costs;
+    private float minCost = 1;
+    private float maxCost = 1;
+    private int minCount; // Cells that cost minCost
+    private int maxCount; // Cells that cost maxCost
+
+    public TerrainGrid(int width, int height) {
+        super(width, height);
+        costs = new float[cellCount("TerrainGrid")];
+        Arrays.fill(costs, 1f);
+        minCount = costs.length;
+        maxCount = costs.length;
+    }
+
+    @Override
+    public float getCost(int x, int y) {
+        return costs[y * getWidth() + x];
+    }
+
+    public void setCost(int x, int y, float cost) {
+        checkCost(cost);
+        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside the grid");
+        }
+        int cell = y * getWidth() + x;
+        if (costs[cell] == cost) {
+            return;
+        }
+        float old = costs[cell];
+        costs[cell] = cost;
+        if (removeFromBounds(old, 1)) {
+            rescanBounds();
+        } else {
+            addToBounds(cost, 1);
+        }
+        notifyCellChanged(x, y);
+    }
+
+    // Set every cell of the rectangle [x0, x1) x [y0, y1), clipped to the grid
+    public void fillCost(int x0, int y0, int x1, int y1, float cost) {
+        checkCost(cost);
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(getWidth(), x1);
+        y1 = Math.min(getHeight(), y1);
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        int atMin = 0;
+        int atMax = 0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * getWidth();
+            for (int i = row + x0; i < row + x1; i++) {
+                atMin += costs[i] == minCost ? 1 : 0;
+                atMax += costs[i] == maxCost ? 1 : 0;
+            }
+            Arrays.fill(costs, row + x0, row + x1, cost);
+        }
+        minCount -= atMin;
+        maxCount -= atMax;
+        if (minCount == 0 || maxCount == 0) {
+            rescanBounds();
+        } else {
+            addToBounds(cost, (x1 - x0) * (y1 - y0));
+        }
+        notifyAllChanged();
+    }
+
+    // Multiply the costs of the rectangle [x0, x1) x [y0, y1) by factor, clipped to the grid.
+    // A product that overflows to infinity or underflows to zero would break the
+    // engines' cost invariants, so then nothing changes and it throws instead.
+    public void scaleCost(int x0, int y0, int x1, int y1, float factor) {
+        checkCost(factor);
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(getWidth(), x1);
+        y1 = Math.min(getHeight(), y1);
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        float[] costs = this.costs;
+        for (int y = y0; y < y1; y++) {
+            int end = y * getWidth() + x1;
+            for (int i = y * getWidth() + x0; i < end; i++) {
+                float scaled = costs[i] * factor;
+                if (!(scaled > 0) || scaled == Float.POSITIVE_INFINITY) {
+                    throw new IllegalArgumentException("Scaling cell (" + (i - y * getWidth()) + ", " + y + ") cost "
+                            + costs[i] + " by " + factor + " leaves the float range");
+                }
+            }
+        }
+        for (int y = y0; y < y1; y++) {
+            int end = y * getWidth() + x1;
+            for (int i = y * getWidth() + x0; i < end; i++) {
+                costs[i] *= factor;
+            }
+        }
+        rescanBounds();
+        notifyAllChanged();
+    }
+
+    // Replace all costs with a row-major array of width * height values
+    public void importCosts(float[] source) {
+        if (source.length != costs.length) {
+            throw new IllegalArgumentException("Expected " + costs.length + " costs, got " + source.length);
+        }
+        if (hasInvalid(source)) {
+            throw new IllegalArgumentException("Costs must be positive and finite");
+        }
+        System.arraycopy(source, 0, costs, 0, costs.length);
+        rescanBounds();
+        notifyAllChanged();
+    }
+
+    @Override
+    public float getMinCost() {
+        return minCost;
+    }
+
+    public float getMaxCost() {
+        return maxCost;
+    }
+
+    @Override
+    public boolean hasUniformCosts() {
+        return minCost == 1 && maxCost == 1;
+    }
+
+    // The backing array, for engines that read costs in their inner loop
+    float[] costArray() {
+        return costs;
+    }
+
+    // Take count cells that cost old out of the bounds; true if that empties one
+    private boolean removeFromBounds(float old, int count) {
+        if (old == minCost) {
+            minCount -= count;
+        }
+        if (old == maxCost) {
+            maxCount -= count;
+        }
+        return minCount == 0 || maxCount == 0;
+    }
+
+    // Count count more cells that cost cost in the bounds
+    private void addToBounds(float cost, int count) {
+        if (cost < minCost) {
+            minCost = cost;
+            minCount = count;
+        } else if (cost == minCost) {
+            minCount += count;
+        }
+        if (cost > maxCost) {
+            maxCost = cost;
+            maxCount = count;
+        } else if (cost == maxCost) {
+            maxCount += count;
+        }
+    }
+
+    private void rescanBounds() {
+        float min = Float.POSITIVE_INFINITY;
+        float max = 0;
+        for (float cost : costs) {
+            min = Math.min(min, cost);
+            max = Math.max(max, cost);
+        }
+        int atMin = 0;
+        int atMax = 0;
+        for (float cost : costs) {
+            atMin += cost == min ? 1 : 0;
+            atMax += cost == max ? 1 : 0;
+        }
+        minCost = min;
+        maxCost = max;
+        minCount = atMin;
+        maxCount = atMax;
+    }
+
+    // True if any value is zero, negative, infinite or NaN
+    private static boolean hasInvalid(float[] values) {
+        for (float value : values) {
+            if (!(value > 0) || value == Float.POSITIVE_INFINITY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkCost(float cost) {
+        if (!(cost > 0) || cost == Float.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Cost must be positive and finite: " + cost);
+        }
+    }
+}
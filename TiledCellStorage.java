@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// Obstacle words split into fixed-size tiles, for the copy-on-write snapshots of
+// VersionedGrid. freeze() hands out a read-only view that shares every tile; the
+// first write to a tile afterwards copies that tile, so the view never changes and
+// an edit costs at most one tile copy however large the grid is. Tiles that were
+// never written share one all-free tile, so an empty grid costs only the tile table.
+class TiledCellStorage implements CellStorage {
+    static final int TILE_SHIFT = 9; // 512 words (32768 cells, 4 KiB) per tile
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+    private static final long[] EMPTY_TILE = new long[1 << TILE_SHIFT]; // Never written
+
+    private final long wordCount;
+    private final long[][] tiles;
+    private final int[] ownedIn; // Epoch in which the tile was copied; null when read-only
+    private int epoch = 1;       // Tiles copied in an earlier epoch may be shared
+    private int tilesCopied;
+
+    TiledCellStorage(long wordCount) {
+        this(wordCount, new long[Math.toIntExact((wordCount + TILE_MASK) >>> TILE_SHIFT)][], true);
+        Arrays.fill(tiles, EMPTY_TILE);
+    }
+
+    private TiledCellStorage(long wordCount, long[][] tiles, boolean writable) {
+        this.wordCount = wordCount;
+        this.tiles = tiles;
+        this.ownedIn = writable ? new int[tiles.length] : null;
+    }
+
+    // Read-only view of the current words. The tiles become shared, so later
+    // writes here copy them first.
+    TiledCellStorage freeze() {
+        TiledCellStorage frozen = new TiledCellStorage(wordCount, tiles.clone(), false);
+        nextEpoch();
+        tilesCopied = 0;
+        return frozen;
+    }
+
+    // Tiles copied since the last freeze
+    int getTilesCopied() {
+        return tilesCopied;
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return tiles[(int) (wordIndex >>> TILE_SHIFT)][(int) wordIndex & TILE_MASK];
+    }
+
+    @Override
+    public void setWord(long wordIndex, long word) {
+        checkWritable();
+        int t = (int) (wordIndex >>> TILE_SHIFT);
+        int i = (int) wordIndex & TILE_MASK;
+        long[] tile = tiles[t];
+        if (tile[i] == word) {
+            return; // Keeps bulk rewrites of unchanged rows from copying
+        }
+        if (ownedIn[t] != epoch) {
+            tile = tile.clone();
+            tiles[t] = tile;
+            ownedIn[t] = epoch;
+            tilesCopied++;
+        }
+        tile[i] = word;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        Arrays.fill(tiles, EMPTY_TILE);
+        nextEpoch();
+    }
+
+    private void nextEpoch() {
+        if (ownedIn != null && ++epoch == 0) {
+            // Counter wrapped; forget every stamp so no shared tile looks owned
+            Arrays.fill(ownedIn, 0);
+            epoch = 1;
+        }
+    }
+
+    private void checkWritable() {
+        if (ownedIn == null) {
+            throw new UnsupportedOperationException("Grid snapshots are read-only");
+        }
+    }
+}
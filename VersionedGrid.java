@@ -0,0 +1,60 @@
+// Grid for one writer thread and any number of reader threads. The writer edits it
+// like any Grid (listeners included) and calls publish() to make its edits visible
+// at once; readers take snapshot() and search that. A snapshot never changes, so a
+// search sees one consistent map however long it runs, and nobody takes a lock:
+//
+//   GridSnapshot map = world.snapshot();   // any thread
+//   SearchResult result = AStar.search(map, start, goal, SearchMode.ASTAR);
+//
+//   world.setObstacle(x, y, true);         // the writer
+//   world.publish();
+//
+// Cells are stored in tiles of 32768 (TiledCellStorage). A snapshot shares every
+// tile with the grid, and only the first edit of a tile after a publish copies it,
+// so edits cost O(changed tiles) and a publish copies the tile table, never the map.
+// The writer keeps component labels up to date through its edits, and each publish
+// hands the snapshot a frozen copy that shares the label tiles no edit touched, so
+// a snapshot's canReach (AStar.search asks) never builds labels of its own. Only the
+// first publish and the first after a bulk change pay a pass over the cells.
+public class VersionedGrid extends Grid {
+    private final TiledCellStorage storage;
+    private volatile GridSnapshot published;
+    private int publishedAt; // getVersion() when the last snapshot was taken
+
+    public VersionedGrid(int width, int height) {
+        this(width, height, new TiledCellStorage((long) ((width + 63) >>> 6) * height));
+    }
+
+    private VersionedGrid(int width, int height, TiledCellStorage storage) {
+        super(width, height, storage);
+        this.storage = storage;
+        this.published = new GridSnapshot(width, height, storage.freeze(), 0);
+    }
+
+    // The latest published state; safe to call from any thread
+    public GridSnapshot snapshot() {
+        return published;
+    }
+
+    // Make the edits so far visible to snapshot() and return the new snapshot.
+    // Without edits since the last publish the current snapshot is kept.
+    public GridSnapshot publish() {
+        GridSnapshot current = published;
+        if (getVersion() == publishedAt) {
+            return current;
+        }
+        publishedAt = getVersion();
+        GridSnapshot next = new GridSnapshot(getWidth(), getHeight(), storage.freeze(), current.getVersion() + 1);
+        ComponentLabels labels = getComponentLabels();
+        if (labels != null) {
+            next.setComponentLabels(labels.freeze(next));
+        }
+        published = next;
+        return next;
+    }
+
+    // Tiles copied by edits since the last publish
+    public int getTilesCopied() {
+        return storage.getTilesCopied();
+    }
+}
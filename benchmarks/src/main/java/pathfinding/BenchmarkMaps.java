@@ -0,0 +1,41 @@
+package pathfinding;
+
+// Benchmark maps; the same kind and size always gives the same grid, so two runs
+// search exactly the same maps. Start (0, 0) and goal (size - 1, size - 1) are
+// always free.
+final class BenchmarkMaps {
+    static final long SEED = 42;
+
+    private BenchmarkMaps() {
+    }
+
+    static Grid generate(String kind, int size) {
+        Grid grid = new Grid(size, size);
+        long seed = SEED + size;
+        switch (kind) {
+            case "open":
+                break;
+            case "maze":
+                // With an even size the goal sits diagonally next to the last room
+                MapGenerator.maze(grid, seed);
+                break;
+            case "random25":
+                MapGenerator.random(grid, 0.25, seed);
+                break;
+            case "random40":
+                MapGenerator.random(grid, 0.40, seed);
+                break;
+            case "rooms":
+                MapGenerator.rooms(grid, seed);
+                break;
+            case "caves":
+                MapGenerator.caves(grid, 0.45, 5, seed);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown map kind " + kind);
+        }
+        grid.setObstacle(0, 0, false);
+        grid.setObstacle(size - 1, size - 1, false);
+        return grid;
+    }
+}
@@ -0,0 +1,28 @@
+package pathfinding;
+
+import java.util.Arrays;
+
+// Cells one-way and bidirectional A* expand corner to corner on each benchmark
+// map. Search effort does not depend on the machine, so this is a plain count
+// rather than a JMH benchmark.
+//
+//   java -cp target/benchmarks.jar pathfinding.ExpansionCounts [sizes, e.g. 64,256]
+public class ExpansionCounts {
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {64, 256, 1024, 4096};
+        for (int size : sizes) {
+            for (String map : new String[] {"open", "maze", "random25", "random40"}) {
+                Grid grid = BenchmarkMaps.generate(map, size);
+                Node start = new Node(0, 0);
+                Node goal = new Node(size - 1, size - 1);
+                int oneWay = AStar.search(grid, start, goal, SearchMode.ASTAR).getNodesExpanded();
+                int bothWays = AStar.search(grid, start, goal, SearchMode.BIDIRECTIONAL).getNodesExpanded();
+                System.out.printf("%-20s aStar %d, bidirectional %d (%.0f%%)%n", map + "." + size, oneWay, bothWays,
+                        oneWay == 0 ? 100.0 : 100.0 * bothWays / oneWay);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pathfinding;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Grid.isObstacle over every cell of the random25 map, row by row and column by
+// column. A score is one full scan of size * size cells, so the two orders
+// compare directly at each size.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class GridAccessBenchmark {
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Grid grid;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkMaps.generate("random25", size);
+    }
+
+    @Benchmark
+    public long rowMajor() {
+        long count = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.isObstacle(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long columnMajor() {
+        long count = 0;
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                if (grid.isObstacle(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
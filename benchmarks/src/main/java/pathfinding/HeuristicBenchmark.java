@@ -0,0 +1,86 @@
+package pathfinding;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// AStar.calculateHeuristic on Nodes against the octile, euclidean and manhattan
+// formulas on packed coordinates, over the same random pairs. Scores are per pair.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+    private static final int PAIRS = 1024;
+
+    private final Node[] from = new Node[PAIRS];
+    private final Node[] to = new Node[PAIRS];
+    private final int[] coordinates = new int[PAIRS * 4]; // fromX, fromY, toX, toY per pair
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkMaps.SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = new Node(random.nextInt(4096), random.nextInt(4096));
+            to[i] = new Node(random.nextInt(4096), random.nextInt(4096));
+            coordinates[i * 4] = from[i].x;
+            coordinates[i * 4 + 1] = from[i].y;
+            coordinates[i * 4 + 2] = to[i].x;
+            coordinates[i * 4 + 3] = to[i].y;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double calculateHeuristic() {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += AStar.calculateHeuristic(from[i], to[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double octile() {
+        double sum = 0;
+        for (int i = 0; i < coordinates.length; i += 4) {
+            sum += AStarEngine.heuristic(coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double euclidean() {
+        double sum = 0;
+        for (int i = 0; i < coordinates.length; i += 4) {
+            int dx = coordinates[i] - coordinates[i + 2];
+            int dy = coordinates[i + 1] - coordinates[i + 3];
+            sum += Math.sqrt(dx * dx + dy * dy);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public long manhattan() {
+        long sum = 0;
+        for (int i = 0; i < coordinates.length; i += 4) {
+            sum += Math.abs(coordinates[i] - coordinates[i + 2]) + Math.abs(coordinates[i + 1] - coordinates[i + 3]);
+        }
+        return sum;
+    }
+}
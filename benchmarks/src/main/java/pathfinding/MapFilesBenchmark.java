@@ -0,0 +1,60 @@
+package pathfinding;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to load a random25 map saved as Moving AI .map text and as RLE; the files
+// are written once per trial, so after the first iteration they come from the
+// page cache and the numbers are parsing, not disk
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MapFilesBenchmark {
+    @Param({"256", "1024", "4096"})
+    public int size;
+
+    private Path movingAi;
+    private Path rle;
+
+    @Setup
+    public void setUp() throws IOException {
+        Grid grid = BenchmarkMaps.generate("random25", size);
+        movingAi = Files.createTempFile("bench", ".map");
+        rle = Files.createTempFile("bench", ".rle");
+        MapFiles.saveMovingAi(grid, movingAi);
+        MapFiles.saveRle(grid, rle);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(movingAi);
+        Files.deleteIfExists(rle);
+    }
+
+    @Benchmark
+    public Grid loadMovingAi() throws IOException {
+        return MapFiles.loadMovingAi(movingAi);
+    }
+
+    @Benchmark
+    public Grid loadRle() throws IOException {
+        return MapFiles.loadRle(rle);
+    }
+}
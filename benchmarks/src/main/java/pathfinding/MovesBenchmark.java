@@ -0,0 +1,51 @@
+package pathfinding;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every neighborhood and heuristic of AStarEngine on the random25 map. EIGHT with
+// OCTILE is the configuration of SearchBenchmark.aStar and should run just as fast.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MovesBenchmark {
+    @Param
+    public Neighborhood neighborhood;
+
+    @Param
+    public Heuristic heuristic;
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+    private AStarEngine engine;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkMaps.generate("random25", size);
+        start = new Node(0, 0);
+        goal = new Node(size - 1, size - 1);
+        engine = new AStarEngine(neighborhood, heuristic);
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return AStar.search(grid, start, goal, engine);
+    }
+}
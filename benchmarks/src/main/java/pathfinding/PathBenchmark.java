@@ -0,0 +1,61 @@
+package pathfinding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The same random25 query returning a Node per cell, packed cell indices, their
+// run-length encoding and smoothed waypoints; -prof gc shows what a path costs
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PathBenchmark {
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkMaps.generate("random25", size);
+        start = new Node(0, 0);
+        goal = new Node(size - 1, size - 1);
+    }
+
+    @Benchmark
+    public List<Node> nodes() {
+        return AStar.aStar(grid, start, goal);
+    }
+
+    @Benchmark
+    public CompactPath compact() {
+        return AStar.findPath(grid, 0, 0, size - 1, size - 1, SearchMode.ASTAR);
+    }
+
+    @Benchmark
+    public byte[] encoded() {
+        CompactPath path = AStar.findPath(grid, 0, 0, size - 1, size - 1, SearchMode.ASTAR);
+        return path == null ? null : path.encode();
+    }
+
+    @Benchmark
+    public CompactPath smoothed() {
+        CompactPath path = AStar.findPath(grid, 0, 0, size - 1, size - 1, SearchMode.ASTAR);
+        return path == null ? null : path.smooth(grid);
+    }
+}
@@ -0,0 +1,52 @@
+package pathfinding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A* corner to corner, through the Node-list API, and bidirectional A* on the
+// same maps. Run with -prof gc for the bytes allocated per search.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SearchBenchmark {
+    @Param({"open", "maze", "random25", "random40"})
+    public String map;
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkMaps.generate(map, size);
+        start = new Node(0, 0);
+        goal = new Node(size - 1, size - 1);
+    }
+
+    @Benchmark
+    public List<Node> aStar() {
+        return AStar.aStar(grid, start, goal);
+    }
+
+    @Benchmark
+    public SearchResult bidirectional() {
+        return AStar.search(grid, start, goal, SearchMode.BIDIRECTIONAL);
+    }
+}
@@ -0,0 +1,72 @@
+package pathfinding;
+
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// What observing AStar.search costs, on a rejected query (no engine runs, so the
+// bookkeeping is most of the time) and a short found one, with SearchStats off,
+// SearchStats on, and a Flight Recorder recording of every SearchEvent with the
+// stats off. Add -t 4 to see whether recorders on several threads contend.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class StatsBenchmark {
+    @Param({"off", "stats", "jfr"})
+    public String mode;
+
+    private Grid grid;
+    private Node start;
+    private Node blockedGoal;
+    private Node nearGoal;
+    private Recording recording;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = BenchmarkMaps.generate("open", 64);
+        grid.setObstacle(63, 63, true);
+        start = new Node(0, 0);
+        blockedGoal = new Node(63, 63);
+        nearGoal = new Node(8, 5);
+        SearchStats.global().setEnabled(mode.equals("stats"));
+        if (mode.equals("jfr")) {
+            recording = new Recording();
+            recording.enable("pathfinding.Search");
+            recording.setToDisk(false);
+            recording.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (recording != null) {
+            recording.close();
+        }
+        SearchStats.global().setEnabled(true);
+    }
+
+    @Benchmark
+    public SearchResult rejected() {
+        return AStar.search(grid, start, blockedGoal);
+    }
+
+    @Benchmark
+    public SearchResult found() {
+        return AStar.search(grid, start, nearGoal);
+    }
+}
@@ -0,0 +1,54 @@
+package pathfinding;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Goal walled off from the start on the random40 map: AStar rejects the query
+// from the grid's component labels, a bare engine has to exhaust the start's
+// whole region
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class UnreachableBenchmark {
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+    private AStarEngine engine;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkMaps.generate("random40", size);
+        grid.setObstacle(size - 2, size - 1, true);
+        grid.setObstacle(size - 1, size - 2, true);
+        grid.setObstacle(size - 2, size - 2, true);
+        start = new Node(0, 0);
+        goal = new Node(size - 1, size - 1);
+        engine = new AStarEngine();
+    }
+
+    @Benchmark
+    public SearchResult aStar() {
+        return AStar.search(grid, start, goal);
+    }
+
+    @Benchmark
+    public boolean engine() {
+        return engine.search(grid, 0, 0, size - 1, size - 1);
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+// AStar.findPaths completes every future of a batch, with the same result as a
+// single search or with the exception the search threw
+class BatchSearchTest {
+
+    @Test
+    void everyFutureCompletes() {
+        TerrainGrid grid = new TerrainGrid(40, 40);
+        grid.fillCost(0, 0, 20, 40, 3); // JPS rejects grids with cell costs by throwing
+        grid.fillCost(25, 5, 35, 30, 0.5f);
+        SplittableRandom random = new SplittableRandom(1);
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            SearchMode mode = i % 7 == 0 ? SearchMode.JPS : SearchMode.ASTAR;
+            queries.add(new Query(random.nextInt(40), random.nextInt(40), random.nextInt(40), random.nextInt(40), mode));
+        }
+        List<CompletableFuture<SearchResult>> results = AStar.findPaths(grid, queries);
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).handle((r, e) -> null).join());
+        for (int i = 0; i < queries.size(); i++) {
+            Query query = queries.get(i);
+            CompletableFuture<SearchResult> result = results.get(i);
+            assertTrue(result.isDone());
+            if (query.mode == SearchMode.JPS) {
+                ExecutionException e = assertThrows(ExecutionException.class, result::get);
+                assertTrue(e.getCause() instanceof IllegalArgumentException, query.toString());
+            } else {
+                SearchResult single = AStar.search(grid, new Node(query.startX, query.startY),
+                        new Node(query.goalX, query.goalY));
+                assertEquals(single.isFound(), result.join().isFound(), query.toString());
+                assertEquals(single.getPathCost(), result.join().getPathCost(), 1e-9, query.toString());
+            }
+        }
+    }
+}
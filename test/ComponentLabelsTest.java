@@ -0,0 +1,158 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Grid.canReach against a breadth-first flood fill, on freshly built labels and
+// on labels kept up to date through single-cell edits and bulk changes, and
+// splits relabeled in place
+class ComponentLabelsTest {
+    private static final int WIDTH = 70;
+    private static final int HEIGHT = 150; // Tall enough to be labeled in several strips
+
+    @Test
+    void canReachMatchesFloodFill() {
+        for (long seed = 1; seed <= 3; seed++) {
+            Grid grid = new Grid(WIDTH, HEIGHT);
+            MapGenerator.caves(grid, 0.45, 3, seed);
+            checkAgainstFloodFill(grid, new SplittableRandom(seed));
+        }
+    }
+
+    @Test
+    void canReachFollowsEdits() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.4, 5);
+        SplittableRandom random = new SplittableRandom(5);
+        grid.canReach(0, 0, 0, 0); // Build the labels before editing
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < 20; i++) {
+                grid.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            }
+            checkAgainstFloodFill(grid, random);
+        }
+        MapGenerator.maze(grid, 6);
+        checkAgainstFloodFill(grid, random);
+    }
+
+    @Test
+    void canReachFollowsSplits() {
+        // Blocking a corridor of a perfect maze always cuts it in two
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.maze(grid, 7);
+        SplittableRandom random = new SplittableRandom(7);
+        grid.canReach(0, 0, 0, 0);
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 5; i++) {
+                int x = random.nextInt(WIDTH);
+                int y = random.nextInt(HEIGHT);
+                grid.setObstacle(x, y, (x & y & 1) == 0 || random.nextInt(4) == 0);
+            }
+            checkAgainstFloodFill(grid, random);
+        }
+    }
+
+    @Test
+    void splitsAreRelabeledWithoutARebuild() {
+        Grid grid = new Grid(1024, 1024);
+        // A 10x10 room with a door at (105, 100) and a wall from (500, 100) to (500, 200)
+        // with a gap at (500, 150)
+        for (int i = 100; i <= 111; i++) {
+            grid.setObstacle(i, 100, i != 105);
+            grid.setObstacle(i, 111, true);
+            grid.setObstacle(100, i, true);
+            grid.setObstacle(111, i, true);
+        }
+        for (int y = 100; y <= 200; y++) {
+            grid.setObstacle(500, y, y != 150);
+        }
+        ComponentLabels labels = new ComponentLabels(grid);
+        assertTrue(labels.connected(105, 105, 0, 0));
+
+        grid.setObstacle(105, 100, true); // Closes the room
+        assertTrue(labels.isCurrent());
+        assertFalse(labels.connected(105, 105, 0, 0));
+        assertFalse(labels.connected(0, 0, 101, 110));
+        assertTrue(labels.connected(105, 105, 101, 110));
+        assertTrue(labels.connected(0, 0, 1023, 1023));
+
+        grid.setObstacle(500, 150, true); // Both sides still meet around the wall
+        assertTrue(labels.isCurrent());
+        assertTrue(labels.connected(499, 150, 501, 150));
+
+        grid.setObstacle(105, 100, false);
+        assertTrue(labels.isCurrent());
+        assertTrue(labels.connected(105, 105, 0, 0));
+    }
+
+    private static void checkAgainstFloodFill(Grid grid, SplittableRandom random) {
+        int[] component = floodFill(grid);
+        for (int q = 0; q < 500; q++) {
+            int start = random.nextInt(WIDTH * HEIGHT);
+            int goal = random.nextInt(WIDTH * HEIGHT);
+            boolean expected = component[goal] >= 0 && reachesComponent(grid, component, start, component[goal]);
+            assertEquals(expected, grid.canReach(start % WIDTH, start / WIDTH, goal % WIDTH, goal / WIDTH),
+                    "cell " + start + " to " + goal);
+        }
+    }
+
+    // Whether the start is in the component, or borders it when the start is blocked
+    private static boolean reachesComponent(Grid grid, int[] component, int start, int target) {
+        if (component[start] >= 0) {
+            return component[start] == target;
+        }
+        int x = start % WIDTH;
+        int y = start / WIDTH;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                int ny = y + dy;
+                if (nx >= 0 && nx < WIDTH && ny >= 0 && ny < HEIGHT && component[ny * WIDTH + nx] == target) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Component number of every free cell under eight-neighbor moves, -1 for blocked cells
+    private static int[] floodFill(Grid grid) {
+        int[] component = new int[WIDTH * HEIGHT];
+        Arrays.fill(component, -2);
+        int next = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cell = 0; cell < component.length; cell++) {
+            if (grid.isObstacle(cell % WIDTH, cell / WIDTH)) {
+                component[cell] = -1;
+                continue;
+            }
+            if (component[cell] != -2) {
+                continue;
+            }
+            component[cell] = next;
+            queue.add(cell);
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                int x = current % WIDTH;
+                int y = current / WIDTH;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx >= 0 && nx < WIDTH && ny >= 0 && ny < HEIGHT && !grid.isObstacle(nx, ny)
+                                && component[ny * WIDTH + nx] == -2) {
+                            component[ny * WIDTH + nx] = next;
+                            queue.add(ny * WIDTH + nx);
+                        }
+                    }
+                }
+            }
+            next++;
+        }
+        return component;
+    }
+}
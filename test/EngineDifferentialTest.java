@@ -0,0 +1,353 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Every engine against a plain Dijkstra over the same moves and costs: the same
+// answer to "is there a path", the optimal cost (HPA* only has to stay above it),
+// and a path that is a chain of legal moves from start to goal whose steps add up
+// to the reported cost. Maps are seeded, so a failure reproduces.
+class EngineDifferentialTest {
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 40;
+    private static final int QUERIES = 150;
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void enginesMatchDijkstraOnRandomMaps() {
+        for (long seed = 1; seed <= 4; seed++) {
+            Grid grid = new Grid(WIDTH, HEIGHT);
+            MapGenerator.random(grid, 0.3, seed);
+            List<PathSearch> engines = List.of(new AStarEngine(), new JumpPointSearch(false),
+                    new JumpPointSearch(true), new BidirectionalSearch(),
+                    new AnytimeSearch(2.5, Long.MAX_VALUE), new IncrementalPlanner(grid));
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int q = 0; q < QUERIES; q++) {
+                int start = random.nextInt(WIDTH * HEIGHT);
+                int goal = otherCell(random, start);
+                double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+                for (PathSearch engine : engines) {
+                    checkOptimal(grid, Neighborhood.EIGHT, engine, start, goal, optimum);
+                }
+            }
+        }
+    }
+
+    @Test
+    void jumpTablesFollowEdits() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.25, 9);
+        JumpPointSearch first = new JumpPointSearch(true);
+        JumpPointSearch second = new JumpPointSearch(true);
+        SplittableRandom random = new SplittableRandom(9);
+        for (int round = 0; round < 20; round++) {
+            for (int q = 0; q < 10; q++) {
+                int start = random.nextInt(WIDTH * HEIGHT);
+                int goal = otherCell(random, start);
+                double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+                checkOptimal(grid, Neighborhood.EIGHT, first, start, goal, optimum);
+                checkOptimal(grid, Neighborhood.EIGHT, second, start, goal, optimum);
+            }
+            for (int i = 0; i < 5; i++) {
+                grid.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            }
+        }
+    }
+
+    // D* Lite's repair: the goal stays put while cells change and the start walks
+    // along the path, so every search after the first reuses the previous one
+    @Test
+    void incrementalPlannerRepairsAfterEditsAndStartMoves() {
+        for (long seed = 1; seed <= 4; seed++) {
+            Grid grid = new Grid(WIDTH, HEIGHT);
+            MapGenerator.random(grid, 0.25, seed);
+            SplittableRandom random = new SplittableRandom(seed);
+            int goal = random.nextInt(WIDTH * HEIGHT);
+            grid.setObstacle(goal % WIDTH, goal / WIDTH, false);
+            int start = otherCell(random, goal);
+            IncrementalPlanner planner = new IncrementalPlanner(grid);
+            long repairedExpansions = 0;
+            long freshExpansions = 0;
+            for (int round = 0; round < 60 && start != goal; round++) {
+                double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+                checkOptimal(grid, Neighborhood.EIGHT, planner, start, goal, optimum);
+                if (round > 0) {
+                    repairedExpansions += planner.getNodesExpanded();
+                    IncrementalPlanner fresh = new IncrementalPlanner(grid);
+                    search(grid, fresh, start, goal);
+                    freshExpansions += fresh.getNodesExpanded();
+                    fresh.detach();
+                }
+                if (optimum == Double.POSITIVE_INFINITY) {
+                    start = otherCell(random, goal);
+                } else {
+                    // Block or free cells on and next to the path ahead, then a few anywhere
+                    int length = planner.getPathLength();
+                    for (int i = 0; i < 3; i++) {
+                        int cell = planner.getPathCell(1 + random.nextInt(length - 1));
+                        int x = Math.min(WIDTH - 1, Math.max(0, cell % WIDTH + random.nextInt(3) - 1));
+                        int y = Math.min(HEIGHT - 1, Math.max(0, cell / WIDTH + random.nextInt(3) - 1));
+                        if (y * WIDTH + x != goal) {
+                            grid.toggleObstacle(x, y);
+                        }
+                    }
+                    start = planner.getPathCell(Math.min(length - 1, 1 + random.nextInt(3)));
+                }
+                for (int i = 0; i < 2; i++) {
+                    int cell = otherCell(random, goal);
+                    grid.toggleObstacle(cell % WIDTH, cell / WIDTH);
+                }
+            }
+            planner.detach();
+            assertTrue(repairedExpansions < freshExpansions,
+                    "seed " + seed + ": repairs expanded " + repairedExpansions + ", fresh searches " + freshExpansions);
+        }
+    }
+
+    @Test
+    void otherNeighborhoodsMatchDijkstra() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.caves(grid, 0.45, 4, 7);
+        SplittableRandom random = new SplittableRandom(7);
+        for (Neighborhood neighborhood : List.of(Neighborhood.FOUR, Neighborhood.EIGHT_NO_CORNER_CUTTING)) {
+            AStarEngine engine = new AStarEngine(neighborhood, Heuristic.OCTILE);
+            for (int q = 0; q < QUERIES; q++) {
+                int start = random.nextInt(WIDTH * HEIGHT);
+                int goal = otherCell(random, start);
+                checkOptimal(grid, neighborhood, engine, start, goal, dijkstra(grid, neighborhood, start, goal));
+            }
+        }
+    }
+
+    @Test
+    void terrainCostsMatchDijkstra() {
+        TerrainGrid grid = new TerrainGrid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.2, 11);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                grid.setCost(x, y, 0.5f + random.nextInt(8) * 0.5f);
+            }
+        }
+        List<PathSearch> engines = List.of(new AStarEngine(), new AnytimeSearch(3, Long.MAX_VALUE));
+        for (int q = 0; q < QUERIES; q++) {
+            int start = random.nextInt(WIDTH * HEIGHT);
+            int goal = otherCell(random, start);
+            double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+            for (PathSearch engine : engines) {
+                checkOptimal(grid, Neighborhood.EIGHT, engine, start, goal, optimum);
+            }
+        }
+    }
+
+    @Test
+    void hierarchicalPathsAreValidAndNoShorterThanOptimal() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.rooms(grid, 3);
+        HierarchicalPathfinder engine = new HierarchicalPathfinder(grid, 8);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int q = 0; q < QUERIES; q++) {
+            int start = random.nextInt(WIDTH * HEIGHT);
+            int goal = otherCell(random, start);
+            double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+            boolean found = search(grid, engine, start, goal);
+            // Unlike the other engines, HPA* needs a free start
+            boolean startFree = !grid.isObstacle(start % WIDTH, start / WIDTH);
+            assertEquals(startFree && optimum < Double.POSITIVE_INFINITY, found, describe(engine, start, goal));
+            if (found) {
+                double cost = checkPath(grid, Neighborhood.EIGHT, engine, start, goal);
+                assertTrue(cost >= optimum - TOLERANCE, describe(engine, start, goal) + ": " + cost + " < " + optimum);
+            }
+        }
+    }
+
+    @Test
+    void hierarchicalPathsFollowEdits() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.rooms(grid, 5);
+        HierarchicalPathfinder engine = new HierarchicalPathfinder(grid, 8);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int round = 0; round < 20; round++) {
+            for (int q = 0; q < 10; q++) {
+                int start = random.nextInt(WIDTH * HEIGHT);
+                int goal = otherCell(random, start);
+                double optimum = dijkstra(grid, Neighborhood.EIGHT, start, goal);
+                boolean found = search(grid, engine, start, goal);
+                boolean startFree = !grid.isObstacle(start % WIDTH, start / WIDTH);
+                assertEquals(startFree && optimum < Double.POSITIVE_INFINITY, found, describe(engine, start, goal));
+                if (found) {
+                    checkPath(grid, Neighborhood.EIGHT, engine, start, goal);
+                }
+            }
+            for (int i = 0; i < 20; i++) {
+                grid.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            }
+            if (round == 10) {
+                MapGenerator.caves(grid, 0.45, 3, 5); // A reset rebuilds every cluster
+            }
+        }
+        engine.detach();
+    }
+
+    @Test
+    void startEqualsGoalGivesOneCellPath() {
+        Grid grid = new Grid(10, 10);
+        grid.setObstacle(4, 3, true);
+        int cell = 3 * 10 + 3;
+        for (PathSearch engine : List.of(new AStarEngine(), new JumpPointSearch(false), new JumpPointSearch(true),
+                new BidirectionalSearch(), new AnytimeSearch(2, Long.MAX_VALUE), new IncrementalPlanner(grid),
+                new HierarchicalPathfinder(grid, 4))) {
+            assertTrue(search(grid, engine, cell, cell), describe(engine, cell, cell));
+            assertEquals(1, engine.getPathLength(), describe(engine, cell, cell));
+            assertEquals(cell, engine.getPathCell(0), describe(engine, cell, cell));
+            assertEquals(0, engine.getPathCost(), describe(engine, cell, cell));
+        }
+    }
+
+    // Used to loop forever: cost 0 over a lower bound of 0 made the suboptimality bound NaN
+    @Test
+    void anytimeSearchReturnsAtOnceWhenStartIsGoal() {
+        SearchResult result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> AStar.searchAnytime(new Grid(10, 10), new Node(3, 3), new Node(3, 3), 2.0, 500_000_000L));
+        assertTrue(result.isFound());
+        assertEquals(1, result.getPath().size());
+        assertEquals(0, result.getPathCost());
+        assertEquals(1, result.getSuboptimalityBound());
+    }
+
+    @Test
+    void blockedOrWalledOffGoalIsNotFound() {
+        Grid grid = new Grid(12, 12);
+        grid.setObstacle(2, 2, true);
+        for (int i = 0; i < 12; i++) {
+            grid.setObstacle(8, i, true); // Wall off the columns right of x = 8
+        }
+        int start = 1;
+        int blocked = 2 * 12 + 2;
+        int walledOff = 5 * 12 + 10;
+        for (PathSearch engine : List.of(new AStarEngine(), new JumpPointSearch(false), new JumpPointSearch(true),
+                new BidirectionalSearch(), new AnytimeSearch(2, Long.MAX_VALUE), new IncrementalPlanner(grid),
+                new HierarchicalPathfinder(grid, 4))) {
+            assertFalse(search(grid, engine, start, blocked), describe(engine, start, blocked));
+            assertFalse(search(grid, engine, start, walledOff), describe(engine, start, walledOff));
+        }
+        assertFalse(grid.canReach(1, 0, 10, 5));
+        assertEquals(null, AStar.findPath(grid, 1, 0, 10, 5, SearchMode.JPS));
+    }
+
+    // A random cell other than the given one; startEqualsGoalGivesOneCellPath covers that case
+    private static int otherCell(SplittableRandom random, int cell) {
+        int other = random.nextInt(WIDTH * HEIGHT - 1);
+        return other < cell ? other : other + 1;
+    }
+
+    private static void checkOptimal(Grid grid, Neighborhood neighborhood, PathSearch engine,
+                                     int start, int goal, double optimum) {
+        boolean found = search(grid, engine, start, goal);
+        assertEquals(optimum < Double.POSITIVE_INFINITY, found, describe(engine, start, goal));
+        if (found) {
+            double cost = checkPath(grid, neighborhood, engine, start, goal);
+            assertEquals(optimum, cost, TOLERANCE, describe(engine, start, goal));
+        }
+    }
+
+    private static boolean search(Grid grid, PathSearch engine, int start, int goal) {
+        int width = grid.getWidth();
+        return engine.search(grid, start % width, start / width, goal % width, goal / width);
+    }
+
+    // Check that the engine's path is made of legal moves from start to goal and
+    // that its steps add up to the reported cost; returns that cost
+    private static double checkPath(Grid grid, Neighborhood neighborhood, PathSearch engine, int start, int goal) {
+        String query = describe(engine, start, goal);
+        int width = grid.getWidth();
+        int length = engine.getPathLength();
+        assertTrue(length > 0, query);
+        assertEquals(start, engine.getPathCell(0), query);
+        assertEquals(goal, engine.getPathCell(length - 1), query);
+        double cost = 0;
+        for (int i = 1; i < length; i++) {
+            int from = engine.getPathCell(i - 1);
+            int to = engine.getPathCell(i);
+            double step = stepLength(grid, neighborhood, from % width, from / width, to % width, to / width);
+            if (Double.isNaN(step)) {
+                fail(query + ": illegal step " + i + " from " + from + " to " + to);
+            }
+            cost += step * grid.getCost(to % width, to / width);
+        }
+        assertEquals(cost, engine.getPathCost(), TOLERANCE, query);
+        return cost;
+    }
+
+    // Length of a legal move between two cells, NaN if the move is not allowed
+    private static double stepLength(Grid grid, Neighborhood neighborhood, int x, int y, int nx, int ny) {
+        int dx = nx - x;
+        int dy = ny - y;
+        if (Math.abs(dx) > 1 || Math.abs(dy) > 1 || (dx == 0 && dy == 0)
+                || nx < 0 || nx >= grid.getWidth() || ny < 0 || ny >= grid.getHeight() || grid.isObstacle(nx, ny)) {
+            return Double.NaN;
+        }
+        if (dx == 0 || dy == 0) {
+            return 1;
+        }
+        if (neighborhood == Neighborhood.FOUR
+                || (neighborhood == Neighborhood.EIGHT_NO_CORNER_CUTTING
+                    && (grid.isObstacle(nx, y) || grid.isObstacle(x, ny)))) {
+            return Double.NaN;
+        }
+        return Math.sqrt(2);
+    }
+
+    // Cost of the cheapest path, infinite if there is none. Like the engines, a
+    // blocked start may be left but a blocked goal cannot be entered.
+    static double dijkstra(Grid grid, Neighborhood neighborhood, int start, int goal) {
+        int width = grid.getWidth();
+        if (grid.isObstacle(goal % width, goal / width)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double[] distance = new double[width * grid.getHeight()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[start] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[] {0, start});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > distance[cell]) {
+                continue;
+            }
+            if (cell == goal) {
+                return distance[cell];
+            }
+            int x = cell % width;
+            int y = cell / width;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    double step = stepLength(grid, neighborhood, x, y, x + dx, y + dy);
+                    if (Double.isNaN(step)) {
+                        continue;
+                    }
+                    int next = cell + dy * width + dx;
+                    double d = distance[cell] + step * grid.getCost(x + dx, y + dy);
+                    if (d < distance[next]) {
+                        distance[next] = d;
+                        queue.add(new double[] {d, next});
+                    }
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private static String describe(PathSearch engine, int start, int goal) {
+        return engine.getClass().getSimpleName() + " from cell " + start + " to " + goal;
+    }
+}
@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// A FlowField repaired after edits against one built from scratch on the edited
+// grid, and a fresh field against Dijkstra from single cells
+class FlowFieldTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 50;
+    private static final double TOLERANCE = 1e-3; // Distances are floats
+
+    @Test
+    void distancesMatchDijkstra() {
+        TerrainGrid grid = new TerrainGrid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.25, 2);
+        SplittableRandom random = new SplittableRandom(2);
+        grid.fillCost(10, 10, 30, 25, 2.5f);
+        int goal = random.nextInt(WIDTH * HEIGHT);
+        grid.setObstacle(goal % WIDTH, goal / WIDTH, false);
+        FlowField field = new FlowField(grid, goal % WIDTH, goal / WIDTH);
+        for (int q = 0; q < 100; q++) {
+            int cell = random.nextInt(WIDTH * HEIGHT);
+            if (grid.isObstacle(cell % WIDTH, cell / WIDTH)) {
+                continue;
+            }
+            double expected = EngineDifferentialTest.dijkstra(grid, Neighborhood.EIGHT, cell, goal);
+            assertEquals(expected, field.getDistance(cell % WIDTH, cell / WIDTH), TOLERANCE, "cell " + cell);
+        }
+    }
+
+    @Test
+    void repairMatchesRebuild() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.3, 4);
+        SplittableRandom random = new SplittableRandom(4);
+        int[] goals = {5 * WIDTH + 5, 40 * WIDTH + 50, 20 * WIDTH + 30};
+        for (int goal : goals) {
+            grid.setObstacle(goal % WIDTH, goal / WIDTH, false);
+        }
+        FlowField repaired = new FlowField(grid, goals);
+        repaired.update();
+        for (int round = 0; round < 40; round++) {
+            int edits = 1 + random.nextInt(12);
+            for (int i = 0; i < edits; i++) {
+                grid.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            }
+            FlowField rebuilt = new FlowField(grid, goals);
+            float[] expected = rebuilt.getDistances();
+            float[] actual = repaired.getDistances();
+            for (int cell = 0; cell < expected.length; cell++) {
+                assertEquals(expected[cell], actual[cell], TOLERANCE, "round " + round + ", cell " + cell);
+                checkDirection(grid, repaired, cell);
+            }
+            rebuilt.detach();
+        }
+    }
+
+    // The step a field gives from a cell leads to a free neighbor whose distance
+    // plus the step's cost is the cell's distance
+    private static void checkDirection(Grid grid, FlowField field, int cell) {
+        int x = cell % WIDTH;
+        int y = cell / WIDTH;
+        int next = field.nextCell(x, y);
+        float distance = field.getDistance(x, y);
+        if (next < 0) {
+            assertTrue(distance == 0 || distance == Float.POSITIVE_INFINITY, "cell " + cell + " has no step");
+            return;
+        }
+        int nx = next % WIDTH;
+        int ny = next / WIDTH;
+        assertTrue(Math.abs(nx - x) <= 1 && Math.abs(ny - y) <= 1 && !grid.isObstacle(nx, ny), "cell " + cell);
+        double step = (nx != x && ny != y ? Math.sqrt(2) : 1) * grid.getCost(nx, ny);
+        assertEquals(distance, field.getDistance(nx, ny) + step, TOLERANCE, "cell " + cell);
+    }
+}
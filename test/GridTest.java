@@ -0,0 +1,163 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Bulk writes and loads: what they store and what listeners hear about them
+class GridTest {
+
+    // Counts the notifications a grid sends
+    private static final class CountingListener implements GridListener {
+        int cellsChanged;
+        int resets;
+
+        @Override
+        public void cellChanged(int x, int y) {
+            cellsChanged++;
+        }
+
+        @Override
+        public void gridReset() {
+            resets++;
+        }
+    }
+
+    @Test
+    void generatorsNotifyOncePerMap() {
+        Grid grid = new Grid(100, 300);
+        CountingListener listener = new CountingListener();
+        grid.addListener(listener);
+        MapGenerator.random(grid, 0.3, 1);
+        MapGenerator.maze(grid, 1);
+        MapGenerator.rooms(grid, 1);
+        MapGenerator.caves(grid, 0.45, 3, 1);
+        assertEquals(4, listener.resets);
+        assertEquals(0, listener.cellsChanged);
+    }
+
+    @Test
+    void setAllRowWordsMatchesRowByRow(@TempDir Path dir) throws IOException {
+        Grid source = new Grid(130, 70);
+        MapGenerator.caves(source, 0.45, 2, 3);
+        int wordsPerRow = source.getWordsPerRow();
+        long[] words = new long[wordsPerRow * source.getHeight()];
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                words[y * wordsPerRow + w] = source.getRowWord(y, w) | (w == wordsPerRow - 1 ? -1L << 2 : 0);
+            }
+        }
+        Grid heap = new Grid(130, 70);
+        heap.setAllRowWords(words); // Padding bits set above must be dropped
+        source.save(dir.resolve("grid.bin"));
+        Grid mapped = Grid.map(dir.resolve("grid.bin"), true);
+        mapped.resetObstacles();
+        mapped.setAllRowWords(words);
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                assertEquals(source.getRowWord(y, w), heap.getRowWord(y, w), "row " + y);
+                assertEquals(source.getRowWord(y, w), mapped.getRowWord(y, w), "row " + y);
+            }
+        }
+    }
+
+    @Test
+    void loadersRoundTrip(@TempDir Path dir) throws IOException {
+        Grid source = new Grid(90, 40);
+        MapGenerator.rooms(source, 5);
+        MapFiles.saveMovingAi(source, dir.resolve("grid.map"));
+        MapFiles.saveRle(source, dir.resolve("grid.rle"));
+        for (Grid loaded : new Grid[] {MapFiles.loadMovingAi(dir.resolve("grid.map")),
+                MapFiles.loadRle(dir.resolve("grid.rle"))}) {
+            for (int y = 0; y < source.getHeight(); y++) {
+                for (int x = 0; x < source.getWidth(); x++) {
+                    assertEquals(source.isObstacle(x, y), loaded.isObstacle(x, y), "cell " + x + ", " + y);
+                }
+            }
+        }
+        assertEquals(true, Files.size(dir.resolve("grid.rle")) < Files.size(dir.resolve("grid.map")));
+    }
+
+    @Test
+    void setObstacleRejectsCellsOutsideTheGrid() {
+        Grid grid = new Grid(10, 5);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.setObstacle(10, 0, true));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.setObstacle(0, -1, true));
+        assertEquals(0, grid.getVersion());
+    }
+
+    @Test
+    void rleLoaderRejectsNegativeRuns(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("grid.rle");
+        MapFiles.saveRle(new Grid(10, 1), file);
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file), 0, 16).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer bad = ByteBuffer.allocate(21).order(ByteOrder.LITTLE_ENDIAN);
+        bad.put(header);
+        bad.put(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}); // Varint -1
+        Files.write(file, bad.array());
+        IOException e = assertThrows(IOException.class, () -> MapFiles.loadRle(file));
+        assertEquals("Negative run in row 0", e.getMessage());
+    }
+
+    @Test
+    void movingAiLoaderReportsTheFirstBadColumn(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("grid.map");
+        String header = "type octile\nheight 2\nwidth 70\nmap\n";
+        String full = ".".repeat(70) + "\n";
+        String[][] cases = {
+            {full + ".".repeat(66) + "x...\n", "Row 1", "column 66"},
+            {full + ".".repeat(65) + "\n", "Row 1", "column 65"},
+            {full + ".".repeat(64), "Row 1", "column 64"},
+            {full, "Row 1", "column 0"},
+            {"@".repeat(3) + "?" + "\r\n", "Row 0", "column 3"},
+        };
+        for (String[] c : cases) {
+            Files.write(file, (header + c[0]).getBytes());
+            IOException e = assertThrows(IOException.class, () -> MapFiles.loadMovingAi(file));
+            assertEquals(c[1] + " of " + file + " is too short or has an unknown character at " + c[2], e.getMessage());
+        }
+        // Windows line breaks and no final break still load
+        Files.write(file, (header + "@".repeat(70) + "\r\n" + ".".repeat(69) + "T").getBytes());
+        Grid grid = MapFiles.loadMovingAi(file);
+        for (int x = 0; x < 70; x++) {
+            assertEquals(true, grid.isObstacle(x, 0));
+            assertEquals(x == 69, grid.isObstacle(x, 1));
+        }
+    }
+
+    @Test
+    void cellArraysRejectGridsTooLargeForAnInt() {
+        // 2^32 cells, all free, without 512 MB of obstacle words behind them
+        Grid grid = new Grid(1 << 16, 1 << 16, new CellStorage() {
+            @Override
+            public long wordCount() {
+                return (long) (1 << 10) << 16;
+            }
+
+            @Override
+            public long getWord(long wordIndex) {
+                return 0;
+            }
+
+            @Override
+            public void setWord(long wordIndex, long word) {
+            }
+
+            @Override
+            public void clear() {
+            }
+        });
+        for (PathSearch engine : new PathSearch[] {new AStarEngine(), new AnytimeSearch(2, Long.MAX_VALUE),
+                new BidirectionalSearch(), new JumpPointSearch(false), new JumpPointSearch(true)}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> engine.search(grid, 0, 0, 5, 5));
+            assertEquals(true, e.getMessage().contains("65536x65536 is too large"), e.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new IncrementalPlanner(grid));
+        assertThrows(IllegalArgumentException.class, () -> new FlowField(grid, new int[] {0}));
+    }
+}
@@ -0,0 +1,179 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.Test;
+
+// What the generators promise: the same map for the same seed however many
+// threads build it, the exact obstacle count of random, and mazes and rooms
+// where every free cell is reachable
+class MapGeneratorTest {
+    private static final int[][] SIZES = {{1, 1}, {20, 17}, {64, 64}, {333, 201}, {130, 300}};
+
+    @Test
+    void sameSeedGivesTheSameMapOnAnyPool() throws Exception {
+        for (int[] size : SIZES) {
+            for (BiConsumer<Grid, Long> generator : generators()) {
+                long[] common = build(generator, size, 7);
+                ForkJoinPool single = new ForkJoinPool(1);
+                ForkJoinPool four = new ForkJoinPool(4);
+                try {
+                    // A parallel stream started inside a pool runs in that pool
+                    assertArrayEqualsWords(common, single.submit(() -> build(generator, size, 7)).get(), size);
+                    assertArrayEqualsWords(common, four.submit(() -> build(generator, size, 7)).get(), size);
+                } finally {
+                    single.shutdown();
+                    four.shutdown();
+                }
+                if (size[0] * size[1] > 1000) {
+                    assertNotEquals(Arrays.hashCode(common), Arrays.hashCode(build(generator, size, 8)),
+                            "seeds 7 and 8 gave the same " + size[0] + "x" + size[1] + " map");
+                }
+            }
+        }
+    }
+
+    @Test
+    void randomBlocksExactlyTheRoundedShare() {
+        for (int[] size : SIZES) {
+            for (double density : new double[] {0, 0.1, 0.25, 1 / 3.0, 0.999, 1}) {
+                Grid grid = new Grid(size[0], size[1]);
+                MapGenerator.random(grid, density, 3);
+                long cells = (long) size[0] * size[1];
+                String map = size[0] + "x" + size[1] + " at " + density;
+                assertEquals(Math.round(density * cells), blockedCells(grid), map);
+                // No bits past the right edge
+                assertEquals(blockedCells(grid), setBits(grid), map);
+            }
+        }
+    }
+
+    @Test
+    void mazesAreConnectedTrees() {
+        for (int[] size : SIZES) {
+            for (long seed = 1; seed <= 3; seed++) {
+                Grid grid = new Grid(size[0], size[1]);
+                MapGenerator.maze(grid, seed);
+                String map = size[0] + "x" + size[1] + " seed " + seed;
+                long free = (long) size[0] * size[1] - blockedCells(grid);
+                assertEquals(free, reachableFrom(grid, 0, 0), map);
+                // A perfect maze has one route between any two rooms: no cycles
+                assertEquals(free - 1, adjacentFreePairs(grid), map);
+            }
+        }
+    }
+
+    @Test
+    void roomsAreConnected() {
+        for (int[] size : SIZES) {
+            for (long seed = 1; seed <= 3; seed++) {
+                Grid grid = new Grid(size[0], size[1]);
+                MapGenerator.rooms(grid, seed);
+                String map = size[0] + "x" + size[1] + " seed " + seed;
+                long free = (long) size[0] * size[1] - blockedCells(grid);
+                assertTrue(free > 0, map);
+                int first = firstFreeCell(grid);
+                assertEquals(free, reachableFrom(grid, first % size[0], first / size[0]), map);
+                assertEquals(blockedCells(grid), setBits(grid), map);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Grid, Long>[] generators() {
+        return new BiConsumer[] {
+            (BiConsumer<Grid, Long>) (grid, seed) -> MapGenerator.random(grid, 0.3, seed),
+            (BiConsumer<Grid, Long>) MapGenerator::maze,
+            (BiConsumer<Grid, Long>) MapGenerator::rooms,
+            (BiConsumer<Grid, Long>) (grid, seed) -> MapGenerator.caves(grid, 0.45, 4, seed),
+        };
+    }
+
+    private static long[] build(BiConsumer<Grid, Long> generator, int[] size, long seed) {
+        Grid grid = new Grid(size[0], size[1]);
+        generator.accept(grid, seed);
+        long[] words = new long[grid.getWordsPerRow() * size[1]];
+        for (int y = 0; y < size[1]; y++) {
+            for (int w = 0; w < grid.getWordsPerRow(); w++) {
+                words[y * grid.getWordsPerRow() + w] = grid.getRowWord(y, w);
+            }
+        }
+        return words;
+    }
+
+    private static void assertArrayEqualsWords(long[] expected, long[] actual, int[] size) {
+        assertTrue(Arrays.equals(expected, actual), size[0] + "x" + size[1] + " map differs");
+    }
+
+    private static long blockedCells(Grid grid) {
+        long count = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                count += grid.isObstacle(x, y) ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    private static long setBits(Grid grid) {
+        long count = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int w = 0; w < grid.getWordsPerRow(); w++) {
+                count += Long.bitCount(grid.getRowWord(y, w));
+            }
+        }
+        return count;
+    }
+
+    private static int firstFreeCell(Grid grid) {
+        for (int cell = 0; ; cell++) {
+            if (!grid.isObstacle(cell % grid.getWidth(), cell / grid.getWidth())) {
+                return cell;
+            }
+        }
+    }
+
+    // Free cells reachable from (x, y) through the four straight moves
+    private static long reachableFrom(Grid grid, int x, int y) {
+        int width = grid.getWidth();
+        boolean[] seen = new boolean[width * grid.getHeight()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[y * width + x] = true;
+        queue.add(y * width + x);
+        long count = 0;
+        int[] dx = {1, -1, 0, 0};
+        int[] dy = {0, 0, 1, -1};
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            count++;
+            for (int d = 0; d < 4; d++) {
+                int nx = cell % width + dx[d];
+                int ny = cell / width + dy[d];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < grid.getHeight()
+                        && !grid.isObstacle(nx, ny) && !seen[ny * width + nx]) {
+                    seen[ny * width + nx] = true;
+                    queue.add(ny * width + nx);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long adjacentFreePairs(Grid grid) {
+        long pairs = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.isObstacle(x, y)) {
+                    continue;
+                }
+                pairs += x + 1 < grid.getWidth() && !grid.isObstacle(x + 1, y) ? 1 : 0;
+                pairs += y + 1 < grid.getHeight() && !grid.isObstacle(x, y + 1) ? 1 : 0;
+            }
+        }
+        return pairs;
+    }
+}
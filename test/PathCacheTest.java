@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Cached answers against a fresh AStarEngine after every round of edits: the
+// cache may keep an entry only while its path is still free and still optimal
+class PathCacheTest {
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 100;
+    private static final int PAIRS = 60;
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void cachedCostsMatchAFreshSearchAcrossEdits() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.3, 2);
+        check(grid, new SplittableRandom(2));
+    }
+
+    @Test
+    void cachedCostsMatchAFreshSearchAcrossCostChanges() {
+        TerrainGrid grid = new TerrainGrid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.2, 4);
+        grid.fillCost(30, 0, 70, HEIGHT, 3);
+        SplittableRandom random = new SplittableRandom(4);
+        PathCache cache = new PathCache(grid, 1000);
+        int[] pairs = pairs(random);
+        for (int round = 0; round < 30; round++) {
+            compare(grid, cache, pairs);
+            for (int i = 0; i < 10; i++) {
+                // Cheaper, dearer and cheapest-yet cells; the last one lowers the smallest cost
+                float cost = round == 25 && i == 0 ? 0.25f : random.nextBoolean() ? 0.5f : 4;
+                grid.setCost(random.nextInt(WIDTH), random.nextInt(HEIGHT), cost);
+            }
+        }
+        assertTrue(cache.getHits() > 0);
+        cache.detach();
+    }
+
+    // A freed cell far from every cached path can still open a shortcut: a wall
+    // with a gap at the bottom, then a door high up in it
+    @Test
+    void freedCellsFarFromAPathOpenShortcuts() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT - 1; y++) {
+            grid.setObstacle(WIDTH / 2, y, true);
+        }
+        PathCache cache = new PathCache(grid, 1000);
+        SplittableRandom random = new SplittableRandom(8);
+        int[] pairs = new int[PAIRS * 2];
+        for (int i = 0; i < pairs.length; i += 2) {
+            pairs[i] = random.nextInt(HEIGHT / 3) * WIDTH + random.nextInt(WIDTH / 2);
+            pairs[i + 1] = random.nextInt(HEIGHT / 3) * WIDTH + WIDTH / 2 + 1 + random.nextInt(WIDTH / 2 - 1);
+        }
+        compare(grid, cache, pairs);
+        long invalidations = cache.getInvalidations();
+        grid.setObstacle(WIDTH / 2, 2, false);
+        compare(grid, cache, pairs);
+        assertTrue(cache.getInvalidations() - invalidations > PAIRS / 2, cache.getInvalidations() - invalidations + " dropped");
+        cache.detach();
+    }
+
+    // Changes made while detached are caught by the grid version
+    @Test
+    void changesWhileDetachedFlushTheCache() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        PathCache cache = new PathCache(grid, 100);
+        assertTrue(cache.search(grid, 0, 0, 20, 0));
+        cache.detach();
+        for (int y = 0; y < HEIGHT - 1; y++) {
+            grid.setObstacle(10, y, true);
+        }
+        assertTrue(cache.search(grid, 0, 0, 20, 0));
+        assertEquals(2, cache.getMisses());
+        assertTrue(cache.getPathCost() > 20 + TOLERANCE);
+    }
+
+    private static void check(Grid grid, SplittableRandom random) {
+        PathCache cache = new PathCache(grid, 1000);
+        int[] pairs = pairs(random);
+        long invalidations = 0;
+        for (int round = 0; round < 30; round++) {
+            compare(grid, cache, pairs);
+            for (int i = 0; i < 6; i++) {
+                int x;
+                int y;
+                if (i % 3 == 0 && cache.getPathLength() > 2) {
+                    // Next to the last path, where blocking must drop the entry
+                    int cell = cache.getPathCell(1 + random.nextInt(cache.getPathLength() - 2));
+                    x = Math.min(WIDTH - 1, Math.max(0, cell % WIDTH + random.nextInt(3) - 1));
+                    y = Math.min(HEIGHT - 1, Math.max(0, cell / WIDTH + random.nextInt(3) - 1));
+                } else {
+                    x = random.nextInt(WIDTH);
+                    y = random.nextInt(HEIGHT);
+                }
+                grid.toggleObstacle(x, y);
+            }
+            assertTrue(cache.getInvalidations() >= invalidations);
+            invalidations = cache.getInvalidations();
+        }
+        assertTrue(cache.getHits() > PAIRS * 5, cache.getHits() + " hits");
+        assertTrue(invalidations > 0);
+        cache.detach();
+    }
+
+    // Every pair through the cache and through a fresh engine
+    private static void compare(Grid grid, PathCache cache, int[] pairs) {
+        AStarEngine fresh = new AStarEngine();
+        for (int p = 0; p < pairs.length; p += 2) {
+            int sx = pairs[p] % WIDTH;
+            int sy = pairs[p] / WIDTH;
+            int gx = pairs[p + 1] % WIDTH;
+            int gy = pairs[p + 1] / WIDTH;
+            String query = "(" + sx + ", " + sy + ") -> (" + gx + ", " + gy + ")";
+            boolean expected = fresh.search(grid, sx, sy, gx, gy);
+            assertEquals(expected, cache.search(grid, sx, sy, gx, gy), query);
+            if (expected) {
+                assertEquals(fresh.getPathCost(), cache.getPathCost(), TOLERANCE, query);
+                for (int i = 1; i < cache.getPathLength(); i++) {
+                    int cell = cache.getPathCell(i);
+                    assertTrue(!grid.isObstacle(cell % WIDTH, cell / WIDTH), query + " crosses a blocked cell");
+                }
+            }
+        }
+    }
+
+    private static int[] pairs(SplittableRandom random) {
+        int[] pairs = new int[PAIRS * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(WIDTH * HEIGHT);
+        }
+        return pairs;
+    }
+}
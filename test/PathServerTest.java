@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+// One client session against a PathServer on a free port: every query gets exactly
+// one answer, including queries whose search throws, and the server closes the
+// connection once the client has sent its last query and every answer is out
+class PathServerTest {
+
+    @Test
+    void everyQueryIsAnsweredAndTheConnectionCloses() throws IOException {
+        TerrainGrid terrain = new TerrainGrid(20, 20);
+        terrain.fillCost(0, 0, 10, 20, 2); // JPS rejects grids with cell costs by throwing
+        Grid plain = new Grid(30, 10);
+        plain.setObstacle(5, 5, true);
+        PathServer server = new PathServer(new Grid[] {terrain, plain}, 0, 2);
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        serving.setDaemon(true);
+        serving.start();
+        try {
+            Map<Integer, Byte> statuses = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> session(server.getPort()));
+            assertEquals(PathServer.FOUND, statuses.get(1));
+            assertEquals(PathServer.BAD_REQUEST, statuses.get(2));
+            assertEquals(PathServer.NOT_FOUND, statuses.get(3));
+            assertEquals(PathServer.BAD_REQUEST, statuses.get(4));
+            assertEquals(PathServer.BAD_REQUEST, statuses.get(5));
+            assertEquals(PathServer.BAD_REQUEST, statuses.get(6));
+            assertEquals(PathServer.FOUND, statuses.get(7));
+            assertEquals(7, statuses.size());
+        } finally {
+            server.close();
+        }
+    }
+
+    // Send all queries at once, then read answers until the server closes
+    private static Map<Integer, Byte> session(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            assertEquals(2, in.readInt());
+            assertEquals(20, in.readInt());
+            assertEquals(20, in.readInt());
+            assertEquals(30, in.readInt());
+            assertEquals(10, in.readInt());
+            query(out, 1, 0, 0, 0, 19, 19, SearchMode.ASTAR);
+            query(out, 2, 0, 0, 0, 19, 19, SearchMode.JPS);   // Throws inside the search
+            query(out, 3, 1, 0, 0, 5, 5, SearchMode.JPS);     // Blocked goal
+            query(out, 4, 2, 0, 0, 1, 1, SearchMode.ASTAR);   // No grid 2
+            query(out, 5, 1, 0, 0, 30, 0, SearchMode.ASTAR);  // Goal outside the grid
+            out.writeInt(6);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeByte(99);                                // No such mode
+            query(out, 7, 1, 0, 0, 29, 9, SearchMode.JPS_PLUS);
+            out.flush();
+            socket.shutdownOutput();
+
+            Map<Integer, Byte> statuses = new HashMap<>();
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    return statuses;
+                }
+                byte status = in.readByte();
+                double cost = in.readDouble();
+                byte[] path = new byte[in.readInt()];
+                in.readFully(path);
+                if (status == PathServer.FOUND) {
+                    assertEquals(cost, CompactPath.decode(path).getCost());
+                }
+                assertEquals(null, statuses.put(id, status), "Second answer to query " + id);
+            }
+        }
+    }
+
+    private static void query(DataOutputStream out, int id, int grid, int startX, int startY,
+                              int goalX, int goalY, SearchMode mode) throws IOException {
+        out.writeInt(id);
+        out.writeInt(grid);
+        out.writeInt(startX);
+        out.writeInt(startY);
+        out.writeInt(goalX);
+        out.writeInt(goalY);
+        out.writeByte(mode.ordinal());
+    }
+}
@@ -0,0 +1,162 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+// GridChangeLog against a list of every edit, and PathValidator.validate against
+// a scan of every stored path, across edits, ring overflows and bulk changes
+class PathValidatorTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    @Test
+    void changedSinceListsTheCellsEditedAfterAVersion() {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        GridChangeLog log = new GridChangeLog(grid, 40);
+        SplittableRandom random = new SplittableRandom(3);
+        List<int[]> edits = new ArrayList<>(); // version after the edit, cell
+        int resetVersion = grid.getVersion();
+        for (int i = 0; i < 300; i++) {
+            if (i == 150) {
+                MapGenerator.random(grid, 0.2, 3);
+                resetVersion = grid.getVersion();
+                edits.clear();
+            }
+            int cell = random.nextInt(WIDTH * HEIGHT);
+            grid.toggleObstacle(cell % WIDTH, cell / WIDTH);
+            edits.add(new int[] {grid.getVersion(), cell});
+
+            int current = grid.getVersion();
+            for (int back = 0; back <= 60; back += 5) {
+                int version = current - back;
+                int[] cells = log.changedSince(version);
+                if (back > 40 || version < resetVersion) {
+                    // Older than the 40 changes kept, or from before the bulk change
+                    assertNull(cells, "edit " + i + ", " + back + " versions back");
+                    continue;
+                }
+                TreeSet<Integer> expected = new TreeSet<>();
+                for (int[] edit : edits) {
+                    if (edit[0] > version) {
+                        expected.add(edit[1]);
+                    }
+                }
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), cells,
+                        "edit " + i + ", " + back + " versions back");
+            }
+        }
+        log.detach();
+        grid.toggleObstacle(0, 0);
+        assertNull(log.changedSince(grid.getVersion() - 1));
+    }
+
+    @Test
+    void validateMatchesAScanOfEveryPath() {
+        checkAgainstScan(1 << 16);
+    }
+
+    // A log this small overflows between most validations, so they rescan every path
+    @Test
+    void validateRescansWhenTheLogOverflows() {
+        checkAgainstScan(4);
+    }
+
+    private static void checkAgainstScan(int capacity) {
+        Grid grid = new Grid(WIDTH, HEIGHT);
+        MapGenerator.random(grid, 0.2, 5);
+        GridChangeLog log = new GridChangeLog(grid, capacity);
+        PathValidator validator = new PathValidator(log);
+        SplittableRandom random = new SplittableRandom(capacity);
+        Map<Integer, int[]> stored = new HashMap<>(); // id -> cells the path enters
+        int overflows = 0;
+        int staleCount = 0;
+        for (int round = 0; round < 40; round++) {
+            int lastVersion = grid.getVersion();
+            // Some paths are stored before the edits, some found before but stored after
+            List<CompactPath> late = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                CompactPath path = randomPath(grid, random);
+                if (path == null) {
+                    continue;
+                }
+                if (i % 2 == 0) {
+                    store(validator, stored, path);
+                } else {
+                    late.add(path);
+                }
+            }
+            for (int i = 0; i < 8; i++) {
+                int cell;
+                if (i % 2 == 0 && !stored.isEmpty()) {
+                    // A cell of some stored path, so that paths do go stale
+                    int[] cells = new ArrayList<>(stored.values()).get(random.nextInt(stored.size()));
+                    cell = cells[random.nextInt(cells.length)];
+                } else {
+                    cell = random.nextInt(WIDTH * HEIGHT);
+                }
+                grid.toggleObstacle(cell % WIDTH, cell / WIDTH);
+            }
+            if (round % 13 == 12) {
+                MapGenerator.random(grid, 0.2, round); // gridReset: the log cannot tell what changed
+            }
+            for (CompactPath path : late) {
+                store(validator, stored, path);
+            }
+            if (log.changedSince(lastVersion) == null) {
+                overflows++;
+            }
+
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (Map.Entry<Integer, int[]> entry : stored.entrySet()) {
+                for (int cell : entry.getValue()) {
+                    if (grid.isObstacle(cell % WIDTH, cell / WIDTH)) {
+                        expected.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), validator.validate(),
+                    "round " + round);
+            stored.keySet().removeAll(expected);
+            staleCount += expected.size();
+            assertEquals(stored.size(), validator.size());
+        }
+        assertTrue(staleCount > 20, "only " + staleCount + " paths went stale");
+        assertTrue(capacity > 100 ? overflows == 3 : overflows > 30, overflows + " overflows");
+    }
+
+    // A path between two random cells, smoothed half the time, or null if there is
+    // none, it starts on an obstacle or it has a single cell
+    private static CompactPath randomPath(Grid grid, SplittableRandom random) {
+        int start = random.nextInt(WIDTH * HEIGHT);
+        int goal = random.nextInt(WIDTH * HEIGHT);
+        CompactPath path = AStar.findPath(grid, start % WIDTH, start / WIDTH, goal % WIDTH, goal / WIDTH,
+                SearchMode.ASTAR);
+        if (path == null || path.getLength() < 2 || grid.isObstacle(start % WIDTH, start / WIDTH)) {
+            return null;
+        }
+        return random.nextBoolean() ? path.smooth(grid) : path;
+    }
+
+    // Store the path in the validator and its entered cells in the model. The cells
+    // between smoothed waypoints must form a chain of single steps.
+    private static void store(PathValidator validator, Map<Integer, int[]> stored, CompactPath path) {
+        int[] route = path.routeCells();
+        for (int i = 1; i < route.length; i++) {
+            int dx = Math.abs(route[i] % WIDTH - route[i - 1] % WIDTH);
+            int dy = Math.abs(route[i] / WIDTH - route[i - 1] / WIDTH);
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0, "route step " + i);
+        }
+        int[] entered = new int[Math.max(0, route.length - 1)];
+        System.arraycopy(route, 1, entered, 0, entered.length);
+        stored.put(validator.add(path), entered);
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+// An observer hears about every g a cell gets, so what it saw last matches the
+// g the cell is expanded with
+class SearchObserverTest {
+
+    @Test
+    void cellOpenedFiresOnEveryCheaperRoute() {
+        TerrainGrid grid = new TerrainGrid(40, 40);
+        for (int y = 0; y < 30; y++) {
+            grid.setObstacle(20, y, true);
+        }
+        grid.fillCost(5, 0, 35, 40, 4);
+        grid.fillCost(0, 18, 40, 22, 0.5f);
+
+        AStarEngine engine = new AStarEngine();
+        Map<Integer, Double> openedWith = new HashMap<>();
+        int[] events = new int[2];
+        SearchObserver observer = new SearchObserver() {
+            @Override
+            public void cellOpened(int cell) {
+                openedWith.put(cell, engine.getG(cell));
+                events[0]++;
+            }
+
+            @Override
+            public void cellClosed(int cell) {
+                assertEquals(engine.getG(cell), openedWith.get(cell), "cell " + cell);
+                events[1]++;
+            }
+        };
+        openedWith.put(0, 0.0); // The start is in the fringe before the observer is
+        engine.begin(grid, 0, 0, 39, 39);
+        while (engine.step(100, observer) == AStarEngine.RUNNING) {
+            // Keep stepping
+        }
+        assertEquals(AStarEngine.FOUND, engine.step(1, observer));
+        // Some cells were opened again with a cheaper g
+        assertTrue(events[0] > engine.getNodesPushed() - 1, events[0] + " events, " + engine.getNodesPushed() + " pushes");
+        assertTrue(events[1] > 0);
+    }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// The striped latency histogram against exact percentiles of the same values, and
+// the switch that keeps AStar from recording into SearchStats
+class SearchStatsTest {
+
+    @Test
+    void histogramAddsUpTheStripesOfEveryThread() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 20000;
+        long[][] values = new long[threads][perThread];
+        Thread[] recorders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            long[] mine = values[t];
+            for (int i = 0; i < perThread; i++) {
+                mine[i] = random.nextInt(4) == 0 ? random.nextLong(1L << 40) : random.nextLong(1000);
+            }
+            recorders[t] = new Thread(() -> {
+                for (long value : mine) {
+                    histogram.record(value);
+                }
+            });
+            recorders[t].start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+
+        long[] all = Arrays.stream(values).flatMapToLong(Arrays::stream).sorted().toArray();
+        assertEquals(all.length, histogram.getCount());
+        assertEquals(all[all.length - 1], histogram.getMax());
+        assertEquals(Arrays.stream(all).average().getAsDouble(), histogram.getMean(), 1e-6 * histogram.getMean());
+        for (double percentile : new double[] {0, 10, 50, 75, 76, 90, 99, 99.9, 100}) {
+            long exact = all[(int) Math.max(0, Math.ceil(percentile / 100 * all.length) - 1)];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 100,
+                    "p" + percentile + ": exact " + exact + ", reported " + reported);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    void disabledStatsRecordNothing() {
+        Grid grid = new Grid(20, 20);
+        grid.setObstacle(19, 19, true);
+        SearchStats stats = SearchStats.global();
+        try {
+            stats.setEnabled(false);
+            long before = stats.getSearches();
+            AStar.search(grid, new Node(0, 0), new Node(19, 19));
+            AStar.findPath(grid, 0, 0, 10, 10, SearchMode.ASTAR);
+            assertEquals(before, stats.getSearches());
+
+            stats.setEnabled(true);
+            long rejected = stats.getRejected();
+            long found = stats.getFound();
+            AStar.search(grid, new Node(0, 0), new Node(19, 19));
+            AStar.findPath(grid, 0, 0, 10, 10, SearchMode.ASTAR);
+            assertEquals(rejected + 1, stats.getRejected());
+            assertEquals(found + 1, stats.getFound());
+        } finally {
+            stats.setEnabled(true);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Cost updates keep every cost positive and finite
+class TerrainGridTest {
+
+    @Test
+    void scaleCostMultipliesTheClippedRectangle() {
+        TerrainGrid grid = new TerrainGrid(8, 6);
+        grid.fillCost(0, 0, 8, 6, 2);
+        grid.scaleCost(-3, 4, 3, 10, 0.25f);
+        assertEquals(0.5f, grid.getCost(2, 5));
+        assertEquals(2f, grid.getCost(3, 5));
+        assertEquals(2f, grid.getCost(2, 3));
+        assertEquals(0.5f, grid.getMinCost());
+    }
+
+    @Test
+    void scaleCostRejectsOverflowAndUnderflow() {
+        TerrainGrid grid = new TerrainGrid(8, 6);
+        grid.setCost(5, 5, 1e30f);
+        grid.setCost(1, 1, 1e-30f);
+        int version = grid.getVersion();
+
+        assertThrows(IllegalArgumentException.class, () -> grid.scaleCost(0, 0, 8, 6, 1e10f));
+        assertThrows(IllegalArgumentException.class, () -> grid.scaleCost(0, 0, 8, 6, 1e-20f));
+
+        // Nothing changed, not even the cells scanned before the bad one
+        assertEquals(version, grid.getVersion());
+        assertEquals(1f, grid.getCost(0, 0));
+        assertEquals(1e30f, grid.getMaxCost());
+        assertEquals(1e-30f, grid.getMinCost());
+    }
+
+    // The bounds are kept up to date by the writers; compare them with a scan
+    @Test
+    void boundsFollowEveryUpdate() {
+        TerrainGrid grid = new TerrainGrid(30, 20);
+        SplittableRandom random = new SplittableRandom(11);
+        float[] levels = {0.5f, 1, 2, 3};
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(30);
+            int y = random.nextInt(20);
+            switch (random.nextInt(10)) {
+                case 0:
+                    grid.fillCost(x, y, x + random.nextInt(12), y + random.nextInt(12), levels[random.nextInt(4)]);
+                    break;
+                case 1:
+                    grid.scaleCost(x, y, x + random.nextInt(12), y + random.nextInt(12), random.nextBoolean() ? 2 : 0.5f);
+                    break;
+                case 2:
+                    if (random.nextInt(20) == 0) {
+                        float[] costs = new float[30 * 20];
+                        Arrays.fill(costs, 1);
+                        grid.importCosts(costs);
+                    }
+                    break;
+                default:
+                    grid.setCost(x, y, levels[random.nextInt(4)]);
+            }
+            float min = Float.POSITIVE_INFINITY;
+            float max = 0;
+            for (int cy = 0; cy < 20; cy++) {
+                for (int cx = 0; cx < 30; cx++) {
+                    min = Math.min(min, grid.getCost(cx, cy));
+                    max = Math.max(max, grid.getCost(cx, cy));
+                }
+            }
+            assertEquals(min, grid.getMinCost(), "update " + i);
+            assertEquals(max, grid.getMaxCost(), "update " + i);
+            assertEquals(min == 1 && max == 1, grid.hasUniformCosts(), "update " + i);
+        }
+    }
+}
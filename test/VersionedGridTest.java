@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Snapshots of a VersionedGrid stay as they were published, whatever the writer
+// does afterwards, refuse writes, and answer canReach from the labels frozen with them
+class VersionedGridTest {
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200; // Two tiles of cells, fifteen of labels
+
+    @Test
+    void snapshotsKeepTheirCellsAcrossLaterEdits() {
+        VersionedGrid world = new VersionedGrid(WIDTH, HEIGHT);
+        SplittableRandom random = new SplittableRandom(1);
+        List<GridSnapshot> snapshots = new ArrayList<>();
+        List<long[]> expected = new ArrayList<>();
+        for (int round = 0; round < 30; round++) {
+            if (round == 10) {
+                world.resetObstacles();
+            } else if (round == 20) {
+                Grid maze = new Grid(WIDTH, HEIGHT);
+                MapGenerator.maze(maze, 2);
+                world.setAllRowWords(words(maze));
+            } else {
+                for (int i = 0; i < 50; i++) {
+                    world.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+                }
+            }
+            GridSnapshot snapshot = world.publish();
+            assertEquals(round + 1, snapshot.getVersion());
+            assertTrue(Arrays.equals(words(world), words(snapshot)), "round " + round);
+            snapshots.add(snapshot);
+            expected.add(words(world));
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertTrue(Arrays.equals(expected.get(i), words(snapshots.get(i))), "snapshot " + i);
+        }
+        assertEquals(snapshots.get(snapshots.size() - 1), world.publish(), "a publish without edits keeps the snapshot");
+    }
+
+    @Test
+    void snapshotsRefuseWrites() {
+        VersionedGrid world = new VersionedGrid(WIDTH, HEIGHT);
+        world.setObstacle(5, 5, true);
+        GridSnapshot snapshot = world.publish();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setObstacle(1, 1, true));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.toggleObstacle(1, 1));
+        long[] row = new long[snapshot.getWordsPerRow()];
+        Arrays.fill(row, -1L);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setRowWords(0, row));
+        long[] all = new long[snapshot.getWordsPerRow() * HEIGHT];
+        Arrays.fill(all, -1L);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setAllRowWords(all));
+        assertThrows(UnsupportedOperationException.class, snapshot::resetObstacles);
+        assertTrue(snapshot.isObstacle(5, 5));
+        assertEquals(1, blockedCells(snapshot));
+    }
+
+    @Test
+    void editsCopyOnlyTheTilesTheyTouch() {
+        TiledCellStorage storage = new TiledCellStorage(4L << TiledCellStorage.TILE_SHIFT);
+        storage.setWord(0, 1);
+        storage.setWord(1, 2);
+        TiledCellStorage frozen = storage.freeze();
+        assertEquals(0, storage.getTilesCopied());
+        storage.setWord(0, 3);
+        storage.setWord(2, 4);
+        assertEquals(1, storage.getTilesCopied());
+        storage.setWord(3L << TiledCellStorage.TILE_SHIFT, 5);
+        storage.setWord(1, 2); // Unchanged: no copy
+        assertEquals(2, storage.getTilesCopied());
+        assertEquals(1, frozen.getWord(0));
+        assertEquals(2, frozen.getWord(1));
+        assertEquals(0, frozen.getWord(2));
+        assertEquals(0, frozen.getWord(3L << TiledCellStorage.TILE_SHIFT));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setWord(0, 0));
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+
+        storage.clear();
+        assertEquals(0, storage.getWord(0));
+        assertEquals(1, frozen.getWord(0));
+    }
+
+    @Test
+    void snapshotsAnswerCanReachAsPublished() {
+        VersionedGrid world = new VersionedGrid(WIDTH, HEIGHT);
+        MapGenerator.maze(world, 3); // Blocking a corridor cell splits a component
+        SplittableRandom random = new SplittableRandom(3);
+        List<GridSnapshot> snapshots = new ArrayList<>();
+        for (int round = 0; round < 15; round++) {
+            for (int i = 0; i < 20; i++) {
+                world.toggleObstacle(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            }
+            if (round == 7) {
+                MapGenerator.random(world, 0.3, 4);
+            }
+            snapshots.add(world.publish());
+        }
+        for (GridSnapshot snapshot : snapshots) {
+            int[] component = floodFill(snapshot);
+            for (int q = 0; q < 300; q++) {
+                int start = random.nextInt(WIDTH * HEIGHT);
+                int goal = random.nextInt(WIDTH * HEIGHT);
+                boolean expected = component[start] >= 0 && component[start] == component[goal];
+                if (component[start] >= 0) {
+                    assertEquals(expected, snapshot.canReach(start % WIDTH, start / WIDTH, goal % WIDTH, goal / WIDTH),
+                            "version " + snapshot.getVersion() + ", cell " + start + " to " + goal);
+                }
+            }
+        }
+    }
+
+    private static long[] words(Grid grid) {
+        long[] words = new long[grid.getWordsPerRow() * grid.getHeight()];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int w = 0; w < grid.getWordsPerRow(); w++) {
+                words[y * grid.getWordsPerRow() + w] = grid.getRowWord(y, w);
+            }
+        }
+        return words;
+    }
+
+    private static long blockedCells(Grid grid) {
+        long count = 0;
+        for (long word : words(grid)) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Component number of every free cell under eight-neighbor moves, -1 for blocked cells
+    private static int[] floodFill(Grid grid) {
+        int[] component = new int[WIDTH * HEIGHT];
+        Arrays.fill(component, -2);
+        int next = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cell = 0; cell < component.length; cell++) {
+            if (grid.isObstacle(cell % WIDTH, cell / WIDTH)) {
+                component[cell] = -1;
+                continue;
+            }
+            if (component[cell] != -2) {
+                continue;
+            }
+            component[cell] = next;
+            queue.add(cell);
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = current % WIDTH + dx;
+                        int ny = current / WIDTH + dy;
+                        if (nx >= 0 && nx < WIDTH && ny >= 0 && ny < HEIGHT && !grid.isObstacle(nx, ny)
+                                && component[ny * WIDTH + nx] == -2) {
+                            component[ny * WIDTH + nx] = next;
+                            queue.add(ny * WIDTH + nx);
+                        }
+                    }
+                }
+            }
+            next++;
+        }
+        return component;
+    }
+}